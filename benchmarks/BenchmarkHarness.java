@@ -0,0 +1,195 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * BenchmarkHarness - small, dependency-free microbenchmark runner
+ * Time-boxed warmup and measurement iterations, a sink that defeats dead-code
+ * elimination, and results written as JSON for regression tracking.
+ *
+ * The services print progress to System.out on every call; the harness swaps
+ * stdout for a discarding stream while measuring so console I/O is not timed.
+ */
+public class BenchmarkHarness {
+
+    // One measured data point
+    public static class Result {
+        final String benchmark;
+        final String paramName;
+        final long paramValue;
+        final double nsPerOp;
+        final double nsPerOpError;
+        final double opsPerSecond;
+        final long totalOps;
+
+        Result(String benchmark, String paramName, long paramValue,
+               double nsPerOp, double nsPerOpError, double opsPerSecond, long totalOps) {
+            this.benchmark = benchmark;
+            this.paramName = paramName;
+            this.paramValue = paramValue;
+            this.nsPerOp = nsPerOp;
+            this.nsPerOpError = nsPerOpError;
+            this.opsPerSecond = opsPerSecond;
+            this.totalOps = totalOps;
+        }
+    }
+
+    private static final PrintStream REAL_OUT = System.out;
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationMillis;
+    private final String filter;
+    private final ArrayList<Result> results = new ArrayList<>();
+
+    // Accumulates benchmark return values so the JIT cannot drop the work
+    private volatile long sink;
+
+    public BenchmarkHarness(int warmupIterations, int measurementIterations, long iterationMillis, String filter) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+        this.filter = filter;
+    }
+
+    // Parses --warmup N --iterations N --time-ms N --filter S from the command line
+    public static BenchmarkHarness fromArgs(String[] args) {
+        int warmup = 3;
+        int iterations = 5;
+        long timeMs = 1000;
+        String filter = null;
+        for (int i = 0; i < args.length - 1; i++) {
+            switch (args[i]) {
+                case "--warmup": warmup = Integer.parseInt(args[++i]); break;
+                case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+                case "--time-ms": timeMs = Long.parseLong(args[++i]); break;
+                case "--filter": filter = args[++i]; break;
+                default: break;
+            }
+        }
+        return new BenchmarkHarness(warmup, iterations, timeMs, filter);
+    }
+
+    public static String argValue(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    public static long[] parseSizes(String csv) {
+        String[] parts = csv.split(",");
+        long[] sizes = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Long.parseLong(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    public boolean enabled(String benchmark) {
+        return filter == null || benchmark.contains(filter);
+    }
+
+    // Silences service logging while setting up large data sets
+    public static void quiet(Runnable setup) {
+        System.setOut(DISCARD);
+        try {
+            setup.run();
+        } finally {
+            System.setOut(REAL_OUT);
+        }
+    }
+
+    public static void log(String message) {
+        REAL_OUT.println(message);
+    }
+
+    // Runs one benchmark at one parameter value; op returns a value that is consumed
+    public Result measure(String benchmark, String paramName, long paramValue, LongSupplier op) {
+        System.setOut(DISCARD);
+        double[] samples = new double[measurementIterations];
+        long totalOps = 0;
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                runIteration(op, null);
+            }
+            long[] opsHolder = new long[1];
+            for (int i = 0; i < measurementIterations; i++) {
+                samples[i] = runIteration(op, opsHolder);
+                totalOps += opsHolder[0];
+            }
+        } finally {
+            System.setOut(REAL_OUT);
+        }
+
+        double mean = 0;
+        for (double s : samples) mean += s;
+        mean /= samples.length;
+        double variance = 0;
+        for (double s : samples) variance += (s - mean) * (s - mean);
+        double stddev = samples.length > 1 ? Math.sqrt(variance / (samples.length - 1)) : 0;
+
+        Result result = new Result(benchmark, paramName, paramValue, mean, stddev, 1e9 / mean, totalOps);
+        results.add(result);
+        REAL_OUT.printf("%-36s %-14s %12d %14.1f ± %-10.1f ns/op %14.0f ops/s%n",
+            benchmark, paramName, paramValue, mean, stddev, result.opsPerSecond);
+        return result;
+    }
+
+    // Returns nanoseconds per operation for one time-boxed iteration
+    private double runIteration(LongSupplier op, long[] opsOut) {
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000L;
+        long ops = 0;
+        long acc = 0;
+        long start = System.nanoTime();
+        long now;
+        do {
+            // Check the clock every 16 calls to keep timer overhead out of cheap ops
+            for (int i = 0; i < 16; i++) {
+                acc += op.getAsLong();
+            }
+            ops += 16;
+            now = System.nanoTime();
+        } while (now < deadline);
+        sink += acc;
+        if (opsOut != null) {
+            opsOut[0] = ops;
+        }
+        return (double) (now - start) / ops;
+    }
+
+    public void printHeader() {
+        REAL_OUT.printf("%-36s %-14s %12s %29s %20s%n", "Benchmark", "Param", "Value", "Score", "Throughput");
+    }
+
+    // Writes all results as a JSON array (one object per data point)
+    public void writeJson(String path) throws IOException {
+        try (Writer writer = new FileWriter(path)) {
+            JsonWriter json = new JsonWriter(writer);
+            json.beginArray();
+            for (Result r : results) {
+                json.beginObject()
+                    .field("benchmark", r.benchmark)
+                    .field("param", r.paramName)
+                    .field("paramValue", r.paramValue)
+                    .field("mode", "avgt")
+                    .field("score", r.nsPerOp)
+                    .field("scoreError", r.nsPerOpError)
+                    .field("unit", "ns/op")
+                    .field("opsPerSecond", r.opsPerSecond)
+                    .field("totalOps", r.totalOps)
+                    .endObject();
+            }
+            json.endArray();
+            json.flush();
+        }
+        REAL_OUT.println("\n📄 Results written to " + path);
+    }
+}
@@ -0,0 +1,696 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * CoreBenchmarks - microbenchmarks for the service hot paths
+ *
+ * Build and run (from the project root, JDK 21):
+ *   javac -d out $(find . -name "*.java")
+ *   java -cp out CoreBenchmarks --sizes 1000,10000,100000 --out bench-results.json
+ *
+ * Options: --filter NAME  --warmup N  --iterations N  --time-ms N
+ * Each benchmark is run once per size; sizes mean users, transactions, vaults,
+ * guardians or plans depending on the benchmark.
+ */
+public class CoreBenchmarks {
+
+    private static final String[] CURRENCIES = {"AED", "SAR", "INR", "PHP", "PKR", "EUR"};
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkHarness harness = BenchmarkHarness.fromArgs(args);
+        long[] sizes = BenchmarkHarness.parseSizes(BenchmarkHarness.argValue(args, "--sizes", "1000,10000,100000"));
+        String out = BenchmarkHarness.argValue(args, "--out", "bench-results.json");
+
+        BlockchainService blockchain = BlockchainService.getInstance();
+        blockchain.setSimulatedDelayMillis(Long.getLong("blockchain.delayMs", 0L));
+        // Benchmarks replay millions of transfers over a few users; rolling limits would reject them
+        blockchain.getVelocityLimiter().setEnabled(Boolean.getBoolean("bench.velocity"));
+        blockchain.getFraudScreening().setEnabled(Boolean.getBoolean("bench.fraud"));
+
+        harness.printHeader();
+        for (long size : sizes) {
+            int n = (int) size;
+            if (harness.enabled("sendMoney")) benchSendMoney(harness, n);
+            if (harness.enabled("getUserByAddress")) benchUserLookup(harness, n);
+            if (harness.enabled("rejectedTransfer")) benchRejectedTransfers(harness, n);
+            if (harness.enabled("validateTransfers")) benchBatchPreflight(harness, n);
+            if (harness.enabled("fraudScreening")) benchFraudScreening(harness, n);
+            if (harness.enabled("getTransactionHistory")) benchTransactionHistory(harness, n);
+            if (harness.enabled("getUserTransactions")) benchUserTransactions(harness, n);
+            if (harness.enabled("convert")) benchConvert(harness, n);
+            if (harness.enabled("convertAll")) benchConvertAll(harness, n);
+            if (harness.enabled("QuoteService")) benchQuotes(harness, n);
+            if (harness.enabled("ConditionalOrderBook")) benchConditionalOrders(harness, n);
+            if (harness.enabled("getRateRecommendation")) benchRecommendation(harness, n);
+            if (harness.enabled("RateStatistics")) benchRateTicks(harness, n);
+            if (harness.enabled("RateTickStore")) benchTickStore(harness, n);
+            if (harness.enabled("processApproval")) benchProcessApproval(harness, n);
+            if (harness.enabled("getUserVaults")) benchUserVaults(harness, n);
+            if (harness.enabled("VaultService.totals")) benchVaultTotals(harness, n);
+            if (harness.enabled("TimingWheel")) benchTimingWheel(harness, n);
+            if (harness.enabled("calculateInterest")) benchCalculateInterest(harness, n);
+        }
+        // Sized by currency count, not by --sizes (the rebuild is cubic)
+        if (harness.enabled("CrossRateMatrix")) {
+            for (int currencies : new int[] {6, 50, 150, 300}) {
+                benchCrossRates(harness, currencies);
+            }
+        }
+        // Sized by vault count: the same voters spread over more vaults contend less
+        if (harness.enabled("FamilyVault.processApproval.concurrent")) {
+            int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+            BenchmarkHarness.log("  (processApproval.concurrent: " + threads + " threads, ns per batch of "
+                + threads * VOTES_PER_THREAD + " votes)");
+            for (int vaults : new int[] {1, 8, 64, 4096}) {
+                benchConcurrentApprovals(harness, vaults, threads);
+            }
+        }
+        harness.writeJson(out);
+    }
+
+    // ---------- BlockchainService ----------
+
+    // Registry of n users; each op is one transfer between two random users
+    static void benchSendMoney(BenchmarkHarness harness, int users) {
+        BlockchainService blockchain = BlockchainService.getInstance();
+        ArrayList<User> registered = new ArrayList<>();
+        BenchmarkHarness.quiet(() -> {
+            blockchain.reset();
+            registered.addAll(registerUsers(blockchain, users));
+        });
+        Random random = new Random(42);
+
+        harness.measure("BlockchainService.sendMoney", "users", users, () -> {
+            User sender = registered.get(random.nextInt(users));
+            User recipient = registered.get(random.nextInt(users));
+            try {
+                blockchain.sendMoney(sender, recipient.getWalletAddress(), 1.0);
+            } catch (Exception e) {
+                return 1;
+            }
+            return 0;
+        });
+        BenchmarkHarness.quiet(blockchain::reset);
+    }
+
+    // Registry of n users; each op resolves one pooled address (no parsing, no string hashing)
+    static void benchUserLookup(BenchmarkHarness harness, int users) {
+        BlockchainService blockchain = BlockchainService.getInstance();
+        ArrayList<User> registered = new ArrayList<>();
+        BenchmarkHarness.quiet(() -> {
+            blockchain.reset();
+            registered.addAll(registerUsers(blockchain, users));
+        });
+        Address[] addresses = new Address[users];
+        for (int i = 0; i < users; i++) {
+            addresses[i] = registered.get(i).getAddress();
+        }
+        Random random = new Random(13);
+
+        harness.measure("BlockchainService.getUserByAddress", "users", users,
+            () -> blockchain.getUserByAddress(addresses[random.nextInt(users)]) != null ? 1 : 0);
+        BenchmarkHarness.quiet(blockchain::reset);
+    }
+
+    // Senders with empty balances (retrying bots); each op is n rejected transfers,
+    // once through the checked-exception API and once through trySendMoney
+    static void benchRejectedTransfers(BenchmarkHarness harness, int attempts) {
+        BlockchainService blockchain = BlockchainService.getInstance();
+        ArrayList<User> registered = new ArrayList<>();
+        BenchmarkHarness.quiet(() -> {
+            blockchain.reset();
+            registered.addAll(registerUsers(blockchain, 1000));
+            for (User user : registered) {
+                user.setBalance(0.0);
+            }
+        });
+        Address recipient = registered.get(0).getAddress();
+        TransferCheck check = new TransferCheck();
+
+        harness.measure("BlockchainService.sendMoney (rejected)", "attempts", attempts, () -> {
+            long rejected = 0;
+            for (int i = 0; i < attempts; i++) {
+                try {
+                    blockchain.sendMoney(registered.get(i % 1000), recipient, 10.0);
+                } catch (Exception e) {
+                    rejected++;
+                }
+            }
+            return rejected;
+        });
+        harness.measure("BlockchainService.trySendMoney (rejected)", "attempts", attempts, () -> {
+            long rejected = 0;
+            for (int i = 0; i < attempts; i++) {
+                if (blockchain.trySendMoney(registered.get(i % 1000), recipient, 10.0, check) != TransferCheck.Reason.OK) {
+                    rejected++;
+                }
+            }
+            return rejected;
+        });
+        BenchmarkHarness.quiet(blockchain::reset);
+    }
+
+    // Batch preflight over n candidate transfers between random users
+    static void benchBatchPreflight(BenchmarkHarness harness, int batch) {
+        BlockchainService blockchain = BlockchainService.getInstance();
+        ArrayList<User> registered = new ArrayList<>();
+        BenchmarkHarness.quiet(() -> {
+            blockchain.reset();
+            registered.addAll(registerUsers(blockchain, 1000));
+        });
+        Random random = new Random(17);
+        User[] senders = new User[batch];
+        Address[] recipients = new Address[batch];
+        double[] amounts = new double[batch];
+        byte[] reasons = new byte[batch];
+        for (int i = 0; i < batch; i++) {
+            senders[i] = registered.get(random.nextInt(1000));
+            recipients[i] = registered.get(random.nextInt(1000)).getAddress();
+            amounts[i] = 1.0 + random.nextInt(1000); // some above the Basic limit
+        }
+
+        harness.measure("BlockchainService.validateTransfers", "transfers", batch,
+            () -> blockchain.validateTransfers(senders, recipients, amounts, reasons));
+        BenchmarkHarness.quiet(blockchain::reset);
+    }
+
+    // Registry of n users; transfers with screening off, then on. Reports the
+    // stage's own latency percentiles and the p99 it adds to a whole transfer.
+    static void benchFraudScreening(BenchmarkHarness harness, int users) {
+        BlockchainService blockchain = BlockchainService.getInstance();
+        FraudScreeningStage stage = blockchain.getFraudScreening();
+        boolean wasEnabled = stage.isEnabled();
+        ArrayList<User> registered = new ArrayList<>();
+        BenchmarkHarness.quiet(() -> {
+            blockchain.reset();
+            registered.addAll(registerUsers(blockchain, users));
+        });
+        Random random = new Random(23);
+        TransferCheck check = new TransferCheck();
+        double[] totalP99 = new double[2];
+
+        for (int pass = 0; pass < 2; pass++) {
+            boolean on = pass == 1;
+            stage.setEnabled(on);
+            stage.resetStats();
+            blockchain.getTransferMetrics().reset();
+            harness.measure("BlockchainService.trySendMoney (screening " + (on ? "on" : "off") + ")", "users", users, () -> {
+                // each sender pays a handful of regular contacts, as real wallets do
+                int from = random.nextInt(users);
+                User sender = registered.get(from);
+                Address recipient = registered.get((from + 1 + random.nextInt(5)) % users).getAddress();
+                return blockchain.trySendMoney(sender, recipient, 1.0 + random.nextInt(400), check).code();
+            });
+            totalP99[pass] = blockchain.getTransferMetrics().getHistogram(TransferMetrics.Stage.TOTAL)
+                .getValueAtPercentile(99.0) / 1000.0;
+        }
+
+        LatencyHistogram latency = stage.getLatency();
+        BenchmarkHarness.log(String.format(
+            "   screening stage: p50 %.2f us  p99 %.2f us  p99.9 %.2f us  (blocked %d of %d, timeouts %d)",
+            latency.getValueAtPercentile(50.0) / 1000.0, latency.getValueAtPercentile(99.0) / 1000.0,
+            latency.getValueAtPercentile(99.9) / 1000.0, stage.getBlockedCount(), stage.getScreenedCount(),
+            stage.getTimeoutCount()));
+        BenchmarkHarness.log(String.format("   committed transfer p99: %.2f us off, %.2f us on (added %.2f us)",
+            totalP99[0], totalP99[1], totalP99[1] - totalP99[0]));
+
+        stage.setEnabled(wasEnabled);
+        BenchmarkHarness.quiet(blockchain::reset);
+    }
+
+    static void benchTransactionHistory(BenchmarkHarness harness, int transactions) {
+        BlockchainService blockchain = BlockchainService.getInstance();
+        BenchmarkHarness.quiet(() -> fillHistory(blockchain, 100, transactions));
+
+        harness.measure("BlockchainService.getTransactionHistory", "transactions", transactions,
+            () -> blockchain.getTransactionHistory().size());
+        BenchmarkHarness.quiet(blockchain::reset);
+    }
+
+    static void benchUserTransactions(BenchmarkHarness harness, int transactions) {
+        BlockchainService blockchain = BlockchainService.getInstance();
+        ArrayList<User> users = new ArrayList<>();
+        BenchmarkHarness.quiet(() -> users.addAll(fillHistory(blockchain, 100, transactions)));
+        Random random = new Random(7);
+
+        harness.measure("BlockchainService.getUserTransactions", "transactions", transactions,
+            () -> blockchain.getUserTransactions(users.get(random.nextInt(users.size())).getWalletAddress()).size());
+        BenchmarkHarness.quiet(blockchain::reset);
+    }
+
+    // ---------- ExchangeRateService ----------
+
+    // Each op converts a batch of n amounts, one call per amount
+    static void benchConvert(BenchmarkHarness harness, int batch) {
+        ExchangeRateService rates = ExchangeRateService.getInstance();
+        double[] amounts = randomAmounts(batch, 11);
+
+        harness.measure("ExchangeRateService.convert", "amounts", batch, () -> {
+            double total = 0;
+            for (int i = 0; i < amounts.length; i++) {
+                total += rates.convert(amounts[i], CURRENCIES[i % CURRENCIES.length]);
+            }
+            return (long) total;
+        });
+    }
+
+    // Each op converts n amounts to PKR: one scalar call per amount vs one bulk call,
+    // plus rounding, integer minor units and a mixed-currency batch
+    static void benchConvertAll(BenchmarkHarness harness, int batch) {
+        ExchangeRateService rates = ExchangeRateService.getInstance();
+        double[] amounts = randomAmounts(batch, 17);
+        double[] out = new double[batch];
+        long[] micros = new long[batch];
+        long[] minorOut = new long[batch];
+        int[] codes = new int[batch];
+        for (int i = 0; i < batch; i++) {
+            micros[i] = (long) (amounts[i] * 1_000_000);
+            codes[i] = CurrencyRegistry.code(CURRENCIES[i % CURRENCIES.length]);
+        }
+
+        harness.measure("ExchangeRateService.convert (scalar loop, PKR)", "amounts", batch, () -> {
+            for (int i = 0; i < batch; i++) {
+                out[i] = rates.convert(amounts[i], "PKR");
+            }
+            return (long) out[batch - 1];
+        });
+        harness.measure("ExchangeRateService.convertAll (PKR)", "amounts", batch, () -> {
+            rates.convertAll(amounts, "PKR", out);
+            return (long) out[batch - 1];
+        });
+        harness.measure("ExchangeRateService.convertAll (PKR, 2dp HALF_EVEN)", "amounts", batch, () -> {
+            rates.convertAll(amounts, "PKR", out, 2, RoundingMode.HALF_EVEN);
+            return (long) out[batch - 1];
+        });
+        harness.measure("ExchangeRateService.convertAll (micro-USDT -> PKR paisa)", "amounts", batch, () -> {
+            rates.convertAll(micros, 6, "PKR", minorOut, 2, RoundingMode.HALF_EVEN);
+            return minorOut[batch - 1];
+        });
+        harness.measure("ExchangeRateService.convertAll (mixed currencies, 2dp)", "amounts", batch, () -> {
+            rates.convertAll(amounts, codes, out, 2, RoundingMode.HALF_EVEN);
+            return (long) out[batch - 1];
+        });
+    }
+
+    // A quote ring of n slots; each op issues one quote and redeems it (the ring
+    // wraps many times, so this includes overwriting expired slots)
+    static void benchQuotes(BenchmarkHarness harness, int capacity) {
+        QuoteService quotes = new QuoteService(capacity, 30_000L);
+        Address sender = Address.of("0x" + "ab".repeat(20));
+        Quote quote = new Quote();
+
+        harness.measure("QuoteService.issue + redeem", "quotes", capacity, () -> {
+            long token = quotes.issue(sender, 100.0, "PKR", quote);
+            return quotes.redeem(token, sender, quote).ordinal();
+        });
+    }
+
+    // n orders resting in one currency, out of reach of the current rate; each op
+    // places 10 orders that the next rate crosses and evaluates that rate, so the
+    // cost should stay flat as n grows (nothing is executed)
+    static void benchConditionalOrders(BenchmarkHarness harness, int resting) {
+        ConditionalOrderBook book = new ConditionalOrderBook(BlockchainService.getInstance(), task -> { });
+        User sender = new BasicUser("Bench", "0x" + "cd".repeat(20), "benchKey");
+        Address recipient = Address.of("0x" + "ef".repeat(20));
+        int code = CurrencyRegistry.code("PHP");
+        Random random = new Random(37);
+        for (int i = 0; i < resting; i++) {
+            if (i % 2 == 0) {
+                book.place(sender, recipient, 100, "PHP", 60 + random.nextInt(4000) / 100.0, Double.NaN, false);
+            } else {
+                book.place(sender, recipient, 100, "PHP", Double.NaN, 20 + random.nextInt(3000) / 100.0, false);
+            }
+        }
+        ArrayList<ConditionalOrder> fired = new ArrayList<>();
+
+        harness.measure("ConditionalOrderBook.place + trigger (10 crossed)", "orders", resting, () -> {
+            for (int i = 0; i < 10; i++) {
+                book.place(sender, recipient, 100, "PHP", 55 + i * 0.1, Double.NaN, false);
+            }
+            fired.clear();
+            return book.collectTriggered(code, 56.3, Double.NaN, 0, fired);
+        });
+    }
+
+    // n synthetic currencies, each with a USDT leg and 4 random direct corridors;
+    // each op is one full matrix rebuild, or 1000 random any-to-any lookups
+    static void benchCrossRates(BenchmarkHarness harness, int currencies) {
+        Random random = new Random(31);
+        double[] usdtRates = new double[currencies];
+        double[] legBps = new double[currencies];
+        int directs = 4 * currencies;
+        int[] pairs = new int[2 * directs];
+        double[] directBps = new double[directs];
+        for (int c = 0; c < currencies; c++) {
+            usdtRates[c] = 0.5 + random.nextDouble() * 300;
+            legBps[c] = 20 + random.nextInt(60);
+        }
+        for (int d = 0; d < directs; d++) {
+            pairs[2 * d] = d % currencies;
+            pairs[2 * d + 1] = (d % currencies + 1 + random.nextInt(currencies - 1)) % currencies;
+            directBps[d] = 5 + random.nextInt(40);
+        }
+        long[] version = {0};
+
+        harness.measure("CrossRateMatrix.build", "currencies", currencies,
+            () -> CrossRateMatrix.build(version[0]++, usdtRates, legBps, pairs, directBps, directs).size());
+        CrossRateMatrix matrix = CrossRateMatrix.build(0, usdtRates, legBps, pairs, directBps, directs);
+        int n = matrix.size();
+        int[] from = new int[1000];
+        int[] to = new int[1000];
+        for (int i = 0; i < 1000; i++) {
+            from[i] = random.nextInt(n);
+            to[i] = random.nextInt(n);
+        }
+        harness.measure("CrossRateMatrix.getRate (1000 lookups)", "currencies", currencies, () -> {
+            double total = 0;
+            for (int i = 0; i < 1000; i++) {
+                total += matrix.getRate(from[i], to[i]);
+            }
+            return (long) total;
+        });
+    }
+
+    // n ticks spread evenly over one year in a temporary tick store; each op is one
+    // range query (a random day of ticks, a random month of hourly candles, the
+    // whole year of daily candles)
+    static void benchTickStore(BenchmarkHarness harness, int ticks) {
+        Path dir;
+        try {
+            dir = Files.createTempDirectory("ticks");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long day = RateTickStore.Resolution.DAY.getNanos();
+        long start = 1_700_000_000_000L * 1_000_000L;
+        long step = 365 * day / ticks;
+        int code = CurrencyRegistry.code("PKR");
+        try (RateTickStore store = new RateTickStore(dir)) {
+            Random random = new Random(29);
+            long appendStart = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                store.append(code, start + i * step, 278.5 + random.nextGaussian());
+            }
+            long appendNanos = System.nanoTime() - appendStart;
+            long compactStart = System.nanoTime();
+            store.compact();
+            BenchmarkHarness.log(String.format("   %d ticks: append %.1f ns/tick, compaction to 1m/1h/1d %.1f ms",
+                ticks, (double) appendNanos / ticks, (System.nanoTime() - compactStart) / 1e6));
+
+            harness.measure("RateTickStore.countTicks (1 day)", "ticks", ticks, () -> {
+                long from = start + (long) (random.nextDouble() * 364) * day;
+                return store.countTicks(code, from, from + day);
+            });
+            harness.measure("RateTickStore.getCandles (1h, 30 days)", "ticks", ticks, () -> {
+                long from = start + (long) (random.nextDouble() * 335) * day;
+                return store.getCandles(code, RateTickStore.Resolution.HOUR, from, from + 30 * day).size();
+            });
+            harness.measure("RateTickStore.getCandles (1d, 1 year)", "ticks", ticks,
+                () -> store.getCandles(code, RateTickStore.Resolution.DAY, start, start + 365 * day).size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+                Files.delete(dir);
+            } catch (IOException e) {
+                BenchmarkHarness.log("   could not delete " + dir + ": " + e.getMessage());
+            }
+        }
+    }
+
+    static void benchRecommendation(BenchmarkHarness harness, int batch) {
+        ExchangeRateService rates = ExchangeRateService.getInstance();
+
+        harness.measure("ExchangeRateService.getRateRecommendation", "calls", batch, () -> {
+            long hash = 0;
+            for (int i = 0; i < batch; i++) {
+                hash += rates.getRateRecommendation(CURRENCIES[i % CURRENCIES.length]).length();
+            }
+            return hash;
+        });
+    }
+
+    // Each op records n ticks (1 ms apart, all currencies) into the rolling windows;
+    // cost per tick should stay flat as n grows
+    static void benchRateTicks(BenchmarkHarness harness, int ticks) {
+        RateStatistics statistics = new RateStatistics();
+        int currencies = CurrencyRegistry.size();
+        double[] rates = randomAmounts(ticks, 13);
+        long[] clock = {System.currentTimeMillis()};
+
+        harness.measure("RateStatistics.record", "ticks", ticks, () -> {
+            for (int i = 0; i < ticks; i++) {
+                statistics.record(i % currencies, rates[i], clock[0]++);
+            }
+            return statistics.getCount(0, 0);
+        });
+    }
+
+    // ---------- Vaults ----------
+
+    // One vault with n guardians and n open requests; each op is one vote
+    static void benchProcessApproval(BenchmarkHarness harness, int guardians) {
+        FamilyVault[] holder = new FamilyVault[1];
+        ArrayList<String> requestIds = new ArrayList<>();
+        BenchmarkHarness.quiet(() -> {
+            FamilyVault vault = new FamilyVault("Bench", "benchmark", Double.MAX_VALUE / 4, "0xCREATOR000");
+            for (int g = 0; g < guardians; g++) {
+                vault.addGuardian(new Guardian("G" + g, guardianAddress(g), "Guardian"));
+            }
+            for (int r = 0; r < guardians; r++) {
+                vault.createWithdrawalRequest("0xREQUESTER0", 1.0, "bench", "");
+            }
+            for (WithdrawalRequest req : vault.getRequests()) {
+                requestIds.add(req.getRequestId());
+            }
+            holder[0] = vault;
+        });
+        FamilyVault vault = holder[0];
+        Random random = new Random(3);
+
+        harness.measure("FamilyVault.processApproval", "guardians", guardians, () -> {
+            String requestId = requestIds.get(random.nextInt(requestIds.size()));
+            String guardian = guardianAddress(random.nextInt(guardians));
+            return vault.processApproval(requestId, guardian, random.nextBoolean()) ? 1 : 0;
+        });
+    }
+
+    private static final int VOTES_PER_THREAD = 1_000;
+
+    // Votes from every core (at least 4 threads) on n vaults with 5 guardians and
+    // 16 requests each; each op is one batch of VOTES_PER_THREAD votes per thread
+    // on random vaults. Guardians 0-1 only approve and 2-3 only reject, so no
+    // request reaches a majority of 3 and every vote takes the full path.
+    static void benchConcurrentApprovals(BenchmarkHarness harness, int vaults, int threads) {
+        FamilyVault[] all = new FamilyVault[vaults];
+        String[][] requestIds = new String[vaults][];
+        BenchmarkHarness.quiet(() -> {
+            for (int v = 0; v < vaults; v++) {
+                all[v] = new FamilyVault("Bench" + v, "benchmark", Double.MAX_VALUE / 4, userAddress(v));
+                for (int g = 0; g < 5; g++) {
+                    all[v].addGuardian(new Guardian("G" + g, guardianAddress(g), "Guardian"));
+                }
+                for (int r = 0; r < 16; r++) {
+                    all[v].createWithdrawalRequest(userAddress(v), 1.0, "bench", "");
+                }
+                requestIds[v] = all[v].getRequests().stream().map(WithdrawalRequest::getRequestId)
+                    .toArray(String[]::new);
+            }
+        });
+        String[] guardians = new String[4];
+        for (int g = 0; g < guardians.length; g++) {
+            guardians[g] = guardianAddress(g);
+        }
+        ArrayList<Callable<Long>> batch = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            batch.add(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long released = 0;
+                for (int i = 0; i < VOTES_PER_THREAD; i++) {
+                    int v = random.nextInt(vaults);
+                    String[] ids = requestIds[v];
+                    int g = random.nextInt(guardians.length);
+                    if (all[v].processApproval(ids[random.nextInt(ids.length)], guardians[g], g < 2)) {
+                        released++;
+                    }
+                }
+                return released;
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            harness.measure("FamilyVault.processApproval.concurrent", "vaults", vaults, () -> {
+                long released = 0;
+                try {
+                    for (var done : pool.invokeAll(batch)) {
+                        released += done.get();
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return released;
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // n vaults with 3 guardians each; each op looks up one participant's vaults
+    static void benchUserVaults(BenchmarkHarness harness, int vaults) {
+        VaultService vs = VaultService.getInstance();
+        BenchmarkHarness.quiet(() -> {
+            vs.reset();
+            fillVaults(vs, vaults, 3);
+        });
+        Random random = new Random(5);
+
+        harness.measure("VaultService.getUserVaults", "vaults", vaults,
+            () -> vs.getUserVaults(guardianAddress(random.nextInt(vaults))).size());
+        BenchmarkHarness.quiet(vs::reset);
+    }
+
+    // n vaults; each op reads every dashboard total, then (separately) one
+    // full verification scan for comparison
+    static void benchVaultTotals(BenchmarkHarness harness, int vaults) {
+        VaultService vs = VaultService.getInstance();
+        BenchmarkHarness.quiet(() -> {
+            vs.reset();
+            fillVaults(vs, vaults, 3);
+        });
+
+        harness.measure("VaultService.totals", "vaults", vaults,
+            () -> (long) (vs.getTotalSecuredAmount() + vs.getTotalReleasedAmount())
+                + vs.getPendingRequestCount() + vs.getVaultCount(FamilyVault.VaultStatus.ACTIVE));
+        harness.measure("VaultService.totals.verify", "vaults", vaults,
+            () -> vs.verifyTotals() == null ? 0 : 1);
+        BenchmarkHarness.quiet(vs::reset);
+    }
+
+    private static final int WHEEL_HORIZON_TICKS = 3600;
+
+    // n outstanding timeouts due uniformly over the next WHEEL_HORIZON_TICKS
+    // ticks, re-armed as they fire so n stays constant. schedule + cancel: one
+    // of each per op (queues drained every 1024 ops); tick: each op advances
+    // the wheel by one tick, firing and re-arming ~n / WHEEL_HORIZON_TICKS
+    static void benchTimingWheel(BenchmarkHarness harness, int outstanding) {
+        long[] clock = {0};
+        AtomicReference<TimingWheel<Integer>> holder = new AtomicReference<>();
+        holder.set(new TimingWheel<>("bench", 1, 0,
+            item -> holder.get().scheduleAt(item, clock[0] + WHEEL_HORIZON_TICKS)));
+        TimingWheel<Integer> wheel = holder.get();
+        Random random = new Random(21);
+        for (int i = 0; i < outstanding; i++) {
+            wheel.scheduleAt(i, 1 + random.nextInt(WHEEL_HORIZON_TICKS));
+        }
+        for (int i = 0; i <= outstanding / 100_000; i++) {
+            wheel.advance(0); // places at most 100k queued timeouts per call
+        }
+        Integer item = -1;
+        long[] ops = {0};
+
+        harness.measure("TimingWheel.schedule + cancel", "outstanding", outstanding, () -> {
+            TimingWheel.Timeout<Integer> timeout = wheel.scheduleAt(item, clock[0] + 1 + (ops[0] & 2047));
+            boolean cancelled = timeout.cancel();
+            if ((++ops[0] & 1023) == 0) {
+                wheel.advance(clock[0]);
+            }
+            return cancelled ? 1 : 0;
+        });
+        harness.measure("TimingWheel.tick", "outstanding", outstanding, () -> {
+            wheel.advance(++clock[0]);
+            return wheel.getExpiredCount();
+        });
+    }
+
+    // ---------- Savings ----------
+
+    static void benchCalculateInterest(BenchmarkHarness harness, int plans) {
+        SavingsPlan[] all = new SavingsPlan[plans];
+        ArrayList<SavingsPlan> defaults = SavingsPlansFactory.createDefaultPlans();
+        for (int i = 0; i < plans; i++) {
+            SavingsPlan template = defaults.get(i % defaults.size());
+            all[i] = new SavingsPlan(template.getPlanName(), template.getDescription(), template.getInterestRate(),
+                template.getMinimumAmount(), template.getLockingPeriod(), template.getLockingDays());
+            all[i].deposit(template.getMinimumAmount() + i % 1000);
+        }
+
+        harness.measure("SavingsPlan.calculateInterest", "plans", plans, () -> {
+            double total = 0;
+            for (SavingsPlan plan : all) {
+                total += plan.calculateInterest();
+            }
+            return (long) total;
+        });
+    }
+
+    // ---------- Data builders (shared with the load generator) ----------
+
+    static String userAddress(int i) {
+        return String.format("0x%016x", 0x1000000000000000L + i);
+    }
+
+    static String guardianAddress(int i) {
+        return String.format("0x%016x", 0x2000000000000000L + i);
+    }
+
+    static ArrayList<User> registerUsers(BlockchainService blockchain, int count) {
+        ArrayList<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = (i % 4 == 0)
+                ? new BasicUser("Basic" + i, userAddress(i), "benchKey" + i)
+                : new PremiumUser("Premium" + i, userAddress(i), "benchKey" + i);
+            user.setBalance(1_000_000_000.0);
+            blockchain.registerUser(user);
+            users.add(user);
+        }
+        return users;
+    }
+
+    static ArrayList<User> fillHistory(BlockchainService blockchain, int users, int transactions) {
+        blockchain.reset();
+        ArrayList<User> registered = registerUsers(blockchain, users);
+        Random random = new Random(1);
+        for (int i = 0; i < transactions; i++) {
+            User sender = registered.get(random.nextInt(users));
+            User recipient = registered.get(random.nextInt(users));
+            try {
+                blockchain.sendMoney(sender, recipient.getWalletAddress(), 1.0 + random.nextInt(400));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return registered;
+    }
+
+    static void fillVaults(VaultService vs, int vaults, int guardiansPerVault) {
+        for (int v = 0; v < vaults; v++) {
+            FamilyVault vault = vs.createVault("Vault" + v, "benchmark", 10_000.0, userAddress(v));
+            for (int g = 0; g < guardiansPerVault; g++) {
+                vault.addGuardian(new Guardian("G" + g, guardianAddress((v + g) % vaults), "Guardian"));
+            }
+        }
+    }
+
+    static double[] randomAmounts(int count, long seed) {
+        Random random = new Random(seed);
+        double[] amounts = new double[count];
+        for (int i = 0; i < count; i++) {
+            amounts[i] = 1.0 + random.nextDouble() * 999.0;
+        }
+        return amounts;
+    }
+}
@@ -0,0 +1,406 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LoadGenerator - open-loop macro load driver for the payment services
+ *
+ * Registers N synthetic Basic/Premium users, then issues a weighted mix of
+ * transfers (Zipf-skewed recipients), vault creations/approvals, savings deposits
+ * and rate lookups at a fixed arrival rate from many threads.
+ *
+ * Open loop: operation k is scheduled at start + k / rate whether or not earlier
+ * operations have finished, and latency is measured from that intended start.
+ * A stalled service therefore shows up as queueing delay in the percentiles
+ * instead of silently lowering the offered load (coordinated omission).
+ *
+ *   java -cp out LoadGenerator --users 1000000 --rate 20000 --duration 30 --threads 64 \
+ *        --mix transfer=60,vaultCreate=5,vaultApprove=10,deposit=10,rate=15 --zipf 1.1
+ *
+ * With --paged-store FILE --cache N, users are registered into the paged account
+ * store and every operation looks its users up through getUserByAddress, with
+ * senders Zipf-skewed like recipients; the report includes the cache hit ratio,
+ * overall and after the first fifth of the run (once the hot set is resident).
+ * Without --cache the cache is sized from the skew: the smallest number of users
+ * that an ideal cache needs to serve --hit-target (default 0.95) of Zipf lookups.
+ */
+public class LoadGenerator {
+
+    enum Op { TRANSFER, VAULT_CREATE, VAULT_APPROVE, DEPOSIT, RATE_LOOKUP }
+
+    private static final String[] CURRENCIES = {"AED", "SAR", "INR", "PHP", "PKR", "EUR"};
+
+    private final int userCount;
+    private final double ratePerSecond;
+    private final int durationSeconds;
+    private final int threads;
+    private final double[] mixCdf;
+    private final ZipfSampler zipf;
+
+    private final BlockchainService blockchain = BlockchainService.getInstance();
+    private final VaultService vaultService = VaultService.getInstance();
+    private final ExchangeRateService rates = ExchangeRateService.getInstance();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Op.values().length];
+    private final AtomicLongArray failures = new AtomicLongArray(Op.values().length);
+    private final AtomicLong completed = new AtomicLong();
+    private final List<FamilyVault> openVaults = new CopyOnWriteArrayList<>();
+    private User[] users;         // heap mode: every user held by the driver
+    private Address[] addresses;  // paged mode: users are looked up on demand
+    private String pagedStorePath;
+    private int pagedCacheCapacity;
+    private long warmHits;   // paged store counters when the warm-up fifth of the run ended
+    private long warmMisses;
+
+    public LoadGenerator(int userCount, double ratePerSecond, int durationSeconds, int threads,
+                         double[] mixWeights, double zipfExponent) {
+        this.userCount = userCount;
+        this.ratePerSecond = ratePerSecond;
+        this.durationSeconds = durationSeconds;
+        this.threads = threads;
+        this.mixCdf = toCdf(mixWeights);
+        this.zipf = new ZipfSampler(userCount, zipfExponent);
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int users = Integer.parseInt(BenchmarkHarness.argValue(args, "--users", "1000000"));
+        double rate = Double.parseDouble(BenchmarkHarness.argValue(args, "--rate", "20000"));
+        int duration = Integer.parseInt(BenchmarkHarness.argValue(args, "--duration", "30"));
+        int threads = Integer.parseInt(BenchmarkHarness.argValue(args, "--threads", "64"));
+        double zipf = Double.parseDouble(BenchmarkHarness.argValue(args, "--zipf", "1.1"));
+        double[] mix = parseMix(BenchmarkHarness.argValue(args, "--mix",
+            "transfer=60,vaultCreate=5,vaultApprove=10,deposit=10,rate=15"));
+
+        BlockchainService blockchain = BlockchainService.getInstance();
+        blockchain.setSimulatedDelayMillis(Long.getLong("blockchain.delayMs", 0L));
+        // Zipf-skewed senders hit their rolling limits within seconds; like CoreBenchmarks,
+        // measure committed transfers unless the limiter and fraud screen are asked for
+        blockchain.getVelocityLimiter().setEnabled(Boolean.getBoolean("bench.velocity"));
+        blockchain.getFraudScreening().setEnabled(Boolean.getBoolean("bench.fraud"));
+
+        LoadGenerator generator = new LoadGenerator(users, rate, duration, threads, mix, zipf);
+        String pagedStore = BenchmarkHarness.argValue(args, "--paged-store", null);
+        if (pagedStore != null) {
+            double hitTarget = Double.parseDouble(BenchmarkHarness.argValue(args, "--hit-target", "0.95"));
+            int sized = Math.max(2, generator.zipf.usersFor(hitTarget));
+            int cache = Integer.parseInt(BenchmarkHarness.argValue(args, "--cache", String.valueOf(sized)));
+            BenchmarkHarness.log(String.format("🗄️  Paged cache: %d users (ideal hit ratio %.1f%% at zipf %.2f)",
+                cache, generator.zipf.topShare(cache) * 100, zipf));
+            generator.usePagedStore(pagedStore, cache);
+        }
+        generator.setup();
+        generator.run();
+    }
+
+    // ---------- Setup ----------
+
+    void usePagedStore(String path, int cacheCapacity) {
+        this.pagedStorePath = path;
+        this.pagedCacheCapacity = cacheCapacity;
+    }
+
+    void setup() {
+        BenchmarkHarness.log("👥 Registering " + userCount + " synthetic users...");
+        long start = System.nanoTime();
+        if (pagedStorePath != null) {
+            try {
+                blockchain.enablePagedStore(pagedStorePath, pagedCacheCapacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            addresses = new Address[userCount];
+        } else {
+            users = new User[userCount];
+        }
+        BenchmarkHarness.quiet(() -> {
+            blockchain.reset();
+            vaultService.reset();
+            for (int i = 0; i < userCount; i++) {
+                String address = CoreBenchmarks.userAddress(i);
+                User user = (i % 5 == 0)
+                    ? new PremiumUser("Premium" + i, address, "loadKey")
+                    : new BasicUser("Basic" + i, address, "loadKey");
+                user.setBalance((i % 5 == 0) ? 1_000_000.0 : 50_000.0);
+                blockchain.registerUser(user);
+                if (users != null) {
+                    users[i] = user;
+                } else {
+                    addresses[i] = user.getAddress();
+                }
+            }
+        });
+        BenchmarkHarness.log(String.format("   done in %.1f s", (System.nanoTime() - start) / 1e9));
+    }
+
+    // ---------- Run ----------
+
+    void run() throws InterruptedException {
+        long totalOps = (long) (ratePerSecond * durationSeconds);
+        double intervalNanos = 1e9 / ratePerSecond;
+        long startNanos = System.nanoTime() + 100_000_000L; // give workers time to start
+        CountDownLatch done = new CountDownLatch(threads);
+
+        BenchmarkHarness.log(String.format("🚀 Offering %.0f ops/s for %d s from %d threads (%d ops)",
+            ratePerSecond, durationSeconds, threads, totalOps));
+
+        BenchmarkHarness.quiet(() -> {
+            for (int t = 0; t < threads; t++) {
+                final int worker = t;
+                Thread thread = new Thread(() -> {
+                    try {
+                        // Worker w owns operations w, w + threads, w + 2*threads, ...
+                        for (long k = worker; k < totalOps; k += threads) {
+                            long intended = startNanos + (long) (k * intervalNanos);
+                            long now = System.nanoTime();
+                            if (now < intended) {
+                                LockSupport.parkNanos(intended - now);
+                            }
+                            Op op = pickOp();
+                            boolean ok = execute(op);
+                            histograms[op.ordinal()].record(System.nanoTime() - intended);
+                            if (!ok) {
+                                failures.incrementAndGet(op.ordinal());
+                            }
+                            completed.incrementAndGet();
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }, "load-" + t);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            try {
+                PagedAccountStore store = blockchain.getPagedStore();
+                if (store != null) {
+                    long warmEnd = startNanos + (long) (durationSeconds * 1e9 / 5);
+                    while (System.nanoTime() < warmEnd && done.getCount() > 0) {
+                        LockSupport.parkNanos(Math.min(warmEnd - System.nanoTime(), 10_000_000L));
+                    }
+                    warmHits = store.getHits();
+                    warmMisses = store.getMisses();
+                }
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        report(elapsed);
+    }
+
+    private Op pickOp() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        for (int i = 0; i < mixCdf.length; i++) {
+            if (r < mixCdf[i]) {
+                return Op.values()[i];
+            }
+        }
+        return Op.RATE_LOOKUP;
+    }
+
+    // Returns false when the service rejected the operation
+    private boolean execute(Op op) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (op) {
+            case TRANSFER: {
+                User sender = user((users != null) ? random.nextInt(userCount) : zipf.sample(random));
+                User recipient = user(zipf.sample(random));
+                try {
+                    blockchain.sendMoney(sender, recipient.getWalletAddress(), transferAmount(random));
+                    return true;
+                } catch (Exception e) {
+                    return false;
+                }
+            }
+            case VAULT_CREATE: {
+                int creator = random.nextInt(userCount);
+                FamilyVault vault = vaultService.createVault("Load" + creator, "load test",
+                    1_000 + random.nextInt(50_000), user(creator).getWalletAddress());
+                for (int g = 0; g < 3; g++) {
+                    User guardian = user(random.nextInt(userCount));
+                    vault.addGuardian(new Guardian(guardian.getName(), guardian.getWalletAddress(), "Guardian"));
+                }
+                vault.createWithdrawalRequest(user(creator).getWalletAddress(), 100 + random.nextInt(500), "tuition", "");
+                openVaults.add(vault);
+                return true;
+            }
+            case VAULT_APPROVE: {
+                if (openVaults.isEmpty()) {
+                    return true;
+                }
+                FamilyVault vault = openVaults.get(random.nextInt(openVaults.size()));
+                ArrayList<WithdrawalRequest> requests = vault.getRequests();
+                ArrayList<Guardian> guardians = vault.getGuardians();
+                WithdrawalRequest request = requests.get(random.nextInt(requests.size()));
+                Guardian guardian = guardians.get(random.nextInt(guardians.size()));
+                vault.processApproval(request.getRequestId(), guardian.getWalletAddress(), random.nextInt(4) != 0);
+                return true;
+            }
+            case DEPOSIT: {
+                User held = user((users != null) ? random.nextInt(userCount) : zipf.sample(random));
+                int multiple = 1 + random.nextInt(3);
+                // Through the service: with a paged store, held may already have been evicted
+                return blockchain.updateUser(held, user -> {
+                    if (user.getSavingsPlans().isEmpty()) {
+                        user.addSavingsPlan(user.getUserSavingsPlans().get(0));
+                    }
+                    SavingsPlan plan = user.getSavingsPlans().get(0);
+                    double amount = plan.getMinimumAmount() * multiple;
+                    if (user.getBalance() < amount) {
+                        return false;
+                    }
+                    plan.deposit(amount);
+                    user.updateBalance(-amount);
+                    return true;
+                });
+            }
+            default: {
+                String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+                double converted = rates.convert(100 + random.nextInt(900), currency);
+                return rates.getRateRecommendation(currency) != null && converted > 0;
+            }
+        }
+    }
+
+    private User user(int index) {
+        return (users != null) ? users[index] : blockchain.getUserByAddress(addresses[index]);
+    }
+
+    // Mostly small remittances, a tail of large ones (some above the Basic limit)
+    private static double transferAmount(ThreadLocalRandom random) {
+        double r = random.nextDouble();
+        if (r < 0.70) return 5 + random.nextInt(95);
+        if (r < 0.95) return 100 + random.nextInt(400);
+        return 500 + random.nextInt(5_000);
+    }
+
+    // ---------- Reporting ----------
+
+    private void report(double elapsedSeconds) {
+        BenchmarkHarness.log("\n=== LOAD TEST RESULTS (latency from intended start) ===");
+        BenchmarkHarness.log(String.format("%-14s %10s %8s %12s %12s %12s %12s",
+            "Operation", "Count", "Failed", "p50 (us)", "p99 (us)", "p99.9 (us)", "max (us)"));
+        for (Op op : Op.values()) {
+            LatencyHistogram h = histograms[op.ordinal()];
+            BenchmarkHarness.log(String.format("%-14s %10d %8d %12.1f %12.1f %12.1f %12.1f",
+                op, h.getCount(), failures.get(op.ordinal()),
+                h.getValueAtPercentile(50) / 1000.0,
+                h.getValueAtPercentile(99) / 1000.0,
+                h.getValueAtPercentile(99.9) / 1000.0,
+                h.getMax() / 1000.0));
+        }
+        PagedAccountStore store = blockchain.getPagedStore();
+        if (store != null) {
+            BenchmarkHarness.log(String.format("%nPaged store: %.2f%% of lookups served from memory "
+                    + "(%d hits, %d misses, %d resident of %d users, %d record writes)",
+                store.getHitRatio() * 100, store.getHits(), store.getMisses(), store.getResidentCount(),
+                userCount, store.getRecordWrites()));
+            long hits = store.getHits() - warmHits;
+            long lookups = hits + store.getMisses() - warmMisses;
+            BenchmarkHarness.log(String.format("             %.2f%% after warm-up (ideal for this cache: %.2f%% of Zipf lookups)",
+                (lookups == 0) ? 100.0 : 100.0 * hits / lookups, zipf.topShare(store.getCapacity()) * 100));
+        }
+        BenchmarkHarness.log(String.format("%nOffered: %.0f ops/s   Achieved: %.0f ops/s   (%d ops in %.2f s)",
+            ratePerSecond, completed.get() / elapsedSeconds, completed.get(), elapsedSeconds));
+    }
+
+    // ---------- Helpers ----------
+
+    static double[] parseMix(String spec) {
+        double[] weights = new double[Op.values().length];
+        for (String part : spec.split(",")) {
+            String[] kv = part.split("=");
+            double w = Double.parseDouble(kv[1]);
+            switch (kv[0]) {
+                case "transfer": weights[Op.TRANSFER.ordinal()] = w; break;
+                case "vaultCreate": weights[Op.VAULT_CREATE.ordinal()] = w; break;
+                case "vaultApprove": weights[Op.VAULT_APPROVE.ordinal()] = w; break;
+                case "deposit": weights[Op.DEPOSIT.ordinal()] = w; break;
+                case "rate": weights[Op.RATE_LOOKUP.ordinal()] = w; break;
+                default: throw new IllegalArgumentException("Unknown operation in mix: " + kv[0]);
+            }
+        }
+        return weights;
+    }
+
+    private static double[] toCdf(double[] weights) {
+        double total = 0;
+        for (double w : weights) total += w;
+        double[] cdf = new double[weights.length];
+        double running = 0;
+        for (int i = 0; i < weights.length; i++) {
+            running += weights[i] / total;
+            cdf[i] = running;
+        }
+        return cdf;
+    }
+
+    // Zipf(s) over ranks 0..n-1 via a precomputed CDF and binary search
+    static class ZipfSampler {
+        private final double[] cdf;
+        private final int[] rankToIndex;
+
+        ZipfSampler(int n, double exponent) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cdf[i] /= sum;
+            }
+            // Shuffle which users are "popular" so hot recipients are not all adjacent
+            rankToIndex = new int[n];
+            for (int i = 0; i < n; i++) rankToIndex[i] = i;
+            Random random = new Random(99);
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = rankToIndex[i];
+                rankToIndex[i] = rankToIndex[j];
+                rankToIndex[j] = tmp;
+            }
+        }
+
+        // Share of samples that fall on the k most popular users: the hit ratio of
+        // an ideal cache holding exactly those users
+        double topShare(int k) {
+            return (k <= 0) ? 0.0 : cdf[Math.min(k, cdf.length) - 1];
+        }
+
+        // Smallest k whose topShare reaches share
+        int usersFor(double share) {
+            int lo = 0;
+            int hi = cdf.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cdf[mid] < share) lo = mid + 1; else hi = mid;
+            }
+            return lo + 1;
+        }
+
+        int sample(ThreadLocalRandom random) {
+            double u = random.nextDouble();
+            int lo = 0;
+            int hi = cdf.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cdf[mid] < u) lo = mid + 1; else hi = mid;
+            }
+            return rankToIndex[lo];
+        }
+    }
+}
@@ -0,0 +1,680 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ApiServer - Headless HTTP/JSON front end for the Blockchain Payment System
+ * Exposes BlockchainService, ExchangeRateService and VaultService using the JDK's
+ * built-in HTTP server. Every request runs on its own virtual thread, so slow
+ * clients (and the simulated blockchain delay) never exhaust a thread pool.
+ *
+ * The server listens on loopback only unless -Dapi.bind (or --bind) names
+ * another interface. Every POST and DELETE must carry
+ * "Authorization: Bearer <token>" with the operator token from -Dapi.token;
+ * without one a random token is generated and printed at startup.
+ *
+ * Endpoints:
+ *   GET  /api/rates                          all rates + last update
+ *   GET  /api/rates/{CUR}?amount=            rate, recommendation, potential savings
+ *   GET  /api/convert?amount=&to=[&from=]    conversion from USDT (or any currency, best route)
+ *   GET  /api/transactions?offset=&limit=    paginated history (newest first)
+ *   POST /api/users                          register (name, type=basic|premium[, tier]); starts at 0 USDT
+ *   GET  /api/users/{addr}                   user + balance
+ *   GET  /api/users/{addr}/transactions      paginated user history
+ *   GET  /api/users/{addr}/plans             savings plans
+ *   POST /api/quotes                         lock a rate (from, amount, currency) -> quote token
+ *   POST /api/transfers                      send money (from, to, amount | quote)
+ *   POST /api/orders                         conditional transfer (from, to, amount, currency,
+ *                                            rateAtLeast | rateAtMost | whenExcellent=true)
+ *   GET|DELETE /api/orders/{id}              resting order / cancel it
+ *   GET  /api/vaults?user=&offset=&limit=    vaults (optionally for one participant)
+ *   GET  /api/vaults/{id}                    single vault
+ *   POST /api/vaults/{id}/approvals          vote (request, guardian, approve=true|false)
+ */
+public class ApiServer {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String STATUS_ATTR = "api.status"; // set once the response headers are out
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final BlockchainService blockchain;
+    private final ExchangeRateService rates;
+    private final VaultService vaults;
+    private final byte[] token;  // operator credential for state-changing requests
+    private final boolean generatedToken;
+
+    public ApiServer(int port) throws IOException {
+        this(System.getProperty("api.bind", "127.0.0.1"), port, System.getProperty("api.token"));
+    }
+
+    // token == null generates a random one (printed by start())
+    public ApiServer(String bindAddress, int port, String token) throws IOException {
+        this.blockchain = BlockchainService.getInstance();
+        this.rates = ExchangeRateService.getInstance();
+        this.vaults = VaultService.getInstance();
+        this.generatedToken = (token == null || token.isEmpty());
+        if (generatedToken) {
+            byte[] random = new byte[24];
+            new SecureRandom().nextBytes(random);
+            token = HexFormat.of().formatHex(random);
+        }
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+
+        // Large accept backlog: many concurrent clients may connect at once
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 4096);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/api/rates", closing(this::handleRates));
+        server.createContext("/api/convert", closing(this::handleConvert));
+        server.createContext("/api/transactions", closing(this::handleTransactions));
+        server.createContext("/api/users", closing(this::handleUsers));
+        server.createContext("/api/quotes", closing(this::handleQuotes));
+        server.createContext("/api/transfers", closing(this::handleTransfers));
+        server.createContext("/api/orders", closing(this::handleOrders));
+        server.createContext("/api/vaults", closing(this::handleVaults));
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("🌐 API server listening on " + server.getAddress().getHostString() + ":"
+            + server.getAddress().getPort());
+        if (generatedToken) {
+            System.out.println("🔑 API token (set -Dapi.token to choose one): " + new String(token, StandardCharsets.UTF_8));
+        }
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    // ---------- Handlers ----------
+
+    // Closes the exchange only after the handler's own catch blocks have answered.
+    // A handler that throws leaves the exchange open and the server drops the
+    // connection, so a streamed body cut short never ends like a complete response.
+    private static HttpHandler closing(HttpHandler handler) {
+        return ex -> {
+            handler.handle(ex);
+            ex.close();
+        };
+    }
+
+    private void handleRates(HttpExchange ex) throws IOException {
+        try {
+            if (!requireMethod(ex, "GET")) return;
+            String[] parts = pathParts(ex, "/api/rates");
+            Map<String, String> query = parseQuery(ex.getRequestURI().getRawQuery());
+
+            if (parts.length == 0) {
+                RateSnapshot snapshot = rates.getSnapshot(); // one consistent table
+                JsonWriter json = beginJson(ex, 200);
+                json.beginObject()
+                    .field("lastUpdate", snapshot.getTimestamp().toString())
+                    .field("version", snapshot.getVersion())
+                    .field("staleCurrencies", rates.getStaleCurrencyCount());
+                json.name("rates").beginObject();
+                for (int code = 0; code < snapshot.size(); code++) {
+                    if (snapshot.hasRate(code)) {
+                        json.field(CurrencyRegistry.name(code), snapshot.getRate(code));
+                    }
+                }
+                json.endObject().endObject();
+                endJson(ex, json);
+            } else {
+                String currency = parts[0].toUpperCase();
+                double amount = parseDouble(query.get("amount"), 100.0);
+                // Lookups that reject an unknown currency run before the response starts
+                double rate = rates.getRate(currency);
+                String recommendation = rates.getRateRecommendation(currency);
+                double savings = rates.getPotentialSavings(currency, amount);
+                RateStatistics stats = rates.getStatistics();
+                int code = CurrencyRegistry.code(currency);
+                JsonWriter json = beginJson(ex, 200);
+                json.beginObject()
+                    .field("currency", currency)
+                    .field("rate", rate)
+                    .field("recommendation", recommendation)
+                    .field("amount", amount)
+                    .field("potentialSavings", savings);
+                json.name("statistics").beginObject();
+                for (int w = 0; w < stats.getWindowCount(); w++) {
+                    json.name(stats.getWindowLabel(w)).beginObject()
+                        .field("ticks", stats.getCount(code, w))
+                        .field("mean", stats.getMean(code, w))
+                        .field("ewma", stats.getEwma(code, w))
+                        .field("min", stats.getMin(code, w))
+                        .field("max", stats.getMax(code, w))
+                        .field("volatilityPercent", stats.getVolatilityPercent(code, w))
+                        .endObject();
+                }
+                json.endObject().endObject();
+                endJson(ex, json);
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        }
+    }
+
+    private void handleConvert(HttpExchange ex) throws IOException {
+        try {
+            if (!requireMethod(ex, "GET")) return;
+            Map<String, String> query = parseQuery(ex.getRequestURI().getRawQuery());
+            double amount = parseDouble(required(query, "amount"), 0);
+            String to = required(query, "to").toUpperCase();
+            String from = query.getOrDefault("from", "USDT").toUpperCase();
+
+            if (from.equals("USDT")) {
+                Conversion conversion = rates.convert(amount, to, new Conversion());
+                JsonWriter json = beginJson(ex, 200);
+                json.beginObject()
+                    .field("amountUSDT", amount)
+                    .field("currency", to)
+                    .field("rate", conversion.getRate())
+                    .field("converted", conversion.getConverted())
+                    .field("rateVersion", conversion.getSnapshotVersion())
+                    .field("stale", conversion.isStale())
+                    .endObject();
+                endJson(ex, json);
+                return;
+            }
+            CrossRateMatrix matrix = rates.getCrossRates();
+            Conversion conversion = rates.convert(amount, from, to, new Conversion());
+            int i = matrix.index(from);
+            int j = matrix.index(to);
+            double midRate = matrix.getMidRate(i, j);
+            double spreadBps = matrix.getSpreadBps(i, j);
+            String route = String.join(">", matrix.getRoute(i, j));
+            JsonWriter json = beginJson(ex, 200);
+            json.beginObject()
+                .field("amount", amount)
+                .field("from", from)
+                .field("currency", to)
+                .field("rate", conversion.getRate())
+                .field("midRate", midRate)
+                .field("spreadBps", spreadBps)
+                .field("converted", conversion.getConverted())
+                .field("route", route)
+                .field("rateVersion", conversion.getSnapshotVersion())
+                .field("stale", conversion.isStale())
+                .endObject();
+            endJson(ex, json);
+        } catch (StaleRateException e) {
+            sendError(ex, 503, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        }
+    }
+
+    private void handleTransactions(HttpExchange ex) throws IOException {
+        try {
+            if (!requireMethod(ex, "GET")) return;
+            Map<String, String> query = parseQuery(ex.getRequestURI().getRawQuery());
+            int offset = parseOffset(query);
+            int limit = parseLimit(query);
+            writeTransactionPage(ex, blockchain.getTransactionHistory(offset, limit),
+                blockchain.getTransactionCount(), offset, limit);
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        }
+    }
+
+    private void handleUsers(HttpExchange ex) throws IOException {
+        try {
+            String[] parts = pathParts(ex, "/api/users");
+            String method = ex.getRequestMethod();
+
+            if (parts.length == 0) {
+                if (!requireMethod(ex, "POST")) return;
+                registerUser(ex);
+                return;
+            }
+            if (!requireMethod(ex, "GET")) return;
+
+            User user = blockchain.getUserByAddress(parts[0]);
+            if (user == null) {
+                sendError(ex, 404, "Unknown wallet address: " + parts[0]);
+                return;
+            }
+
+            if (parts.length == 1) {
+                JsonWriter json = beginJson(ex, 200);
+                writeUser(json, user);
+                endJson(ex, json);
+            } else if (parts[1].equals("transactions")) {
+                Map<String, String> query = parseQuery(ex.getRequestURI().getRawQuery());
+                int offset = parseOffset(query);
+                int limit = parseLimit(query);
+                ArrayList<Transaction> page = blockchain.getUserTransactions(user.getWalletAddress(), offset, limit);
+                writeTransactionPage(ex, page, -1, offset, limit);
+            } else if (parts[1].equals("plans")) {
+                JsonWriter json = beginJson(ex, 200);
+                json.beginArray();
+                for (SavingsPlan plan : user.getSavingsPlans()) {
+                    plan.writeJson(json);
+                }
+                json.endArray();
+                endJson(ex, json);
+            } else {
+                sendError(ex, 404, "Not found: " + method + " " + ex.getRequestURI().getPath());
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        }
+    }
+
+    private void registerUser(HttpExchange ex) throws IOException {
+        Map<String, String> form = parseForm(ex);
+        String name = required(form, "name");
+        String type = form.getOrDefault("type", "basic");
+
+        String walletAddress = blockchain.newWalletAddress();
+        User user = type.equalsIgnoreCase("premium")
+            ? new PremiumUser(name, walletAddress, "encryptedKey_" + name)
+            : new BasicUser(name, walletAddress, "encryptedKey_" + name);
+        if (form.containsKey("tier")) {
+            user.setTier(form.get("tier")); // any tier in the fee config; unknown -> 400
+        }
+        blockchain.registerUser(user); // funds arrive by transfer, never from the client; duplicates -> 400
+
+        JsonWriter json = beginJson(ex, 201);
+        writeUser(json, user);
+        endJson(ex, json);
+    }
+
+    private void handleQuotes(HttpExchange ex) throws IOException {
+        try {
+            if (!requireMethod(ex, "POST")) return;
+            Map<String, String> form = parseForm(ex);
+            String from = required(form, "from");
+            double amount = parseDouble(required(form, "amount"), 0);
+            String currency = required(form, "currency").toUpperCase();
+
+            User sender = blockchain.getUserByAddress(from);
+            if (sender == null) {
+                sendError(ex, 404, "Unknown sender: " + from);
+                return;
+            }
+            Quote quote = new Quote();
+            QuoteService.getInstance().issue(sender.getAddress(), amount, currency, quote);
+            JsonWriter json = beginJson(ex, 200);
+            json.beginObject()
+                .field("quote", Long.toHexString(quote.getToken()))
+                .field("amountUSDT", quote.getAmountUSDT())
+                .field("currency", quote.getCurrency())
+                .field("rate", quote.getRate())
+                .field("converted", quote.getConverted())
+                .field("rateVersion", quote.getSnapshotVersion())
+                .field("expiresAt", quote.getExpiresAtMillis())
+                .endObject();
+            endJson(ex, json);
+        } catch (StaleRateException | QuoteCapacityException e) {
+            sendError(ex, 503, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        }
+    }
+
+    private void handleOrders(HttpExchange ex) throws IOException {
+        try {
+            String[] parts = pathParts(ex, "/api/orders");
+            ConditionalOrderBook book = ConditionalOrderBook.getInstance();
+            if (parts.length == 0) {
+                if (!requireMethod(ex, "POST")) return;
+                Map<String, String> form = parseForm(ex);
+                String from = required(form, "from");
+                User sender = blockchain.getUserByAddress(from);
+                if (sender == null) {
+                    sendError(ex, 404, "Unknown sender: " + from);
+                    return;
+                }
+                ConditionalOrder order = book.place(sender, blockchain.resolveAddress(required(form, "to")),
+                    parseDouble(required(form, "amount"), 0), required(form, "currency").toUpperCase(),
+                    parseDouble(form.get("rateAtLeast"), Double.NaN), parseDouble(form.get("rateAtMost"), Double.NaN),
+                    Boolean.parseBoolean(form.get("whenExcellent")));
+                JsonWriter json = beginJson(ex, 201);
+                order.writeJson(json);
+                endJson(ex, json);
+                return;
+            }
+
+            long id = (long) parseDouble(parts[0], -1);
+            ConditionalOrder order = book.getOrder(id);
+            if (order == null || parts.length > 1) {
+                sendError(ex, 404, "No resting order " + parts[0] + " (unknown, fired or cancelled)");
+                return;
+            }
+            if (ex.getRequestMethod().equalsIgnoreCase("DELETE")) {
+                if (!requireToken(ex)) return;
+                if (!book.cancel(id)) {
+                    sendError(ex, 409, "Order " + id + " has already fired");
+                    return;
+                }
+            } else if (!requireMethod(ex, "GET")) {
+                return;
+            }
+            JsonWriter json = beginJson(ex, 200);
+            order.writeJson(json);
+            endJson(ex, json);
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        }
+    }
+
+    private void handleTransfers(HttpExchange ex) throws IOException {
+        try {
+            if (!requireMethod(ex, "POST")) return;
+            Map<String, String> form = parseForm(ex);
+            String from = required(form, "from");
+            String to = required(form, "to");
+            String quoteToken = form.get("quote");
+            double amount = (quoteToken == null) ? parseDouble(required(form, "amount"), 0) : 0;
+
+            User sender = blockchain.getUserByAddress(from);
+            if (sender == null) {
+                sendError(ex, 404, "Unknown sender: " + from);
+                return;
+            }
+
+            // Exception-free path: rejected requests (e.g. retrying bots) cost no stack traces
+            Address recipient = blockchain.resolveAddress(to);
+            TransferCheck check = new TransferCheck();
+            TransferCheck.Reason reason = (quoteToken == null)
+                ? blockchain.trySendMoney(sender, recipient, amount, check)
+                : blockchain.trySendMoneyAtQuote(sender, recipient, parseToken(quoteToken), check);
+            switch (reason) {
+                case OK:
+                    break;
+                case QUOTE_EXPIRED:
+                    sendError(ex, 410, check.getMessage(to));
+                    return;
+                case QUOTE_INVALID:
+                    sendError(ex, 409, check.getMessage(to));
+                    return;
+                case INVALID_ADDRESS:
+                case INVALID_AMOUNT:
+                    sendError(ex, 400, check.getMessage(to));
+                    return;
+                case FRAUD_SUSPECTED:
+                    sendError(ex, 403, check.getMessage(to));
+                    return;
+                case INTERRUPTED:
+                    sendError(ex, 503, check.getMessage(to));
+                    return;
+                default:
+                    sendError(ex, 422, check.getMessage(to));
+                    return;
+            }
+
+            JsonWriter json = beginJson(ex, 200);
+            json.beginObject()
+                .field("status", "SUCCESS")
+                .field("senderBalance", sender.getBalance());
+            if (quoteToken != null) {
+                Quote quote = check.getQuote();
+                json.field("amountUSDT", quote.getAmountUSDT())
+                    .field("currency", quote.getCurrency())
+                    .field("rate", quote.getRate())
+                    .field("converted", quote.getConverted())
+                    .field("rateVersion", quote.getSnapshotVersion());
+            }
+            json.endObject();
+            endJson(ex, json);
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        }
+    }
+
+    private void handleVaults(HttpExchange ex) throws IOException {
+        try {
+            String[] parts = pathParts(ex, "/api/vaults");
+            Map<String, String> query = parseQuery(ex.getRequestURI().getRawQuery());
+
+            if (parts.length == 0) {
+                if (!requireMethod(ex, "GET")) return;
+                String user = query.get("user");
+                int offset = parseOffset(query);
+                int limit = parseLimit(query);
+                int total;
+                ArrayList<FamilyVault> page;
+                if (user != null) {
+                    ArrayList<FamilyVault> mine = vaults.getUserVaults(user); // O(k) in the user's own vaults
+                    total = mine.size();
+                    page = new ArrayList<>(mine.subList(Math.min(offset, total), (int) Math.min(total, (long) offset + limit)));
+                } else {
+                    total = vaults.getTotalVaults();
+                    page = vaults.getVaults(offset, limit);
+                }
+
+                JsonWriter json = beginJson(ex, 200);
+                json.beginObject()
+                    .field("total", total)
+                    .field("offset", offset)
+                    .field("limit", limit);
+                json.name("items").beginArray();
+                for (FamilyVault vault : page) {
+                    vault.writeJson(json);
+                }
+                json.endArray().endObject();
+                endJson(ex, json);
+                return;
+            }
+
+            FamilyVault vault = vaults.getVault(parts[0]);
+            if (vault == null) {
+                sendError(ex, 404, "Unknown vault: " + parts[0]);
+                return;
+            }
+
+            if (parts.length == 1) {
+                if (!requireMethod(ex, "GET")) return;
+                JsonWriter json = beginJson(ex, 200);
+                vault.writeJson(json);
+                endJson(ex, json);
+            } else if (parts[1].equals("approvals")) {
+                if (!requireMethod(ex, "POST")) return;
+                Map<String, String> form = parseForm(ex);
+                boolean approve = Boolean.parseBoolean(form.getOrDefault("approve", "true"));
+                boolean released = vault.processApproval(required(form, "request"), required(form, "guardian"), approve);
+
+                JsonWriter json = beginJson(ex, 200);
+                json.beginObject()
+                    .field("released", released)
+                    .field("remainingBalance", vault.getRemainingBalance())
+                    .endObject();
+                endJson(ex, json);
+            } else {
+                sendError(ex, 404, "Not found: " + ex.getRequestURI().getPath());
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        }
+    }
+
+    // ---------- JSON helpers ----------
+
+    private void writeUser(JsonWriter json, User user) throws IOException {
+        json.beginObject()
+            .field("name", user.getName())
+            .field("walletAddress", user.getWalletAddress())
+            .field("type", (user instanceof PremiumUser) ? "PREMIUM" : "BASIC")
+            .field("balance", user.getBalance())
+            .field("transactionLimit", user.getTransactionLimit())
+            .field("totalSavings", user.getTotalSavings())
+            .endObject();
+    }
+
+    private void writeTransactionPage(HttpExchange ex, ArrayList<Transaction> page, int total,
+                                      int offset, int limit) throws IOException {
+        JsonWriter json = beginJson(ex, 200);
+        json.beginObject();
+        if (total >= 0) {
+            json.field("total", total);
+        }
+        json.field("offset", offset)
+            .field("limit", limit)
+            .field("hasMore", page.size() == limit);
+        json.name("items").beginArray();
+        for (Transaction tx : page) {
+            tx.writeJson(json);
+        }
+        json.endArray().endObject();
+        endJson(ex, json);
+    }
+
+    // Sends the headers (chunked) and streams the body straight to the client, so
+    // a large page is never held in memory. Handlers do everything that can fail
+    // before calling this; a failure after it drops the connection (see sendError).
+    private JsonWriter beginJson(HttpExchange ex, int status) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, 0);
+        ex.setAttribute(STATUS_ATTR, status);
+        return new JsonWriter(new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8)));
+    }
+
+    private void endJson(HttpExchange ex, JsonWriter json) throws IOException {
+        json.flush();
+    }
+
+    private void sendError(HttpExchange ex, int status, String message) throws IOException {
+        if (ex.getAttribute(STATUS_ATTR) != null) {
+            // Too late for a status: part of a body is already on the wire
+            throw new IOException("Response already started, dropping connection: " + message);
+        }
+        JsonWriter json = beginJson(ex, status);
+        json.beginObject().field("error", message).endObject();
+        endJson(ex, json);
+    }
+
+    // ---------- Request parsing ----------
+
+    // Also enforces the operator token on state-changing methods
+    private boolean requireMethod(HttpExchange ex, String method) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase(method)) {
+            ex.getResponseHeaders().set("Allow", method);
+            sendError(ex, 405, "Method not allowed: " + ex.getRequestMethod());
+            return false;
+        }
+        return method.equals("GET") || requireToken(ex);
+    }
+
+    private boolean requireToken(HttpExchange ex) throws IOException {
+        String header = ex.getRequestHeaders().getFirst("Authorization");
+        byte[] presented = (header != null && header.startsWith("Bearer "))
+            ? header.substring(7).trim().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (!MessageDigest.isEqual(presented, token)) { // constant time
+            ex.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            sendError(ex, 401, "Missing or invalid API token");
+            return false;
+        }
+        return true;
+    }
+
+    private String[] pathParts(HttpExchange ex, String prefix) {
+        String rest = ex.getRequestURI().getPath().substring(prefix.length());
+        if (rest.startsWith("/")) rest = rest.substring(1);
+        if (rest.endsWith("/")) rest = rest.substring(0, rest.length() - 1);
+        return rest.isEmpty() ? new String[0] : rest.split("/");
+    }
+
+    private Map<String, String> parseForm(HttpExchange ex) throws IOException {
+        // Accept parameters in the query string as well as a form-encoded body
+        Map<String, String> params = parseQuery(ex.getRequestURI().getRawQuery());
+        try (InputStream in = ex.getRequestBody()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            params.putAll(parseQuery(body));
+        }
+        return params;
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            String key = URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    // Quote tokens travel as hex (a JSON number would lose bits in JavaScript)
+    private static long parseToken(String value) {
+        try {
+            return Long.parseUnsignedLong(value, 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid quote token: " + value);
+        }
+    }
+
+    private static double parseDouble(String value, double defaultValue) {
+        if (value == null) return defaultValue;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + value);
+        }
+    }
+
+    private static int parseOffset(Map<String, String> query) {
+        return Math.max(0, (int) parseDouble(query.get("offset"), 0));
+    }
+
+    private static int parseLimit(Map<String, String> query) {
+        int limit = (int) parseDouble(query.get("limit"), DEFAULT_PAGE_SIZE);
+        return Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+    }
+
+    // Seed the same demo accounts as the GUI and console front ends
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        String bind = System.getProperty("api.bind", "127.0.0.1");
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--bind")) {
+                bind = args[i + 1];
+            }
+        }
+
+        BlockchainService blockchain = BlockchainService.getInstance();
+        blockchain.addObserver(new EmailNotifier());
+
+        User user1 = new BasicUser("Ahmed", "0x1234567890abcdef", "encryptedKey1");
+        User user2 = new PremiumUser("Fatima", "0xfedcba0987654321", "encryptedKey2");
+        user1.setBalance(600.0);
+        user2.setBalance(5000.0);
+        blockchain.registerUser(user1);
+        blockchain.registerUser(user2);
+
+        new ApiServer(bind, port, System.getProperty("api.token")).start();
+    }
+}
@@ -8,6 +8,7 @@ public class BlockchainPaymentApp {
         
         // Get Singleton instance
         BlockchainService blockchain = BlockchainService.getInstance();
+        JmxMetrics.registerAll();
         
         // Add observer (Observer pattern)
         EmailNotifier emailNotifier = new EmailNotifier();
@@ -113,7 +114,8 @@ public class BlockchainPaymentApp {
             
             blockchain.sendMoney(sender, recipient, amount);
             
-        } catch (InsufficientBalanceException | InvalidAddressException | TransactionLimitExceededException e) {
+        } catch (InsufficientBalanceException | InvalidAddressException | TransactionLimitExceededException
+                 | FraudSuspectedException e) {
             System.out.println("❌ Transaction failed: " + e.getMessage());
         }
     }
@@ -1,15 +1,32 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 // Singleton pattern - only ONE instance of BlockchainService
 public class BlockchainService {
     
-    // Step 1: Private static instance
-    private static BlockchainService instance = null;
+    // Step 1: Private static instance (volatile for safe double-checked locking)
+    private static volatile BlockchainService instance = null;
     
     // Step 2: Private constructor
     private BlockchainService() {
+        String snapshot = System.getProperty("velocity.snapshot");
+        if (snapshot != null) {
+            velocityLimiter.enablePersistence(Path.of(snapshot), 60);
+        }
+        long evictMinutes = Long.getLong("velocity.evictMinutes", 60L);
+        if (evictMinutes > 0) {
+            velocityLimiter.enableEviction(evictMinutes);
+        }
+        fraudScreening.addScreen(new PatternFraudScreen());
         System.out.println("✅ BlockchainService initialized (Singleton)");
     }
     
@@ -25,24 +42,171 @@ public class BlockchainService {
         return instance;
     }
     
-    // ArrayList to store transaction history
+    // ArrayList to store transaction history (guarded by historyLock)
     private ArrayList<Transaction> transactionHistory = new ArrayList<>();
+    private final Object historyLock = new Object();
+    private boolean historySorted = true;
+    
+    // Per-wallet history (sender and recipient), appended with the global history
+    // so a user's page never scans it or waits on historyLock
+    private final ConcurrentHashMap<Address, UserHistory> userHistories = new ConcurrentHashMap<>();
+    
+    // Observers (Observer pattern) - copy-on-write so notification never needs a lock
+    private List<TransactionObserver> observers = new CopyOnWriteArrayList<>();
+    
+    // All registered accounts by wallet address: balances and tiers in
+    // primitive columns; registered User objects are views over their slot
+    private volatile AccountTable accounts = new AccountTable();
+    
+    // Optional page file for User objects; null keeps every registered user on heap
+    private volatile PagedAccountStore pagedStore;
+    
+    // Rolling 24 h / 30 d per-wallet spending limits (-Dvelocity.snapshot=FILE persists them,
+    // idle wallets are dropped every -Dvelocity.evictMinutes, default 60)
+    private final VelocityLimiter velocityLimiter = new VelocityLimiter();
+    
+    // Pluggable pre-settlement fraud screening (built-in pattern rules registered by default)
+    private final FraudScreeningStage fraudScreening = new FraudScreeningStage();
+    
+    // Per-stage sendMoney timings (lock-free histograms)
+    private final TransferMetrics transferMetrics = new TransferMetrics();
     
-    // ArrayList of observers (Observer pattern)
-    private ArrayList<TransactionObserver> observers = new ArrayList<>();
+    // Live ledger counters (striped adders: cheap enough to leave on, exported over JMX)
+    private final LongAdder committedTransfers = new LongAdder();
+    private final LongAdder insufficientBalanceFailures = new LongAdder();
+    private final LongAdder invalidAddressFailures = new LongAdder();
+    private final LongAdder limitExceededFailures = new LongAdder();
+    private final LongAdder fraudFailures = new LongAdder();
+    private final RateMeter transferRate = new RateMeter();
     
-    // HashMap to store all users by wallet address 
-    private HashMap<String, User> userRegistry = new HashMap<>();
+    // Simulated blockchain confirmation delay (override with -Dblockchain.delayMs=0 for benchmarks)
+    private volatile long simulatedDelayMillis = Long.getLong("blockchain.delayMs", 1000L);
     
-    // Register a user in the system (simple registration)
+    public long getSimulatedDelayMillis() {
+        return simulatedDelayMillis;
+    }
+    
+    public void setSimulatedDelayMillis(long delayMillis) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("Delay cannot be negative: " + delayMillis);
+        }
+        this.simulatedDelayMillis = delayMillis;
+    }
+    
+    // Drop all users and history (used by benchmarks and load drivers between runs)
+    void reset() {
+        synchronized (historyLock) {
+            transactionHistory.clear();
+            historySorted = true;
+            userHistories.clear();
+        }
+        accounts = new AccountTable(); // users bound to the old table keep their own balances
+        PagedAccountStore store = pagedStore;
+        if (store != null) {
+            store.clear();
+        }
+        transferMetrics.reset();
+        velocityLimiter.clear();
+        fraudScreening.clear();
+    }
+    
+    // Register a user in the system (simple registration). An address that is
+    // already registered is rejected rather than replacing that account.
     public void registerUser(User user) {
-        userRegistry.put(user.getWalletAddress(), user);
+        AccountTable table = accounts;
+        PagedAccountStore store = pagedStore;
+        if (store != null) {
+            store.checkFits(user); // before the slot is claimed
+        }
+        int slot = table.putIfAbsent(user.getAddress(), (store == null) ? user : null,
+            user.getBalance(), user.getTierCode());
+        if (slot < 0) {
+            throw new IllegalArgumentException("Wallet address already registered: " + user.getWalletAddress());
+        }
+        user.bindAccount(table, slot);
+        if (store != null) {
+            store.put(user);
+        }
         System.out.println("✅ User registered: " + user.getName());
     }
     
     // Get user by wallet address 
     public User getUserByAddress(String walletAddress) {
-        return userRegistry.get(walletAddress);
+        return getUserByAddress(Address.parse(walletAddress));
+    }
+    
+    // Registered wallets resolve to their canonical instance; anything else is
+    // parsed without pooling, so client-supplied recipients never grow Address's pool
+    public Address resolveAddress(String walletAddress) {
+        Address parsed = Address.parse(walletAddress);
+        AccountTable table = accounts;
+        int slot = table.find(parsed);
+        return (slot < 0) ? parsed : table.getAddress(slot);
+    }
+    
+    public User getUserByAddress(Address walletAddress) {
+        AccountTable table = accounts;
+        int slot = table.find(walletAddress);
+        return (slot < 0) ? null : userAt(table, slot);
+    }
+    
+    // Heap-resident user, or faulted in from the paged store
+    private User userAt(AccountTable table, int slot) {
+        User user = table.getUser(slot);
+        PagedAccountStore store = pagedStore;
+        if (user == null && store != null) {
+            user = store.get(table, slot);
+        }
+        return user;
+    }
+    
+    // Keep only hot User objects on heap: users registered from now on are written
+    // to a page file and faulted in through a bounded cache of cacheCapacity users.
+    // Users registered earlier stay on heap.
+    public void enablePagedStore(String path, int cacheCapacity) throws IOException {
+        PagedAccountStore previous = pagedStore;
+        pagedStore = new PagedAccountStore(Path.of(path), cacheCapacity);
+        if (previous != null) {
+            previous.close();
+        }
+        System.out.println("✅ Paged account store enabled: " + path + " (cache " + cacheCapacity + " users)");
+    }
+    
+    public PagedAccountStore getPagedStore() {
+        return pagedStore;
+    }
+    
+    // Change a user's savings plans (or other non-balance state) and return the
+    // change's result. A paged user is changed through the store, on its resident
+    // copy, so the change survives even if the caller's reference was evicted.
+    public <T> T updateUser(User user, Function<User, T> change) {
+        AccountTable table = accounts;
+        PagedAccountStore store = pagedStore;
+        int slot = user.getAccountSlot();
+        if (store != null && user.getAccountTable() == table && table.getUser(slot) == null) {
+            return store.update(table, slot, change);
+        }
+        synchronized (user) {
+            return change.apply(user);
+        }
+    }
+    
+    // Fresh wallet address for a new account: "0x" + 40 random hex digits (a
+    // 20-byte address, like the chain's) that no registered account uses yet
+    public String newWalletAddress() {
+        byte[] bytes = new byte[20];
+        while (true) {
+            WalletRandom.RANDOM.nextBytes(bytes);
+            String address = "0x" + HexFormat.of().formatHex(bytes);
+            if (accounts.find(Address.parse(address)) < 0) {
+                return address;
+            }
+        }
+    }
+    
+    // Holder idiom: the SecureRandom is seeded on first use, not at startup
+    private static class WalletRandom {
+        static final SecureRandom RANDOM = new SecureRandom();
     }
     
     // Register observer
@@ -65,82 +229,410 @@ public class BlockchainService {
     
     // Send money method with exception handling 
     public void sendMoney(User sender, String recipientAddress, double amount) 
-            throws InsufficientBalanceException, InvalidAddressException, TransactionLimitExceededException {
+            throws InsufficientBalanceException, InvalidAddressException, TransactionLimitExceededException,
+                   FraudSuspectedException {
+        if (recipientAddress == null) {
+            invalidAddressFailures.increment();
+            throw new InvalidAddressException("Invalid recipient address: null");
+        }
+        sendMoney(sender, resolveAddress(recipientAddress), amount);
+    }
+    
+    // Address-typed variant for callers that already hold a parsed address.
+    // Checked-exception wrapper over trySendMoney.
+    public void sendMoney(User sender, Address recipientAddress, double amount) 
+            throws InsufficientBalanceException, InvalidAddressException, TransactionLimitExceededException,
+                   FraudSuspectedException {
+        TransferCheck check = new TransferCheck();
+        trySendMoney(sender, recipientAddress, amount, check);
+        check.throwIfRejected(recipientAddress);
+    }
+    
+    // Transfer at a rate locked earlier with QuoteService.issue (checked-exception
+    // wrapper over trySendMoneyAtQuote)
+    public void sendMoneyAtQuote(User sender, Address recipientAddress, long quoteToken)
+            throws InsufficientBalanceException, InvalidAddressException, TransactionLimitExceededException,
+                   FraudSuspectedException, InvalidQuoteException {
+        TransferCheck check = new TransferCheck();
+        trySendMoneyAtQuote(sender, recipientAddress, quoteToken, check);
+        check.throwIfQuoteRejected(recipientAddress);
+    }
+    
+    // Sends the quoted USDT amount; result.getQuote() then holds the locked rate
+    // the recipient is paid out at. The quote is spent only if the transfer goes
+    // through, so a rejected transfer can be retried with the same token.
+    public TransferCheck.Reason trySendMoneyAtQuote(User sender, Address recipientAddress, long quoteToken,
+                                                    TransferCheck result) {
+        QuoteService quotes = QuoteService.getInstance();
+        Quote quote = result.quoteHolder();
+        QuoteService.Status status = quotes.redeem(quoteToken, sender.getAddress(), quote);
+        if (status != QuoteService.Status.OK) {
+            result.setQuoteRejected(status);
+            return result.getReason();
+        }
+        TransferCheck.Reason reason = trySendMoney(sender, recipientAddress, quote.getAmountUSDT(),
+            quote.getCurrency(), result);
+        if (reason != TransferCheck.Reason.OK) {
+            quotes.release(quoteToken);
+        } else {
+            System.out.println("🔒 Paid out at quoted rate: " + quote.getConverted() + " " + quote.getCurrency()
+                + " @ " + quote.getRate() + " (rates v" + quote.getSnapshotVersion() + ")");
+        }
+        return reason;
+    }
+    
+    // Preflight only: runs the sendMoney checks against current balances and fills
+    // result (reason, required and available amounts). Allocates nothing, throws nothing.
+    public TransferCheck.Reason validateTransfer(User sender, Address recipientAddress, double amount,
+                                                 TransferCheck result) {
+        return validateTransfer(sender, recipientAddress, amount, null, result);
+    }
+    
+    // currency is what the recipient is paid out in; it picks the fee corridor
+    // (null = the '*' rules)
+    public TransferCheck.Reason validateTransfer(User sender, Address recipientAddress, double amount,
+                                                 String currency, TransferCheck result) {
+        // Validation 0: a negative amount would pass the balance check and pull money from the recipient
+        if (!(amount > 0) || Double.isInfinite(amount)) {
+            result.set(TransferCheck.Reason.INVALID_AMOUNT, amount, 0, 0, 0, 0);
+            return TransferCheck.Reason.INVALID_AMOUNT;
+        }
         
         // Validation 1: Check recipient address
         if (recipientAddress == null || recipientAddress.length() < 10) {
-            throw new InvalidAddressException("Invalid recipient address: " + recipientAddress);
+            result.set(TransferCheck.Reason.INVALID_ADDRESS, amount, 0, 0, 0, 0);
+            return TransferCheck.Reason.INVALID_ADDRESS;
         }
         
-        // Validation 2: Check transaction limit
-        if (amount > sender.getTransactionLimit()) {
-            throw new TransactionLimitExceededException(
-                "Amount " + amount + " exceeds limit of " + sender.getTransactionLimit());
+        // Validation 2: Check transaction limit (tier from the account table once registered)
+        // Limit, fee and velocity caps come from one schedule snapshot
+        FeeSchedule.Terms terms = result.termsHolder();
+        if (!FeeSchedule.getInstance().terms(sender.getTierCode(), currency, amount, terms)) {
+            // Tier missing from the schedule: nothing may be sent until the account is re-tiered
+            result.set(TransferCheck.Reason.LIMIT_EXCEEDED, amount, 0, 0, 0, 0);
+            return TransferCheck.Reason.LIMIT_EXCEEDED;
+        }
+        double limit = terms.getLimit();
+        if (amount > limit) {
+            result.set(TransferCheck.Reason.LIMIT_EXCEEDED, amount, 0, 0, 0, limit);
+            return TransferCheck.Reason.LIMIT_EXCEEDED;
+        }
+        
+        // Validation 3: Rolling 24 h / 30 d limits
+        TransferCheck.Reason velocity = velocityLimiter.check(sender.getAddress(), terms, amount, result);
+        if (velocity != TransferCheck.Reason.OK) {
+            return velocity;
         }
         
-        // Calculate fee using polymorphism
-        double fee = sender.calculateTransactionFee(amount);
+        // Fee for the sender's tier in the payout currency's corridor
+        double fee = terms.getFee();
         double totalCost = amount + fee;
         
-        // Validation 3: Check balance
-        if (sender.getBalance() < totalCost) {
-            throw new InsufficientBalanceException(
-                "Insufficient balance. Required: " + totalCost + ", Available: " + sender.getBalance());
+        // Validation 4: Check balance
+        double available = sender.getBalance();
+        if (!(available >= totalCost)) { // NaN-safe: an unpriced fee must not pass
+            result.set(TransferCheck.Reason.INSUFFICIENT_BALANCE, amount, fee, totalCost, available, limit);
+            return TransferCheck.Reason.INSUFFICIENT_BALANCE;
         }
         
+        result.set(TransferCheck.Reason.OK, amount, fee, totalCost, available, limit);
+        return TransferCheck.Reason.OK;
+    }
+    
+    // Batch preflight: reasons[i] receives the TransferCheck.Reason code for transfer i.
+    // Returns the number of transfers that would be accepted.
+    public int validateTransfers(User[] senders, Address[] recipients, double[] amounts, byte[] reasons) {
+        int n = senders.length;
+        if (recipients.length != n || amounts.length != n || reasons.length < n) {
+            throw new IllegalArgumentException("Batch arrays must have the same length: " + n);
+        }
+        TransferCheck check = new TransferCheck();
+        int accepted = 0;
+        for (int i = 0; i < n; i++) {
+            TransferCheck.Reason reason = validateTransfer(senders[i], recipients[i], amounts[i], check);
+            reasons[i] = reason.code();
+            if (reason == TransferCheck.Reason.OK) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+    
+    // Exception-free transfer: rejections are reported through result and the
+    // returned reason instead of being thrown (no stack traces, no messages)
+    public TransferCheck.Reason trySendMoney(User sender, Address recipientAddress, double amount,
+                                             TransferCheck result) {
+        return trySendMoney(sender, recipientAddress, amount, null, result);
+    }
+    
+    // As above, charging the fee of the corridor for the payout currency
+    public TransferCheck.Reason trySendMoney(User sender, Address recipientAddress, double amount,
+                                             String currency, TransferCheck result) {
+        long start = System.nanoTime();
+        TransferCheck.Reason reason = validateTransfer(sender, recipientAddress, amount, currency, result);
+        if (reason != TransferCheck.Reason.OK) {
+            countRejection(reason);
+            return reason;
+        }
+        long validated = System.nanoTime();
+        
+        // Fraud screening between validation and settlement (time-budgeted)
+        String fraudRule = fraudScreening.screen(sender, recipientAddress, amount, result.getLimit());
+        long screened = System.nanoTime();
+        if (fraudRule != null) {
+            result.setFraud(fraudRule);
+            fraudFailures.increment();
+            return TransferCheck.Reason.FRAUD_SUSPECTED;
+        }
+        
+        // Only accepted transfers get a flight-recorder event (rejections stay allocation-free)
+        TransferEvent event = new TransferEvent();
+        event.begin();
+        
+        AccountTable table = accounts;
+        double amountSent = amount;
+        double fee = result.getFee();
+        double totalCost = result.getRequired();
+        
         // Create transaction
-        Transaction transaction = new Transaction(sender.getWalletAddress(), recipientAddress, amount, fee);
+        Transaction transaction = new Transaction(sender.getAddress(), recipientAddress, amount, fee);
         
         try {
             // Simulate blockchain transaction
             System.out.println("\n⏳ Processing blockchain transaction...");
-            Thread.sleep(1000); // Simulate network delay
+            if (simulatedDelayMillis > 0) {
+                Thread.sleep(simulatedDelayMillis); // Simulate network delay
+            }
+            long confirmed = System.nanoTime();
+            
+            int recipientSlot = table.find(recipientAddress);
+            long balancesUpdated;
+            long appended;
             
-            // Deduct from sender
-            sender.updateBalance(-totalCost);
+            // Balance updates and history append are one atomic step; the
+            // simulated network delay above stays outside the lock
+            synchronized (historyLock) {
+                // Re-check balance: another request may have spent it during the delay
+                double available = sender.getBalance();
+                if (!(available >= totalCost)) {
+                    result.set(TransferCheck.Reason.INSUFFICIENT_BALANCE, amount, fee, totalCost, available,
+                        result.getLimit());
+                    countRejection(TransferCheck.Reason.INSUFFICIENT_BALANCE);
+                    return TransferCheck.Reason.INSUFFICIENT_BALANCE;
+                }
+                // Re-check velocity: concurrent transfers from the same wallet may have used it up
+                TransferCheck.Reason velocity = velocityLimiter.check(sender.getAddress(), result.termsHolder(), amount, result);
+                if (velocity != TransferCheck.Reason.OK) {
+                    countRejection(velocity);
+                    return velocity;
+                }
+                velocityLimiter.record(sender.getAddress(), amount);
+                
+                // Deduct from sender
+                sender.updateBalance(-totalCost);
+                
+                // Add to recipient if they exist in system 
+                if (recipientSlot >= 0) {
+                    table.addBalance(recipientSlot, amountSent); // Recipient gets the amount WITHOUT fee
+                }
+                
+                // Mark transaction as success
+                transaction.setStatus("SUCCESS");
+                balancesUpdated = System.nanoTime();
+                
+                // Add to history
+                transactionHistory.add(transaction);
+                historySorted = false;
+                indexUserHistory(transaction);
+                appended = System.nanoTime();
+            }
             
-            // Add to recipient if they exist in system 
-            User recipient = userRegistry.get(recipientAddress);
-            if (recipient != null) {
-                recipient.updateBalance(amount); // Recipient gets the amount WITHOUT fee
-                System.out.println("✅ Recipient balance updated: " + recipient.getName() + " received " + amount + " USDT");
+            if (recipientSlot >= 0) {
+                // Name only when resident: a log line is not worth a page fault
+                User recipient = table.getUser(recipientSlot);
+                String recipientName = (recipient != null) ? recipient.getName() : recipientAddress.toString();
+                System.out.println("✅ Recipient balance updated: " + recipientName + " received " + amount + " USDT");
             } else {
                 System.out.println("⚠️  Recipient not in system. Money sent to external wallet: " + recipientAddress);
             }
             
-            // Mark transaction as success
-            transaction.setStatus("SUCCESS");
-            
-            // Add to history
-            transactionHistory.add(transaction);
+            committedTransfers.increment();
+            transferRate.mark();
+            fraudScreening.onCommitted(sender, recipientAddress, amount, result.getLimit());
             
             // Notify observers
             notifyTransactionSuccess(transaction);
+            long notified = System.nanoTime();
+            
+            // Record stage timings (validation includes the fee calculation, which
+            // the preflight performs between the limit and balance checks)
+            long validationNanos = validated - start;
+            transferMetrics.record(TransferMetrics.Stage.VALIDATION, validationNanos);
+            transferMetrics.record(TransferMetrics.Stage.FRAUD_SCREENING, screened - validated);
+            transferMetrics.record(TransferMetrics.Stage.CONFIRMATION_WAIT, confirmed - screened);
+            transferMetrics.record(TransferMetrics.Stage.BALANCE_UPDATE, balancesUpdated - confirmed);
+            transferMetrics.record(TransferMetrics.Stage.HISTORY_APPEND, appended - balancesUpdated);
+            transferMetrics.record(TransferMetrics.Stage.OBSERVER_FANOUT, notified - appended);
+            transferMetrics.record(TransferMetrics.Stage.TOTAL, notified - start);
+            
+            event.end();
+            if (event.shouldCommit()) {
+                event.sender = transaction.getSenderAddress();
+                event.recipient = transaction.getRecipientAddress();
+                event.amount = amount;
+                event.fee = fee;
+                event.status = transaction.getStatus();
+                event.validationNanos = validationNanos;
+                event.screeningNanos = screened - validated;
+                event.confirmationNanos = confirmed - screened;
+                event.balanceUpdateNanos = balancesUpdated - confirmed;
+                event.historyAppendNanos = appended - balancesUpdated;
+                event.observerNanos = notified - appended;
+                event.commit();
+            }
             
             System.out.println("✅ Transaction successful!");
+            return TransferCheck.Reason.OK;
             
         } catch (InterruptedException e) {
             transaction.setStatus("FAILED");
             notifyTransactionFailure(transaction, e.getMessage());
             System.out.println("❌ Transaction failed!");
+            result.setReason(TransferCheck.Reason.INTERRUPTED);
+            return TransferCheck.Reason.INTERRUPTED;
         }
     }
     
-    // Get transaction history 
+    private void countRejection(TransferCheck.Reason reason) {
+        switch (reason) {
+            case INVALID_ADDRESS: invalidAddressFailures.increment(); break;
+            case LIMIT_EXCEEDED:
+            case DAILY_LIMIT_EXCEEDED:
+            case MONTHLY_LIMIT_EXCEEDED: limitExceededFailures.increment(); break;
+            case INSUFFICIENT_BALANCE: insufficientBalanceFailures.increment(); break;
+            default: break;
+        }
+    }
+    
+    public VelocityLimiter getVelocityLimiter() {
+        return velocityLimiter;
+    }
+    
+    public FraudScreeningStage getFraudScreening() {
+        return fraudScreening;
+    }
+    
+    // Per-stage latency histograms for sendMoney
+    public TransferMetrics getTransferMetrics() {
+        return transferMetrics;
+    }
+    
+    // Ledger counters
+    public long getCommittedTransferCount() {
+        return committedTransfers.sum();
+    }
+    
+    public double getTransfersPerSecond(int windowSeconds) {
+        return transferRate.getRatePerSecond(windowSeconds);
+    }
+    
+    public long getInsufficientBalanceFailures() {
+        return insufficientBalanceFailures.sum();
+    }
+    
+    public long getInvalidAddressFailures() {
+        return invalidAddressFailures.sum();
+    }
+    
+    public long getLimitExceededFailures() {
+        return limitExceededFailures.sum();
+    }
+    
+    public long getFraudFailures() {
+        return fraudFailures.sum();
+    }
+    
+    public int getRegisteredUserCount() {
+        return accounts.size();
+    }
+    
+    // Get transaction history (newest first) 
     public ArrayList<Transaction> getTransactionHistory() {
-        Collections.sort(transactionHistory);
-        return transactionHistory;
+        synchronized (historyLock) {
+            sortHistory();
+            return new ArrayList<>(transactionHistory);
+        }
+    }
+    
+    // Get one page of transaction history (newest first) without copying the whole list
+    public ArrayList<Transaction> getTransactionHistory(int offset, int limit) {
+        synchronized (historyLock) {
+            sortHistory();
+            int from = Math.max(0, Math.min(offset, transactionHistory.size()));
+            int to = Math.min(transactionHistory.size(), from + Math.max(0, limit));
+            return new ArrayList<>(transactionHistory.subList(from, to));
+        }
+    }
+    
+    public int getTransactionCount() {
+        synchronized (historyLock) {
+            return transactionHistory.size();
+        }
     }
     
     // Get user's transactions only
     public ArrayList<Transaction> getUserTransactions(String walletAddress) {
-        ArrayList<Transaction> userTransactions = new ArrayList<>();
-        for (Transaction tx : transactionHistory) {
-            if (tx.toString().contains(walletAddress.substring(0, 10))) {
-                userTransactions.add(tx);
+        return getUserTransactions(walletAddress, 0, Integer.MAX_VALUE);
+    }
+    
+    // Get one page of a user's transactions (newest first). Reads only the
+    // wallet's own history, so it costs O(offset + limit) and never blocks transfers.
+    public ArrayList<Transaction> getUserTransactions(String walletAddress, int offset, int limit) {
+        UserHistory history = userHistories.get(Address.parse(walletAddress));
+        return (history == null) ? new ArrayList<>() : history.page(offset, limit);
+    }
+    
+    // Caller holds historyLock (keeps the index in step with the global history and reset)
+    private void indexUserHistory(Transaction transaction) {
+        Address sender = transaction.getSender();
+        Address recipient = transaction.getRecipient();
+        userHistories.computeIfAbsent(sender, a -> new UserHistory()).add(transaction);
+        if (!recipient.equals(sender)) {
+            userHistories.computeIfAbsent(recipient, a -> new UserHistory()).add(transaction);
+        }
+    }
+    
+    // One wallet's transactions, oldest first by timestamp
+    private static final class UserHistory {
+        private final ArrayList<Transaction> transactions = new ArrayList<>();
+        
+        synchronized void add(Transaction transaction) {
+            // Commits arrive almost in timestamp order (the delay runs before the
+            // lock), so the insertion point is found within the last few entries
+            int at = transactions.size();
+            while (at > 0 && transactions.get(at - 1).compareTo(transaction) <= 0) { // ties: commit order, as the global sort
+                at--;
+            }
+            transactions.add(at, transaction);
+        }
+        
+        synchronized ArrayList<Transaction> page(int offset, int limit) {
+            int newest = transactions.size() - 1 - Math.max(0, offset);
+            int count = Math.max(0, Math.min(limit, newest + 1));
+            ArrayList<Transaction> page = new ArrayList<>(count);
+            for (int i = newest; i > newest - count; i--) {
+                page.add(transactions.get(i));
             }
+            return page;
+        }
+    }
+    
+    // Caller must hold historyLock
+    private void sortHistory() {
+        if (!historySorted) {
+            Collections.sort(transactionHistory);
+            historySorted = true;
         }
-        return userTransactions;
     }
     
     // Simulate checking balance from blockchain
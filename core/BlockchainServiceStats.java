@@ -0,0 +1,114 @@
+// Exposes BlockchainService counters over JMX; every getter reads live counters
+public class BlockchainServiceStats implements BlockchainServiceStatsMBean {
+    private static final int TPS_WINDOW_SECONDS = 10;
+
+    private final BlockchainService blockchain;
+
+    public BlockchainServiceStats(BlockchainService blockchain) {
+        this.blockchain = blockchain;
+    }
+
+    @Override
+    public double getTransfersPerSecond() {
+        return blockchain.getTransfersPerSecond(TPS_WINDOW_SECONDS);
+    }
+
+    @Override
+    public long getCommittedTransfers() {
+        return blockchain.getCommittedTransferCount();
+    }
+
+    @Override
+    public long getTransactionHistorySize() {
+        return blockchain.getTransactionCount();
+    }
+
+    @Override
+    public int getRegisteredUsers() {
+        return blockchain.getRegisteredUserCount();
+    }
+
+    // 0 / NaN when the paged account store is not enabled
+    @Override
+    public int getResidentPagedUsers() {
+        PagedAccountStore store = blockchain.getPagedStore();
+        return (store == null) ? 0 : store.getResidentCount();
+    }
+
+    @Override
+    public double getPagedStoreHitRatio() {
+        PagedAccountStore store = blockchain.getPagedStore();
+        return (store == null) ? Double.NaN : store.getHitRatio();
+    }
+
+    @Override
+    public double getCommitLatencyP50Micros() {
+        return totalLatency().getValueAtPercentile(50.0) / 1000.0;
+    }
+
+    @Override
+    public double getCommitLatencyP99Micros() {
+        return totalLatency().getValueAtPercentile(99.0) / 1000.0;
+    }
+
+    @Override
+    public double getCommitLatencyP999Micros() {
+        return totalLatency().getValueAtPercentile(99.9) / 1000.0;
+    }
+
+    @Override
+    public double getCommitLatencyMaxMicros() {
+        return totalLatency().getMax() / 1000.0;
+    }
+
+    @Override
+    public double getBalanceUpdateP99Micros() {
+        return blockchain.getTransferMetrics().getHistogram(TransferMetrics.Stage.BALANCE_UPDATE)
+            .getValueAtPercentile(99.0) / 1000.0;
+    }
+
+    @Override
+    public long getInsufficientBalanceFailures() {
+        return blockchain.getInsufficientBalanceFailures();
+    }
+
+    @Override
+    public long getInvalidAddressFailures() {
+        return blockchain.getInvalidAddressFailures();
+    }
+
+    @Override
+    public long getTransactionLimitExceededFailures() {
+        return blockchain.getLimitExceededFailures();
+    }
+
+    @Override
+    public long getFraudBlockedTransfers() {
+        return blockchain.getFraudFailures();
+    }
+
+    @Override
+    public long getFraudScreeningTimeouts() {
+        return blockchain.getFraudScreening().getTimeoutCount();
+    }
+
+    @Override
+    public double getFraudScreeningP99Micros() {
+        return blockchain.getFraudScreening().getLatency().getValueAtPercentile(99.0) / 1000.0;
+    }
+
+    @Override
+    public long getTotalFailures() {
+        return getInsufficientBalanceFailures() + getInvalidAddressFailures() + getTransactionLimitExceededFailures()
+            + getFraudBlockedTransfers();
+    }
+
+    @Override
+    public void resetLatencyHistograms() {
+        blockchain.getTransferMetrics().reset();
+    }
+
+    private LatencyHistogram totalLatency() {
+        return blockchain.getTransferMetrics().getHistogram(TransferMetrics.Stage.TOTAL);
+    }
+}
@@ -0,0 +1,25 @@
+// JMX view of the ledger (ObjectName oopsmini:type=BlockchainService)
+public interface BlockchainServiceStatsMBean {
+    double getTransfersPerSecond();
+    long getCommittedTransfers();
+    long getTransactionHistorySize();
+    int getRegisteredUsers();
+    int getResidentPagedUsers();
+    double getPagedStoreHitRatio();
+
+    double getCommitLatencyP50Micros();
+    double getCommitLatencyP99Micros();
+    double getCommitLatencyP999Micros();
+    double getCommitLatencyMaxMicros();
+    double getBalanceUpdateP99Micros();
+
+    long getInsufficientBalanceFailures();
+    long getInvalidAddressFailures();
+    long getTransactionLimitExceededFailures();
+    long getFraudBlockedTransfers();
+    long getFraudScreeningTimeouts();
+    double getFraudScreeningP99Micros();
+    long getTotalFailures();
+
+    void resetLatencyHistograms();
+}
@@ -0,0 +1,24 @@
+// FraudScreen - one pluggable check in the pre-settlement fraud screening stage
+// (see FraudScreeningStage). Screens run on the transfer's thread between
+// validation and settlement, so they must be cheap: keep rolling features in
+// fixed-size sketches, avoid allocation, and give up once the deadline passes.
+public interface FraudScreen {
+
+    // Returned by a screen that ran out of time before reaching a verdict
+    String TIMEOUT = "SCREENING_TIMEOUT";
+
+    // Returns null to let the transfer through, TIMEOUT if the deadline
+    // (System.nanoTime() value) passed before a verdict, or a short constant
+    // reason code to block it. limit is the sender's per-transfer limit.
+    String screen(User sender, Address recipient, double amount, double limit, long deadlineNanos);
+
+    // Called after a transfer commits, to update rolling features
+    default void onCommitted(User sender, Address recipient, double amount, double limit) {
+    }
+
+    // Forget all rolling features (BlockchainService.reset)
+    default void clear() {
+    }
+
+    String getName();
+}
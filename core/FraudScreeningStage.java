@@ -0,0 +1,138 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// FraudScreeningStage - runs the registered FraudScreens before a transfer settles
+//
+// Every transfer gets a time budget (-Dfraud.budgetMicros, default 250). Screens
+// run in registration order and the stage checks the clock between them; a screen
+// that cannot finish returns FraudScreen.TIMEOUT. On timeout the stage fails open
+// (transfer proceeds, timeout counted) or closed (-Dfraud.failClosed=true: transfer
+// blocked). Screens are held in a copy-on-write array, so registration never
+// blocks screening and iteration allocates nothing.
+public class FraudScreeningStage {
+
+    public enum FailMode { OPEN, CLOSED }
+
+    private volatile FraudScreen[] screens = new FraudScreen[0];
+    private volatile long budgetNanos = Long.getLong("fraud.budgetMicros", 250L) * 1000L;
+    private volatile FailMode failMode = Boolean.getBoolean("fraud.failClosed") ? FailMode.CLOSED : FailMode.OPEN;
+    private volatile boolean enabled = true;
+
+    private final LongAdder screened = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public synchronized void addScreen(FraudScreen screen) {
+        FraudScreen[] next = Arrays.copyOf(screens, screens.length + 1);
+        next[screens.length] = screen;
+        screens = next;
+    }
+
+    public synchronized void removeScreen(FraudScreen screen) {
+        screens = Arrays.stream(screens).filter(s -> s != screen).toArray(FraudScreen[]::new);
+    }
+
+    // Returns null when the transfer may proceed, else the reason it is blocked
+    public String screen(User sender, Address recipient, double amount, double limit) {
+        FraudScreen[] current = screens;
+        if (!enabled || current.length == 0) {
+            return null;
+        }
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        screened.increment();
+        String verdict = null;
+        for (FraudScreen screen : current) {
+            String reason = (System.nanoTime() > deadline)
+                ? FraudScreen.TIMEOUT
+                : screen.screen(sender, recipient, amount, limit, deadline);
+            if (reason == FraudScreen.TIMEOUT) {
+                timeouts.increment();
+                verdict = (failMode == FailMode.CLOSED) ? FraudScreen.TIMEOUT : null;
+                break;
+            }
+            if (reason != null) {
+                verdict = reason;
+                break;
+            }
+        }
+        if (verdict != null) {
+            blocked.increment();
+        }
+        latency.record(System.nanoTime() - start);
+        return verdict;
+    }
+
+    public void onCommitted(User sender, Address recipient, double amount, double limit) {
+        if (!enabled) {
+            return;
+        }
+        for (FraudScreen screen : screens) {
+            screen.onCommitted(sender, recipient, amount, limit);
+        }
+    }
+
+    // ---------- Configuration ----------
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setBudgetMicros(long micros) {
+        if (micros <= 0) {
+            throw new IllegalArgumentException("Budget must be positive: " + micros);
+        }
+        this.budgetNanos = micros * 1000L;
+    }
+
+    public long getBudgetMicros() {
+        return budgetNanos / 1000L;
+    }
+
+    public void setFailMode(FailMode failMode) {
+        this.failMode = failMode;
+    }
+
+    public FailMode getFailMode() {
+        return failMode;
+    }
+
+    // ---------- Stats ----------
+
+    public long getScreenedCount() {
+        return screened.sum();
+    }
+
+    public long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    // Time spent screening each transfer
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    // Clears every screen's features and the stage statistics
+    public void clear() {
+        for (FraudScreen screen : screens) {
+            screen.clear();
+        }
+        resetStats();
+    }
+
+    public void resetStats() {
+        screened.reset();
+        blocked.reset();
+        timeouts.reset();
+        latency.reset();
+    }
+}
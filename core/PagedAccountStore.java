@@ -0,0 +1,388 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// PagedAccountStore - User objects persisted to a page file, hot users cached on heap
+//
+// Record n belongs to AccountTable slot n and lives at offset n * RECORD_SIZE, so
+// 16 records share each 4 KB page and the OS page cache does the actual paging.
+// Balance, limit and tier stay in the AccountTable; a record holds what is needed
+// to rebuild the User object (address, name, key, savings plans) plus the tier
+// and balance as of the record's last write, for offline use only.
+//
+// Savings plans are stored as an index into the owner's plan catalogue
+// (getUserSavingsPlans) plus the deposited amount. A plan's other fields never
+// change after it is created, so this round-trips a catalogue plan exactly. A
+// plan whose terms match no catalogue entry, or any plan beyond MAX_PLANS, is
+// not persisted (a warning is printed) and is gone once the user is evicted.
+//
+// Resident users live in a bounded W-TinyLFU cache: new users enter a small LRU
+// window (1% of capacity); when the window overflows, its victim competes with the
+// main LRU's victim and is only admitted if a CountMinSketch says it has been
+// requested more often. A one-off scan over cold accounts therefore cannot flush
+// the hot set. A user changed through update() is marked dirty, and only dirty
+// users are written back when evicted or flushed; clean evictions cost no IO.
+//
+// An evicted User is detached: a caller still holding it sees stale savings
+// plans and its changes are never written. Savings-plan changes therefore go
+// through update() (BlockchainService.updateUser), never a held reference.
+public class PagedAccountStore implements Closeable {
+    static final int RECORD_SIZE = 256;
+    static final int MAX_PLANS = 6;
+
+    // Record layout (byte offsets)
+    private static final int OFF_FLAGS = 0;
+    private static final int OFF_TIER = 1;
+    private static final int OFF_PLAN_COUNT = 2;
+    private static final int OFF_KIND = 3;      // KIND_BASIC or KIND_PREMIUM (user class; the tier is separate)
+    private static final int OFF_BALANCE = 8;
+    private static final int OFF_ADDRESS = 16;  // short length + UTF-8, SIZE_ADDRESS bytes
+    private static final int OFF_NAME = 64;     // short length + UTF-8, SIZE_NAME bytes
+    private static final int OFF_KEY = 128;     // short length + UTF-8, SIZE_KEY bytes
+    private static final int SIZE_ADDRESS = 48;
+    private static final int SIZE_NAME = 64;
+    private static final int SIZE_KEY = 64;
+    private static final int OFF_PLAN_AMOUNTS = 192; // MAX_PLANS doubles
+    private static final int OFF_PLAN_INDEXES = 240; // MAX_PLANS bytes (index into the tier's plan catalogue)
+    private static final byte FLAG_USED = 1;
+    private static final byte KIND_BASIC = 0;
+    private static final byte KIND_PREMIUM = 1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int capacity;
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final ReentrantLock lock = new ReentrantLock(); // not synchronized: misses block on file IO
+
+    // Both maps in access order; the eldest entry is the LRU victim
+    private final LinkedHashMap<Address, User> window = new LinkedHashMap<>(64, 0.75f, true);
+    private final LinkedHashMap<Address, User> main = new LinkedHashMap<>(1024, 0.75f, true);
+    private final CountMinSketch frequency;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder recordReads = new LongAdder();
+    private final LongAdder recordWrites = new LongAdder();
+
+    public PagedAccountStore(Path file, int capacity) throws IOException {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Cache capacity must be at least 2: " + capacity);
+        }
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        this.capacity = capacity;
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.frequency = new CountMinSketch(capacity, 4, 10L * capacity);
+    }
+
+    // Resident user for the slot, faulting it in from the page file on a miss
+    public User get(AccountTable table, int slot) {
+        Address address = table.getAddress(slot);
+        lock.lock();
+        try {
+            frequency.increment(address.hashCode());
+            User user = window.get(address);
+            if (user == null) {
+                user = main.get(address);
+            }
+            if (user != null) {
+                hits.increment();
+                return user;
+            }
+            misses.increment();
+            user = read(table, slot);
+            admit(address, user);
+            return user;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Throws IllegalArgumentException if user's address, name or key does not fit
+    // a record; call before the user takes a table slot, so a rejected user
+    // leaves no half-registered account behind
+    public void checkFits(User user) {
+        encode(user.getWalletAddress(), SIZE_ADDRESS);
+        encode(user.getName(), SIZE_NAME);
+        encode(user.getEncryptedPrivateKey(), SIZE_KEY);
+    }
+
+    // Apply a change to the slot's resident user, faulting it in first. Runs under
+    // the store lock, so the user cannot be evicted (and written back) halfway:
+    // the change always lands on the copy that will be persisted.
+    public <T> T update(AccountTable table, int slot, Function<User, T> change) {
+        lock.lock();
+        try {
+            User user = get(table, slot);
+            user.setDirty(true); // whatever the change did, the record is rewritten on eviction
+            return change.apply(user);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Persist a (re-)registered user already bound to its slot, and make it resident
+    public void put(User user) {
+        Address address = user.getAddress();
+        lock.lock();
+        try {
+            write(user);
+            frequency.increment(address.hashCode());
+            if (window.containsKey(address)) {
+                window.put(address, user);
+            } else if (main.containsKey(address)) {
+                main.put(address, user);
+            } else {
+                admit(address, user);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Write every changed resident user back to the file
+    public void flush() {
+        lock.lock();
+        try {
+            for (User user : window.values()) {
+                writeIfDirty(user);
+            }
+            for (User user : main.values()) {
+                writeIfDirty(user);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drop all resident users without writing them back (the records are reused)
+    public void clear() {
+        lock.lock();
+        try {
+            window.clear();
+            main.clear();
+            frequency.reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    // ---------- Stats ----------
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return (total == 0) ? 1.0 : (double) h / total;
+    }
+
+    public int getResidentCount() {
+        lock.lock();
+        try {
+            return window.size() + main.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getRecordReads() {
+        return recordReads.sum();
+    }
+
+    public long getRecordWrites() {
+        return recordWrites.sum();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // ---------- W-TinyLFU admission (caller holds lock) ----------
+
+    private void admit(Address address, User user) {
+        window.put(address, user);
+        if (window.size() <= windowCapacity) {
+            return;
+        }
+        Map.Entry<Address, User> candidate = removeEldest(window);
+        if (main.size() < mainCapacity) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        Iterator<Map.Entry<Address, User>> it = main.entrySet().iterator();
+        Map.Entry<Address, User> victim = it.next();
+        if (frequency.estimate(candidate.getKey().hashCode()) > frequency.estimate(victim.getKey().hashCode())) {
+            it.remove();
+            writeIfDirty(victim.getValue());
+            main.put(candidate.getKey(), candidate.getValue());
+        } else {
+            writeIfDirty(candidate.getValue());
+        }
+    }
+
+    private static Map.Entry<Address, User> removeEldest(LinkedHashMap<Address, User> map) {
+        Iterator<Map.Entry<Address, User>> it = map.entrySet().iterator();
+        Map.Entry<Address, User> eldest = it.next();
+        it.remove();
+        return eldest;
+    }
+
+    // ---------- Record encoding ----------
+
+    private void writeIfDirty(User user) {
+        if (user.isDirty()) {
+            write(user);
+        }
+    }
+
+    private void write(User user) {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        buf.put(OFF_FLAGS, FLAG_USED);
+        buf.put(OFF_TIER, (byte) user.getTierCode());
+        buf.put(OFF_KIND, (user instanceof PremiumUser) ? KIND_PREMIUM : KIND_BASIC);
+        buf.putDouble(OFF_BALANCE, user.getBalance());
+        putString(buf, OFF_ADDRESS, SIZE_ADDRESS, user.getWalletAddress());
+        putString(buf, OFF_NAME, SIZE_NAME, user.getName());
+        putString(buf, OFF_KEY, SIZE_KEY, user.getEncryptedPrivateKey());
+
+        ArrayList<SavingsPlan> catalogue = user.getUserSavingsPlans();
+        int count = 0;
+        for (SavingsPlan plan : user.getSavingsPlans()) {
+            int index = catalogueIndex(catalogue, plan);
+            if (index < 0 || count == MAX_PLANS) {
+                System.out.println("⚠️  Savings plan not persisted for " + user.getName() + ": " + plan.getPlanName());
+                continue;
+            }
+            buf.put(OFF_PLAN_INDEXES + count, (byte) index);
+            buf.putDouble(OFF_PLAN_AMOUNTS + 8 * count, plan.getCurrentAmount());
+            count++;
+        }
+        buf.put(OFF_PLAN_COUNT, (byte) count);
+
+        try {
+            long position = (long) user.getAccountSlot() * RECORD_SIZE;
+            while (buf.hasRemaining()) {
+                position += channel.write(buf, position);
+            }
+            recordWrites.increment();
+            user.setDirty(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write account record for " + user.getWalletAddress(), e);
+        }
+    }
+
+    private User read(AccountTable table, int slot) {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        try {
+            long position = (long) slot * RECORD_SIZE;
+            while (buf.hasRemaining()) {
+                int n = channel.read(buf, position + buf.position());
+                if (n < 0) {
+                    break;
+                }
+            }
+            recordReads.increment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read account record " + slot, e);
+        }
+        if (buf.get(OFF_FLAGS) != FLAG_USED) {
+            throw new IllegalStateException("No account record for slot " + slot + " in " + file);
+        }
+
+        String address = getString(buf, OFF_ADDRESS);
+        String name = getString(buf, OFF_NAME);
+        String key = getString(buf, OFF_KEY);
+        User user = (buf.get(OFF_KIND) == KIND_PREMIUM)
+            ? new PremiumUser(name, address, key)
+            : new BasicUser(name, address, key);
+
+        ArrayList<SavingsPlan> catalogue = user.getUserSavingsPlans();
+        int count = buf.get(OFF_PLAN_COUNT);
+        for (int i = 0; i < count; i++) {
+            SavingsPlan plan = catalogue.get(buf.get(OFF_PLAN_INDEXES + i));
+            double amount = buf.getDouble(OFF_PLAN_AMOUNTS + 8 * i);
+            if (amount > 0) {
+                plan.deposit(amount);
+            }
+            user.addSavingsPlan(plan);
+        }
+
+        // The live balance is in the table; the record's snapshot is only for offline use
+        user.bindAccount(table, slot);
+        return user;
+    }
+
+    // Catalogue entry with the same terms as plan, -1 if none: a plan that only
+    // shares a name would come back with the catalogue's rate and locking period
+    private static int catalogueIndex(ArrayList<SavingsPlan> catalogue, SavingsPlan plan) {
+        for (int i = 0; i < catalogue.size(); i++) {
+            SavingsPlan entry = catalogue.get(i);
+            if (entry.getPlanName().equals(plan.getPlanName())
+                    && entry.getDescription().equals(plan.getDescription())
+                    && entry.getInterestRate() == plan.getInterestRate()
+                    && entry.getMinimumAmount() == plan.getMinimumAmount()
+                    && entry.getLockingPeriod().equals(plan.getLockingPeriod())
+                    && entry.getLockingDays() == plan.getLockingDays()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void putString(ByteBuffer buf, int offset, int fieldSize, String value) {
+        byte[] bytes = encode(value, fieldSize);
+        buf.putShort(offset, (short) bytes.length);
+        buf.put(offset + 2, bytes);
+    }
+
+    private static byte[] encode(String value, int fieldSize) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > fieldSize - 2) {
+            throw new IllegalArgumentException("Value too long for account record (max "
+                + (fieldSize - 2) + " bytes): " + value);
+        }
+        return bytes;
+    }
+
+    private static String getString(ByteBuffer buf, int offset) {
+        int length = buf.getShort(offset);
+        byte[] bytes = new byte[length];
+        buf.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,221 @@
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// PatternFraudScreen - built-in screening rules over rolling sketch features
+//
+//   FAN_OUT     sending to a new recipient after already paying many distinct
+//               recipients this hour (per-wallet HyperLogLog, ~130 bytes)
+//   ROUND_TRIP  money repeatedly bouncing between the same two wallets within
+//               a few minutes (count-min sketch of directed wallet pairs)
+//   NEAR_LIMIT  repeated amounts just below the per-transfer limit this hour
+//               (count-min sketch keyed by sender), i.e. limit probing/structuring
+//
+// Rolling windows use two generations of each sketch (current + previous),
+// rotated when a window ends, so features cover between one and two windows.
+// Rotation runs on a shared background thread, never on a transfer thread: the
+// sketches are swapped for fresh ones and the per-wallet recipient sets are
+// aged one wallet at a time, each under its own lock.
+// Features are updated from committed transfers only. Thresholds come from
+// -Dfraud.fanOut (default 10), -Dfraud.roundTrips (3), -Dfraud.nearLimit (3).
+//
+// Sketches are 4 rows wide enough that a key never seen in the window reads as
+// non-zero (a missed FAN_OUT, or one step towards a false ROUND_TRIP) with
+// probability at most -Dfraud.falsePositive (default 0.01), given
+// -Dfraud.expectedPairs distinct wallet pairs per hour (default 10000; the
+// 10-minute round-trip sketches are sized for a sixth of that). With 4 rows,
+// (1 - e^(-n/w))^4 <= p gives w >= 2.6 n at p = 0.01: 32768 counters per row for
+// the hourly sketches, 8192 for the short ones, ~1.3 MB in all.
+// -Dfraud.sketchWidth overrides the computed width for every sketch.
+public class PatternFraudScreen implements FraudScreen {
+
+    public static final String FAN_OUT = "FAN_OUT";
+    public static final String ROUND_TRIP = "ROUND_TRIP";
+    public static final String NEAR_LIMIT = "NEAR_LIMIT";
+
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long ROUND_TRIP_WINDOW_MILLIS = 10 * 60_000L;
+    private static final double NEAR_LIMIT_FRACTION = 0.95;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int EXPECTED_PAIRS = Integer.getInteger("fraud.expectedPairs", 10_000);
+    private static final double FALSE_POSITIVE = Double.parseDouble(System.getProperty("fraud.falsePositive", "0.01"));
+    private static final int HOUR_WIDTH = sketchWidth(EXPECTED_PAIRS);
+    private static final int PAIRS_WIDTH = sketchWidth(Math.max(1, EXPECTED_PAIRS / 6));
+    private static final long NEAR_LIMIT_TAG = 0x4E4C000000000000L; // keeps sender keys apart from pair keys
+
+    private final int fanOutThreshold = Integer.getInteger("fraud.fanOut", 10);
+    private final int roundTripThreshold = Integer.getInteger("fraud.roundTrips", 3);
+    private final int nearLimitThreshold = Integer.getInteger("fraud.nearLimit", 3);
+
+    // Hourly features: pair "seen" counts, near-limit counts, distinct recipients
+    private volatile CountMinSketch hourCurrent = newSketch(HOUR_WIDTH);
+    private volatile CountMinSketch hourPrevious = newSketch(HOUR_WIDTH);
+    private final ConcurrentHashMap<Address, Recipients> recipients = new ConcurrentHashMap<>();
+
+    // Short window: directed pair counts for round trips
+    private volatile CountMinSketch pairsCurrent = newSketch(PAIRS_WIDTH);
+    private volatile CountMinSketch pairsPrevious = newSketch(PAIRS_WIDTH);
+
+    // Holder idiom: one rotation thread for every screen, started with the first
+    private static class Rotation {
+        static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fraud-window-rotation");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public PatternFraudScreen() {
+        Rotation.TIMER.scheduleAtFixedRate(this::rotatePairs,
+            ROUND_TRIP_WINDOW_MILLIS, ROUND_TRIP_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        Rotation.TIMER.scheduleAtFixedRate(this::rotateHour, HOUR_MILLIS, HOUR_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getName() {
+        return "Pattern rules (fan-out, round-trip, near-limit)";
+    }
+
+    @Override
+    public String screen(User sender, Address recipient, double amount, double limit, long deadlineNanos) {
+        Address from = sender.getAddress();
+        long pair = pairKey(from, recipient);
+
+        // NEAR_LIMIT: cheapest check first
+        if (amount >= limit * NEAR_LIMIT_FRACTION
+                && nearLimitCount(from) >= nearLimitThreshold) {
+            return NEAR_LIMIT;
+        }
+
+        // ROUND_TRIP: both directions used repeatedly in the short window
+        long reverse = pairKey(recipient, from);
+        int back = pairsCurrent.estimate(reverse) + pairsPrevious.estimate(reverse);
+        if (back >= roundTripThreshold) {
+            int forth = pairsCurrent.estimate(pair) + pairsPrevious.estimate(pair);
+            if (forth >= roundTripThreshold) {
+                return ROUND_TRIP;
+            }
+        }
+        if (System.nanoTime() > deadlineNanos) {
+            return TIMEOUT;
+        }
+
+        // FAN_OUT: a never-seen recipient on top of many distinct ones
+        Recipients seen = recipients.get(from);
+        if (seen != null && hourCurrent.estimate(pair) + hourPrevious.estimate(pair) == 0) {
+            double distinct;
+            synchronized (seen) {
+                distinct = seen.current.estimateUnion(seen.previous);
+            }
+            if (distinct >= fanOutThreshold) {
+                return FAN_OUT;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void onCommitted(User sender, Address recipient, double amount, double limit) {
+        Address from = sender.getAddress();
+        long pair = pairKey(from, recipient);
+        hourCurrent.increment(pair);
+        pairsCurrent.increment(pair);
+        if (amount >= limit * NEAR_LIMIT_FRACTION) {
+            hourCurrent.increment(NEAR_LIMIT_TAG ^ from.hashCode());
+        }
+        long now = System.currentTimeMillis();
+        while (true) {
+            Recipients seen = recipients.computeIfAbsent(from, a -> new Recipients());
+            synchronized (seen) {
+                // rotateHour may have dropped this wallet between the lookup and the lock
+                if (recipients.get(from) == seen) {
+                    seen.current.add(recipient.hashCode());
+                    seen.lastUsed = now;
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        hourCurrent.reset();
+        hourPrevious.reset();
+        pairsCurrent.reset();
+        pairsPrevious.reset();
+        recipients.clear();
+    }
+
+    public int getTrackedWalletCount() {
+        return recipients.size();
+    }
+
+    // ---------- Windows ----------
+
+    private int nearLimitCount(Address sender) {
+        long key = NEAR_LIMIT_TAG ^ sender.hashCode();
+        return hourCurrent.estimate(key) + hourPrevious.estimate(key);
+    }
+
+    // The new current sketch is published before the old one becomes previous:
+    // a screen in between briefly under-counts, never counts a window twice
+    synchronized void rotatePairs() {
+        CountMinSketch ended = pairsCurrent;
+        pairsCurrent = newSketch(PAIRS_WIDTH);
+        pairsPrevious = ended;
+    }
+
+    void rotateHour() {
+        synchronized (this) {
+            CountMinSketch ended = hourCurrent;
+            hourCurrent = newSketch(HOUR_WIDTH);
+            hourPrevious = ended;
+        }
+        // Age per-wallet recipient sets one wallet at a time; forget wallets idle
+        // for two windows. Transfers only ever wait for their own wallet's set.
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Address, Recipients>> it = recipients.entrySet().iterator();
+        while (it.hasNext()) {
+            Recipients seen = it.next().getValue();
+            synchronized (seen) {
+                if (now - seen.lastUsed >= 2 * HOUR_MILLIS) {
+                    it.remove();
+                } else {
+                    HyperLogLog recycledSet = seen.previous;
+                    recycledSet.clear();
+                    seen.previous = seen.current;
+                    seen.current = recycledSet;
+                }
+            }
+        }
+    }
+
+    private static long pairKey(Address from, Address to) {
+        return ((long) from.hashCode() << 32) ^ (to.hashCode() & 0xFFFFFFFFL);
+    }
+
+    private static CountMinSketch newSketch(int width) {
+        return new CountMinSketch(width, SKETCH_DEPTH, 0);
+    }
+
+    // Counters per row so an unseen key reads non-zero in every row with
+    // probability <= FALSE_POSITIVE when expectedKeys keys share the sketch
+    private static int sketchWidth(int expectedKeys) {
+        Integer fixed = Integer.getInteger("fraud.sketchWidth");
+        if (fixed != null) {
+            return fixed;
+        }
+        double perRow = Math.pow(FALSE_POSITIVE, 1.0 / SKETCH_DEPTH); // collision chance allowed in each row
+        return (int) Math.min(1 << 30, Math.ceil(expectedKeys / -Math.log1p(-perRow)));
+    }
+
+    // Distinct recipients of one wallet, current and previous hour
+    private static final class Recipients {
+        HyperLogLog current = new HyperLogLog(6);
+        HyperLogLog previous = new HyperLogLog(6);
+        long lastUsed;
+    }
+}
@@ -1,10 +1,20 @@
 /**
  * Start - Main entry point for the Blockchain Payment System
- * Launches the Java Swing GUI application
+ * Launches the Java Swing GUI application, or the headless HTTP/JSON API
+ * when started with --server [--port N]
  */
 public class Start {
     
     public static void main(String[] args) {
+        JmxMetrics.registerAll();
+        
+        for (String arg : args) {
+            if (arg.equals("--server")) {
+                startServer(args);
+                return;
+            }
+        }
+        
         System.out.println("🚀 BLOCKCHAIN PAYMENT SYSTEM - STARTING GUI\n");
         
         try {
@@ -16,4 +26,15 @@ public class Start {
             e.printStackTrace();
         }
     }
+    
+    private static void startServer(String[] args) {
+        System.out.println("🚀 BLOCKCHAIN PAYMENT SYSTEM - STARTING API SERVER\n");
+        
+        try {
+            ApiServer.main(args);
+        } catch (Exception e) {
+            System.err.println("❌ Error starting API server: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
 }
@@ -0,0 +1,196 @@
+// TransferCheck - outcome of a transfer preflight, without exceptions
+// A reusable holder: callers keep one per thread (or per request) and pass it to
+// BlockchainService.validateTransfer / trySendMoney, which overwrite its fields.
+// Nothing is allocated on the rejection path; a message string or exception is
+// only built if the caller asks for one.
+public class TransferCheck {
+
+    public enum Reason {
+        OK,
+        INVALID_ADDRESS,
+        LIMIT_EXCEEDED,
+        INSUFFICIENT_BALANCE,
+        DAILY_LIMIT_EXCEEDED,   // rolling 24 h amount or count (VelocityLimiter)
+        MONTHLY_LIMIT_EXCEEDED, // rolling 30 d amount or count
+        FRAUD_SUSPECTED,        // blocked by FraudScreeningStage
+        INTERRUPTED,    // confirmation wait was interrupted; transfer marked FAILED
+        QUOTE_EXPIRED,  // trySendMoneyAtQuote: the quote outlived its TTL
+        QUOTE_INVALID,  // unknown, foreign or already spent quote token
+        INVALID_AMOUNT; // zero, negative, NaN or infinite amount
+
+        private static final Reason[] VALUES = values();
+
+        public byte code() {
+            return (byte) ordinal();
+        }
+
+        // Reason for a code written by BlockchainService.validateTransfers
+        public static Reason fromCode(byte code) {
+            return VALUES[code];
+        }
+    }
+
+    private Reason reason = Reason.OK;
+    private double amount;
+    private double fee;
+    private double required;   // amount + fee
+    private double available;  // sender balance at check time
+    private double limit;      // sender transaction limit, or the velocity limit hit
+    private boolean countLimit; // velocity rejection on transfer count rather than amount
+    private String fraudRule;   // screening rule that blocked the transfer (a constant)
+    private Quote quote;        // terms of the last quoted transfer (created on first use)
+    private QuoteService.Status quoteStatus;
+    private final FeeSchedule.Terms terms = new FeeSchedule.Terms(); // schedule snapshot of the last validation
+
+    void set(Reason reason, double amount, double fee, double required, double available, double limit) {
+        this.reason = reason;
+        this.amount = amount;
+        this.fee = fee;
+        this.required = required;
+        this.available = available;
+        this.limit = limit;
+        this.countLimit = false;
+    }
+
+    // Velocity rejection: required is the amount (or count) the window would reach
+    void setVelocity(Reason reason, double amount, double wouldReach, double limit, boolean countLimit) {
+        set(reason, amount, 0, wouldReach, 0, limit);
+        this.countLimit = countLimit;
+    }
+
+    void setReason(Reason reason) {
+        this.reason = reason;
+    }
+
+    void setFraud(String rule) {
+        this.reason = Reason.FRAUD_SUSPECTED;
+        this.fraudRule = rule;
+    }
+
+    void setQuoteRejected(QuoteService.Status status) {
+        set(status == QuoteService.Status.EXPIRED ? Reason.QUOTE_EXPIRED : Reason.QUOTE_INVALID, 0, 0, 0, 0, 0);
+        this.quoteStatus = status;
+    }
+
+    FeeSchedule.Terms termsHolder() {
+        return terms;
+    }
+
+    Quote quoteHolder() {
+        if (quote == null) {
+            quote = new Quote();
+        }
+        return quote;
+    }
+
+    public boolean isOk() {
+        return reason == Reason.OK;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public double getFee() {
+        return fee;
+    }
+
+    public double getRequired() {
+        return required;
+    }
+
+    public double getAvailable() {
+        return available;
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public boolean isCountLimit() {
+        return countLimit;
+    }
+
+    public String getFraudRule() {
+        return fraudRule;
+    }
+
+    // Locked terms of the last trySendMoneyAtQuote through this holder (null if none)
+    public Quote getQuote() {
+        return quote;
+    }
+
+    // Human-readable reason (same wording as the checked exceptions)
+    public String getMessage(Object recipientAddress) {
+        switch (reason) {
+            case INVALID_ADDRESS:
+                return "Invalid recipient address: " + recipientAddress;
+            case LIMIT_EXCEEDED:
+                return "Amount " + amount + " exceeds limit of " + limit;
+            case INSUFFICIENT_BALANCE:
+                return "Insufficient balance. Required: " + required + ", Available: " + available;
+            case DAILY_LIMIT_EXCEEDED:
+            case MONTHLY_LIMIT_EXCEEDED:
+                return (reason == Reason.DAILY_LIMIT_EXCEEDED ? "24-hour " : "30-day ")
+                    + (countLimit ? "transfer count" : "spending") + " limit exceeded. Would reach: "
+                    + (countLimit ? String.valueOf((long) required) : String.valueOf(required))
+                    + ", Limit: " + (countLimit ? String.valueOf((long) limit) : String.valueOf(limit));
+            case FRAUD_SUSPECTED:
+                return "Transfer blocked by fraud screening (" + fraudRule + ")";
+            case INTERRUPTED:
+                return "Transaction interrupted";
+            case QUOTE_EXPIRED:
+                return "Quote expired; request a new quote";
+            case QUOTE_INVALID:
+                return (quoteStatus == QuoteService.Status.ALREADY_REDEEMED)
+                    ? "Quote already used" : "Unknown quote for this sender";
+            case INVALID_AMOUNT:
+                return "Invalid amount: " + amount + " (must be a positive number)";
+            default:
+                return "OK";
+        }
+    }
+
+    // Rethrow a rejection through the checked-exception API (no-op when OK or INTERRUPTED).
+    // An invalid amount is a caller bug, so it is thrown unchecked.
+    void throwIfRejected(Object recipientAddress)
+            throws InsufficientBalanceException, InvalidAddressException, TransactionLimitExceededException,
+                   FraudSuspectedException {
+        switch (reason) {
+            case INVALID_ADDRESS:
+                throw new InvalidAddressException(getMessage(recipientAddress));
+            case LIMIT_EXCEEDED:
+            case DAILY_LIMIT_EXCEEDED:
+            case MONTHLY_LIMIT_EXCEEDED:
+                throw new TransactionLimitExceededException(getMessage(recipientAddress));
+            case INSUFFICIENT_BALANCE:
+                throw new InsufficientBalanceException(getMessage(recipientAddress));
+            case FRAUD_SUSPECTED:
+                throw new FraudSuspectedException(getMessage(recipientAddress));
+            case INVALID_AMOUNT:
+                throw new IllegalArgumentException(getMessage(recipientAddress));
+            default:
+                break;
+        }
+    }
+
+    // Same for quoted transfers: quote rejections first, then the usual ones
+    void throwIfQuoteRejected(Object recipientAddress)
+            throws InsufficientBalanceException, InvalidAddressException, TransactionLimitExceededException,
+                   FraudSuspectedException, InvalidQuoteException {
+        if (reason == Reason.QUOTE_EXPIRED || reason == Reason.QUOTE_INVALID) {
+            throw new InvalidQuoteException(getMessage(recipientAddress));
+        }
+        throwIfRejected(recipientAddress);
+    }
+
+    @Override
+    public String toString() {
+        return "TransferCheck[" + reason + ", required=" + required + ", available=" + available
+            + ", limit=" + limit + "]";
+    }
+}
@@ -0,0 +1,56 @@
+// TransferMetrics - per-stage latency histograms for BlockchainService.sendMoney
+// Each stage is timed with System.nanoTime() and recorded into a lock-free
+// LatencyHistogram, so instrumentation stays on in production without allocating.
+public class TransferMetrics {
+
+    public enum Stage {
+        VALIDATION("Validation + fee"),
+        FRAUD_SCREENING("Fraud screening"),
+        CONFIRMATION_WAIT("Confirmation wait"),
+        BALANCE_UPDATE("Balance update"),
+        HISTORY_APPEND("History append"),
+        OBSERVER_FANOUT("Observer fan-out"),
+        TOTAL("Total");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+
+    public TransferMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public void reset() {
+        for (LatencyHistogram h : histograms) {
+            h.reset();
+        }
+    }
+
+    // One line per stage, for console and GUI display
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            sb.append(String.format("%-18s %s%n", stage.getLabel(), getHistogram(stage).summary()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,360 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// VelocityLimiter - rolling 24 h / 30 d spending limits per sending wallet
+//
+// Each active wallet gets a fixed-size window: 24 hourly and 30 daily circular
+// buckets of (amount, count) plus running totals. Moving the window forward
+// clears only the buckets that expired, so checks and updates are O(1) and
+// never scan transaction history. Memory per wallet is bounded (~700 bytes),
+// windows are allocated on a wallet's first transfer and dropped once idle
+// for 30 days (by enableEviction's timer, and before every snapshot).
+//
+// Windows are keyed by absolute hour/day numbers, so a snapshot written by
+// save() and read back by load() after a restart expires exactly the buckets
+// that aged out while the process was down. Limits per tier come from the
+// FeeSchedule 'velocity' rules.
+public class VelocityLimiter {
+    private static final int HOURS = 24;
+    private static final int DAYS = 30;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final int SNAPSHOT_MAGIC = 0x56454C31; // "VEL1"
+
+    private final ConcurrentHashMap<Address, Window> windows = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private volatile boolean enabled = true;
+    private ScheduledExecutorService scheduler; // eviction and snapshots, created on first use
+
+    public VelocityLimiter() {
+        this(System::currentTimeMillis);
+    }
+
+    public VelocityLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Checks whether sending amount now stays within the rolling limits in terms
+    // (the caps of the schedule snapshot the transfer was validated against).
+    // Fills result on rejection; allocation-free.
+    public TransferCheck.Reason check(Address sender, FeeSchedule.Terms terms, double amount, TransferCheck result) {
+        if (!enabled) {
+            return TransferCheck.Reason.OK;
+        }
+        double dailyAmount = terms.getVelocityLimit(FeeSchedule.DAILY_AMOUNT);
+        double dailyCount = terms.getVelocityLimit(FeeSchedule.DAILY_COUNT);
+        double monthlyAmount = terms.getVelocityLimit(FeeSchedule.MONTHLY_AMOUNT);
+        double monthlyCount = terms.getVelocityLimit(FeeSchedule.MONTHLY_COUNT);
+
+        double hourSum = 0;
+        int hourCount = 0;
+        double daySum = 0;
+        int dayCount = 0;
+        Window window = windows.get(sender);
+        if (window != null) {
+            long now = clock.getAsLong();
+            synchronized (window) {
+                window.advance(now / HOUR_MILLIS, now / DAY_MILLIS);
+                hourSum = window.hourSum;
+                hourCount = window.hourCount;
+                daySum = window.daySum;
+                dayCount = window.dayCount;
+            }
+        }
+
+        if (hourSum + amount > dailyAmount) {
+            result.setVelocity(TransferCheck.Reason.DAILY_LIMIT_EXCEEDED, amount, hourSum + amount, dailyAmount, false);
+            return TransferCheck.Reason.DAILY_LIMIT_EXCEEDED;
+        }
+        if (hourCount + 1 > dailyCount) {
+            result.setVelocity(TransferCheck.Reason.DAILY_LIMIT_EXCEEDED, amount, hourCount + 1, dailyCount, true);
+            return TransferCheck.Reason.DAILY_LIMIT_EXCEEDED;
+        }
+        if (daySum + amount > monthlyAmount) {
+            result.setVelocity(TransferCheck.Reason.MONTHLY_LIMIT_EXCEEDED, amount, daySum + amount, monthlyAmount, false);
+            return TransferCheck.Reason.MONTHLY_LIMIT_EXCEEDED;
+        }
+        if (dayCount + 1 > monthlyCount) {
+            result.setVelocity(TransferCheck.Reason.MONTHLY_LIMIT_EXCEEDED, amount, dayCount + 1, monthlyCount, true);
+            return TransferCheck.Reason.MONTHLY_LIMIT_EXCEEDED;
+        }
+        return TransferCheck.Reason.OK;
+    }
+
+    // Counts a committed transfer against the sender's windows
+    public void record(Address sender, double amount) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long hour = now / HOUR_MILLIS;
+        long day = now / DAY_MILLIS;
+        while (true) {
+            Window window = windows.computeIfAbsent(sender, a -> new Window(hour, day));
+            synchronized (window) {
+                // evictIdle may have dropped this window between the lookup and the lock
+                if (windows.get(sender) == window) {
+                    window.advance(hour, day);
+                    window.add(amount);
+                    return;
+                }
+            }
+        }
+    }
+
+    // Rolling totals for display: {24h amount, 24h count, 30d amount, 30d count}
+    public double[] getUsage(Address sender) {
+        Window window = windows.get(sender);
+        if (window == null) {
+            return new double[4];
+        }
+        long now = clock.getAsLong();
+        synchronized (window) {
+            window.advance(now / HOUR_MILLIS, now / DAY_MILLIS);
+            return new double[] {window.hourSum, window.hourCount, window.daySum, window.dayCount};
+        }
+    }
+
+    public int getActiveWalletCount() {
+        return windows.size();
+    }
+
+    public void clear() {
+        windows.clear();
+    }
+
+    // Drop windows with nothing left in the 30-day range
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        Iterator<Map.Entry<Address, Window>> it = windows.entrySet().iterator();
+        while (it.hasNext()) {
+            Window window = it.next().getValue();
+            synchronized (window) {
+                window.advance(now / HOUR_MILLIS, now / DAY_MILLIS);
+                if (window.dayCount == 0) {
+                    it.remove();
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    // ---------- Persistence ----------
+
+    // Write all windows to path (atomically, via a temp file)
+    public void save(Path path) throws IOException {
+        evictIdle();
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(windows.size());
+            for (Map.Entry<Address, Window> entry : windows.entrySet()) {
+                Window w = entry.getValue();
+                synchronized (w) {
+                    out.writeUTF(entry.getKey().toString());
+                    out.writeLong(w.hour);
+                    out.writeLong(w.day);
+                    for (int i = 0; i < HOURS; i++) {
+                        out.writeDouble(w.hourAmounts[i]);
+                        out.writeInt(w.hourCounts[i]);
+                    }
+                    for (int i = 0; i < DAYS; i++) {
+                        out.writeDouble(w.dayAmounts[i]);
+                        out.writeInt(w.dayCounts[i]);
+                    }
+                }
+            }
+            out.writeUTF(""); // end marker (windows may have been added while writing)
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Replace all windows with a snapshot written by save()
+    public int load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a velocity snapshot: " + path);
+            }
+            in.readInt(); // count at write time (informational)
+            windows.clear();
+            int loaded = 0;
+            while (true) {
+                String address = in.readUTF();
+                if (address.isEmpty()) {
+                    break;
+                }
+                Window w = new Window(in.readLong(), in.readLong());
+                for (int i = 0; i < HOURS; i++) {
+                    w.hourAmounts[i] = in.readDouble();
+                    w.hourCounts[i] = in.readInt();
+                }
+                for (int i = 0; i < DAYS; i++) {
+                    w.dayAmounts[i] = in.readDouble();
+                    w.dayCounts[i] = in.readInt();
+                }
+                w.recomputeTotals();
+                windows.put(Address.of(address), w);
+                loaded++;
+            }
+            return loaded;
+        }
+    }
+
+    // Load the snapshot at path if present, then save it every periodSeconds and at shutdown
+    public void enablePersistence(Path path, long periodSeconds) {
+        if (Files.exists(path)) {
+            try {
+                int loaded = load(path);
+                System.out.println("✅ Velocity windows restored for " + loaded + " wallets from " + path);
+            } catch (IOException e) {
+                System.out.println("❌ Could not restore velocity windows from " + path + ": " + e.getMessage());
+            }
+        }
+        Runnable saver = () -> {
+            try {
+                save(path);
+            } catch (IOException e) {
+                System.out.println("❌ Could not save velocity windows to " + path + ": " + e.getMessage());
+            }
+        };
+        scheduler().scheduleWithFixedDelay(saver, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(saver, "velocity-snapshot-shutdown"));
+    }
+
+    // Run evictIdle every periodMinutes, whether or not snapshots are enabled
+    public void enableEviction(long periodMinutes) {
+        scheduler().scheduleWithFixedDelay(() -> {
+            int evicted = evictIdle();
+            if (evicted > 0) {
+                System.out.println("🧹 Velocity windows evicted: " + evicted + " idle wallets");
+            }
+        }, periodMinutes, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "velocity-maintenance");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return scheduler;
+    }
+
+    // ---------- Per-wallet window ----------
+
+    private static final class Window {
+        final double[] hourAmounts = new double[HOURS];
+        final int[] hourCounts = new int[HOURS];
+        final double[] dayAmounts = new double[DAYS];
+        final int[] dayCounts = new int[DAYS];
+        long hour;  // absolute hour of the newest hourly bucket
+        long day;   // absolute day of the newest daily bucket
+        double hourSum;
+        int hourCount;
+        double daySum;
+        int dayCount;
+
+        Window(long hour, long day) {
+            this.hour = hour;
+            this.day = day;
+        }
+
+        // Expire buckets older than the window; at most HOURS + DAYS steps
+        void advance(long nowHour, long nowDay) {
+            if (nowHour > hour) {
+                if (nowHour - hour >= HOURS) {
+                    Arrays.fill(hourAmounts, 0);
+                    Arrays.fill(hourCounts, 0);
+                    hourSum = 0;
+                    hourCount = 0;
+                } else {
+                    for (long h = hour + 1; h <= nowHour; h++) {
+                        int i = (int) (h % HOURS);
+                        hourSum -= hourAmounts[i];
+                        hourCount -= hourCounts[i];
+                        hourAmounts[i] = 0;
+                        hourCounts[i] = 0;
+                    }
+                    hourSum = Math.max(0, hourSum); // floating-point residue
+                }
+                hour = nowHour;
+            }
+            if (nowDay > day) {
+                if (nowDay - day >= DAYS) {
+                    Arrays.fill(dayAmounts, 0);
+                    Arrays.fill(dayCounts, 0);
+                    daySum = 0;
+                    dayCount = 0;
+                } else {
+                    for (long d = day + 1; d <= nowDay; d++) {
+                        int i = (int) (d % DAYS);
+                        daySum -= dayAmounts[i];
+                        dayCount -= dayCounts[i];
+                        dayAmounts[i] = 0;
+                        dayCounts[i] = 0;
+                    }
+                    daySum = Math.max(0, daySum);
+                }
+                day = nowDay;
+            }
+        }
+
+        void add(double amount) {
+            int h = (int) (hour % HOURS);
+            int d = (int) (day % DAYS);
+            hourAmounts[h] += amount;
+            hourCounts[h]++;
+            dayAmounts[d] += amount;
+            dayCounts[d]++;
+            hourSum += amount;
+            hourCount++;
+            daySum += amount;
+            dayCount++;
+        }
+
+        void recomputeTotals() {
+            hourSum = 0;
+            hourCount = 0;
+            daySum = 0;
+            dayCount = 0;
+            for (int i = 0; i < HOURS; i++) {
+                hourSum += hourAmounts[i];
+                hourCount += hourCounts[i];
+            }
+            for (int i = 0; i < DAYS; i++) {
+                daySum += dayAmounts[i];
+                dayCount += dayCounts[i];
+            }
+        }
+    }
+}
@@ -18,3 +18,35 @@ class TransactionLimitExceededException extends Exception {
         super(message);
     }
 }
+
+// Thrown by ExchangeRateService.convert when the rate is older than the
+// staleness threshold and stale rates are rejected (unchecked: convert() is
+// called from many places that predate staleness checks)
+class StaleRateException extends RuntimeException {
+    public StaleRateException(String message) {
+        super(message);
+    }
+}
+
+// Thrown by QuoteService.issue when newer quotes keep lapping the ring before
+// this one can take its slot (unchecked, like StaleRateException: both mean
+// "no quote right now", not a caller error)
+class QuoteCapacityException extends RuntimeException {
+    public QuoteCapacityException(String message) {
+        super(message);
+    }
+}
+
+// Custom exception for transfers blocked by fraud screening
+class FraudSuspectedException extends Exception {
+    public FraudSuspectedException(String message) {
+        super(message);
+    }
+}
+
+// Thrown by BlockchainService.sendMoneyAtQuote for an expired, unknown or spent quote
+class InvalidQuoteException extends Exception {
+    public InvalidQuoteException(String message) {
+        super(message);
+    }
+}
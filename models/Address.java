@@ -0,0 +1,150 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+// Address - compact, immutable wallet address
+// Hex addresses ("0x" + up to 40 hex digits) are parsed once into 160 packed bits
+// (two longs + an int) with a precomputed hash, so map lookups and equality checks
+// are a few integer compares instead of a full string hash/equals. Hex digits are
+// compared case-insensitively, like on-chain addresses. Anything else (external
+// wallets typed by hand) keeps its original text and compares by that text.
+//
+// Address.of() returns a canonical instance from a shared pool, so every
+// transaction, guardian and registry entry for the same wallet shares one object.
+// The pool never shrinks: text from outside (API requests, typed recipients) goes
+// through parse() or BlockchainService.resolveAddress() instead.
+public final class Address {
+    private static final int MAX_HEX_DIGITS = 40;
+    private static final ConcurrentHashMap<Address, Address> POOL = new ConcurrentHashMap<>();
+
+    private final long lo;      // hex digits 1-16 (from the right)
+    private final long hi;      // hex digits 17-32
+    private final int top;      // hex digits 33-40
+    private final byte digits;  // number of hex digits, or -1 for a non-hex address
+    private final boolean upper;
+    private final String raw;   // original text for non-hex or mixed-case addresses, else null
+    private final int hash;
+    private String text;        // lazily rendered display form (benign race, like String.hash)
+
+    private Address(long lo, long hi, int top, int digits, boolean upper, String raw) {
+        this.lo = lo;
+        this.hi = hi;
+        this.top = top;
+        this.digits = (byte) digits;
+        this.upper = upper;
+        this.raw = raw;
+        this.hash = (digits < 0) ? raw.hashCode() : mix(lo, hi, top, digits);
+        this.text = raw;
+    }
+
+    // Canonical (pooled) address for the given text
+    public static Address of(String text) {
+        Address parsed = parse(text);
+        Address existing = POOL.putIfAbsent(parsed, parsed);
+        return existing != null ? existing : parsed;
+    }
+
+    // Parses without pooling; use for one-off lookups of addresses that may not exist
+    public static Address parse(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Address cannot be null");
+        }
+        int n = text.length();
+        if (n < 3 || n - 2 > MAX_HEX_DIGITS || text.charAt(0) != '0' || text.charAt(1) != 'x') {
+            return new Address(0, 0, 0, -1, false, text);
+        }
+        long lo = 0;
+        long hi = 0;
+        int top = 0;
+        boolean sawLower = false;
+        boolean sawUpper = false;
+        for (int i = 2; i < n; i++) {
+            char c = text.charAt(i);
+            int v;
+            if (c >= '0' && c <= '9') {
+                v = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                v = c - 'a' + 10;
+                sawLower = true;
+            } else if (c >= 'A' && c <= 'F') {
+                v = c - 'A' + 10;
+                sawUpper = true;
+            } else {
+                return new Address(0, 0, 0, -1, false, text);
+            }
+            // Shift the 160-bit value left by one hex digit
+            top = (top << 4) | (int) (hi >>> 60);
+            hi = (hi << 4) | (lo >>> 60);
+            lo = (lo << 4) | v;
+        }
+        boolean mixed = sawLower && sawUpper;
+        return new Address(lo, hi, top, n - 2, sawUpper, mixed ? text : null);
+    }
+
+    // Length of the textual form, without rendering it
+    public int length() {
+        return (digits < 0) ? raw.length() : digits + 2;
+    }
+
+    public boolean isHex() {
+        return digits >= 0;
+    }
+
+    // Number of canonical addresses currently pooled
+    public static int poolSize() {
+        return POOL.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Address)) return false;
+        Address other = (Address) o;
+        if (hash != other.hash || digits != other.digits) return false;
+        if (digits < 0) return raw.equals(other.raw);
+        return lo == other.lo && hi == other.hi && top == other.top;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        String s = text;
+        if (s == null) {
+            s = render();
+            text = s;
+        }
+        return s;
+    }
+
+    private String render() {
+        char[] out = new char[digits + 2];
+        out[0] = '0';
+        out[1] = 'x';
+        char[] alphabet = upper ? UPPER : LOWER;
+        for (int d = 0; d < digits; d++) {
+            int nibble;
+            if (d < 16) {
+                nibble = (int) (lo >>> (4 * d)) & 0xF;
+            } else if (d < 32) {
+                nibble = (int) (hi >>> (4 * (d - 16))) & 0xF;
+            } else {
+                nibble = (top >>> (4 * (d - 32))) & 0xF;
+            }
+            out[digits + 1 - d] = alphabet[nibble];
+        }
+        return new String(out);
+    }
+
+    private static final char[] LOWER = "0123456789abcdef".toCharArray();
+    private static final char[] UPPER = "0123456789ABCDEF".toCharArray();
+
+    private static int mix(long lo, long hi, int top, int digits) {
+        long h = lo * 0x9E3779B97F4A7C15L;
+        h ^= Long.rotateLeft(hi * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= ((long) top << 8 | digits) * 0x165667B19E3779F9L;
+        h ^= h >>> 29;
+        return (int) (h ^ (h >>> 32));
+    }
+}
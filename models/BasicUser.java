@@ -1,20 +1,12 @@
-// BasicUser - lower limits, higher fees
+// BasicUser - lower limits, higher fees (rules for tier 'basic' in FeeSchedule)
 public class BasicUser extends User {
-    private static final double TRANSACTION_LIMIT = 500.0; // $500 max
-    private static final double FEE_PERCENTAGE = 0.01; // 1% fee
-    
     public BasicUser(String name, String walletAddress, String encryptedPrivateKey) {
         super(name, walletAddress, encryptedPrivateKey);
     }
     
     @Override
-    public double getTransactionLimit() {
-        return TRANSACTION_LIMIT;
-    }
-    
-    @Override
-    public double calculateTransactionFee(double amount) {
-        return amount * FEE_PERCENTAGE;
+    protected int getDefaultTierCode() {
+        return TIER_BASIC;
     }
     
     @Override
@@ -60,23 +52,15 @@ public class BasicUser extends User {
     }
 }
 
-// PremiumUser - higher limits, lower fees
+// PremiumUser - higher limits, lower fees (rules for tier 'premium' in FeeSchedule)
 class PremiumUser extends User {
-    private static final double TRANSACTION_LIMIT = 10000.0; // $10,000 max
-    private static final double FEE_PERCENTAGE = 0.005; // 0.5% fee
-    
     public PremiumUser(String name, String walletAddress, String encryptedPrivateKey) {
         super(name, walletAddress, encryptedPrivateKey);
     }
     
     @Override
-    public double getTransactionLimit() {
-        return TRANSACTION_LIMIT;
-    }
-    
-    @Override
-    public double calculateTransactionFee(double amount) {
-        return amount * FEE_PERCENTAGE;
+    protected int getDefaultTierCode() {
+        return TIER_PREMIUM;
     }
     
     @Override
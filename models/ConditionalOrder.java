@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ConditionalOrder - a transfer waiting for a good rate
+// "Send 200 USDT to this PHP wallet when 1 USDT buys at least 58 PHP, or when
+// the recommendation is EXCELLENT". Any condition that is set can fire it;
+// ConditionalOrderBook indexes it and executes it at most once.
+public class ConditionalOrder {
+
+    public enum Status {
+        PENDING, TRIGGERED, EXECUTED, FAILED, CANCELLED
+    }
+
+    private static final AtomicLong orderCounter = new AtomicLong(0);
+
+    private final long orderId;
+    private final User sender;
+    private final Address recipient;
+    private final double amountUSDT;
+    private final String currency;
+    private final double rateAtLeast;  // NaN = no lower rate trigger
+    private final double rateAtMost;   // NaN = no upper rate trigger
+    private final boolean onExcellent;
+    private volatile Status status = Status.PENDING;
+    private volatile double triggerRate = Double.NaN;
+    private volatile long triggerVersion;
+    private volatile String failureReason;
+
+    public ConditionalOrder(User sender, Address recipient, double amountUSDT, String currency,
+                            double rateAtLeast, double rateAtMost, boolean onExcellent) {
+        this.orderId = orderCounter.incrementAndGet();
+        this.sender = sender;
+        this.recipient = recipient;
+        this.amountUSDT = amountUSDT;
+        this.currency = currency;
+        this.rateAtLeast = rateAtLeast;
+        this.rateAtMost = rateAtMost;
+        this.onExcellent = onExcellent;
+    }
+
+    void triggered(double rate, long snapshotVersion) {
+        this.triggerRate = rate;
+        this.triggerVersion = snapshotVersion;
+        this.status = Status.TRIGGERED;
+    }
+
+    void setStatus(Status status) { this.status = status; }
+    void setFailureReason(String failureReason) { this.failureReason = failureReason; }
+
+    public boolean hasRateAtLeast() { return !Double.isNaN(rateAtLeast); }
+    public boolean hasRateAtMost() { return !Double.isNaN(rateAtMost); }
+
+    // Getters
+    public long getOrderId() { return orderId; }
+    public User getSender() { return sender; }
+    public Address getRecipient() { return recipient; }
+    public double getAmountUSDT() { return amountUSDT; }
+    public String getCurrency() { return currency; }
+    public double getRateAtLeast() { return rateAtLeast; }
+    public double getRateAtMost() { return rateAtMost; }
+    public boolean isOnExcellent() { return onExcellent; }
+    public Status getStatus() { return status; }
+    public double getTriggerRate() { return triggerRate; }
+    public long getTriggerVersion() { return triggerVersion; }
+    public String getFailureReason() { return failureReason; }
+
+    // Stream this order as a JSON object (unset conditions are null)
+    public void writeJson(JsonWriter json) throws IOException {
+        json.beginObject()
+            .field("id", orderId)
+            .field("sender", sender.getWalletAddress())
+            .field("recipient", recipient.toString())
+            .field("amountUSDT", amountUSDT)
+            .field("currency", currency)
+            .field("rateAtLeast", rateAtLeast)
+            .field("rateAtMost", rateAtMost)
+            .field("whenExcellent", onExcellent)
+            .field("status", status.name())
+            .field("triggerRate", triggerRate)
+            .field("triggerVersion", triggerVersion);
+        if (failureReason != null) {
+            json.field("failure", failureReason);
+        }
+        json.endObject();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder when = new StringBuilder();
+        if (hasRateAtLeast()) {
+            when.append("rate >= ").append(rateAtLeast);
+        }
+        if (hasRateAtMost()) {
+            when.append(when.length() > 0 ? " or " : "").append("rate <= ").append(rateAtMost);
+        }
+        if (onExcellent) {
+            when.append(when.length() > 0 ? " or " : "").append("EXCELLENT");
+        }
+        return String.format("[ORD%d] %.2f USDT -> %s to %s when %s | Status: %s%s", orderId, amountUSDT, currency,
+            recipient, when, status, Double.isNaN(triggerRate) ? "" : " @ " + triggerRate);
+    }
+}
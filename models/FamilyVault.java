@@ -1,31 +1,80 @@
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// FamilyVault - funds released by a majority of guardians
+// Every operation that reads or changes guardians, requests or the released
+// amount runs under the vault's own monitor, so votes on one vault apply
+// strictly one at a time (no lost votes, no double release) while different
+// vaults never contend. Getters hand out copies of the lists.
+//
+// Every distinct guardian address gets a dense voter number within the vault
+// when it is first added; requests record votes as bitsets over those numbers,
+// and guardians and requests have hash indexes, so a vote costs O(1) however
+// many guardians and requests the vault has. An address listed more than once
+// keeps its one voter number, so handing over to a later entry cannot let it
+// vote again. guardianIndex holds only addresses with an active entry, so its
+// size is the number of distinct active voters the majority is taken over.
+//
+// An open request expires after -Dvaults.requestTtlMs (default 7 days) if no
+// majority decides it first. Expiry runs on one timing wheel shared by every
+// vault (-Dvaults.expiryTickMs, default 1000), which drops the request from
+// the vault's pending set; the guardians are notified from a separate
+// notifier thread so printing never holds up the wheel.
 public class FamilyVault {
     private String vaultId;
     private String vaultName;
     private String purpose;
     private double totalAmount;
-    private double releasedAmount;
-    private String creatorAddress;
+    private volatile double releasedAmount; // written under the monitor, read anywhere
+    private Address creatorAddress;
     private ArrayList<Guardian> guardians;
     private ArrayList<WithdrawalRequest> requests;
+    private final HashMap<Address, Integer> guardianIndex = new HashMap<>(); // list index of the active entry that votes
+    private final HashMap<Address, Integer> voterIndex = new HashMap<>();    // bit in the request bitsets
+    private final HashMap<String, WithdrawalRequest> requestIndex = new HashMap<>();
+    private final LinkedHashSet<WithdrawalRequest> pendingRequests = new LinkedHashSet<>();
     private VaultStatus status;
     private LocalDateTime createdDate;
-    private static int vaultCounter = 1000;
+    private volatile VaultService registry; // keeps its participant index current; null for standalone or dropped vaults
+    private static final AtomicInteger vaultCounter = new AtomicInteger(1000);
+
+    // Shared request expiry (holder idiom: the wheel thread starts with the first request)
+    private static class Expiry {
+        static final long TTL_MILLIS = Long.getLong("vaults.requestTtlMs", 7L * 24 * 60 * 60 * 1000);
+        // One thread, so the lines of different notices never interleave
+        static final ExecutorService NOTIFIER = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "vault-expiry-notifier");
+            t.setDaemon(true);
+            return t;
+        });
+        static final TimingWheel<WithdrawalRequest> WHEEL = start();
+
+        private static TimingWheel<WithdrawalRequest> start() {
+            TimingWheel<WithdrawalRequest> wheel = new TimingWheel<>("vault-request-expiry",
+                Long.getLong("vaults.expiryTickMs", 1000L), request -> request.getVault().expireRequest(request));
+            wheel.start();
+            return wheel;
+        }
+    }
     
     public enum VaultStatus {
         ACTIVE, LOCKED, DISPUTED, COMPLETED
     }
     
     public FamilyVault(String vaultName, String purpose, double totalAmount, String creatorAddress) {
-        this.vaultId = "VAULT" + (++vaultCounter);
+        this.vaultId = "VAULT" + vaultCounter.incrementAndGet();
         this.vaultName = vaultName;
         this.purpose = purpose;
         this.totalAmount = totalAmount;
         this.releasedAmount = 0.0;
-        this.creatorAddress = creatorAddress;
+        this.creatorAddress = Address.of(creatorAddress);
         this.guardians = new ArrayList<>();
         this.requests = new ArrayList<>();
         this.status = VaultStatus.ACTIVE;
@@ -33,9 +82,64 @@ public class FamilyVault {
     }
     
     public void addGuardian(Guardian guardian) {
-        guardians.add(guardian);
+        synchronized (this) {
+            // Joined before the activity check: a concurrent deactivate() either is
+            // seen here or calls back into guardianDeactivated once we release the monitor
+            guardian.joinedVault(this);
+            // An address that is listed twice votes through its first active entry
+            Integer existing = guardianIndex.get(guardian.getAddress());
+            if (guardian.isActive() && (existing == null || !guardians.get(existing).isActive())) {
+                guardianIndex.put(guardian.getAddress(), guardians.size());
+            }
+            voterIndex.putIfAbsent(guardian.getAddress(), voterIndex.size());
+            guardians.add(guardian);
+        }
+        // Outside the monitor: the index takes its own per-address lock and calls back into isParticipant
+        VaultService owner = registry;
+        if (owner != null) {
+            owner.onGuardianAdded(this, guardian);
+        }
         System.out.println("✅ Guardian added: " + guardian.getName());
     }
+
+    // Under the monitor, so a detach (null) waits out any callback already in
+    // progress there and no later callback reaches the old registry
+    synchronized void attach(VaultService registry) {
+        this.registry = registry;
+    }
+
+    // Called by Guardian.deactivate()
+    void guardianDeactivated(Guardian guardian) {
+        synchronized (this) {
+            // Let a later active entry for the same address vote in its place (the
+            // voter number, and with it any votes already cast, stays the same)
+            Address address = guardian.getAddress();
+            Integer current = guardianIndex.get(address);
+            if (current != null && guardians.get(current) == guardian) {
+                guardianIndex.remove(address); // no longer a voter unless another entry is active
+                for (int i = current + 1; i < guardians.size(); i++) {
+                    Guardian g = guardians.get(i);
+                    if (g.isActive() && g.getAddress().equals(address)) {
+                        guardianIndex.put(address, i);
+                        break;
+                    }
+                }
+            }
+        }
+        VaultService owner = registry;
+        if (owner != null) {
+            owner.onGuardianDeactivated(this, guardian);
+        }
+    }
+
+    // Whether address created this vault or is one of its active guardians
+    public synchronized boolean isParticipant(Address address) {
+        if (creatorAddress.equals(address)) {
+            return true;
+        }
+        int index = findGuardian(address);
+        return index >= 0 && guardians.get(index).isActive();
+    }
     
     public double getRemainingBalance() {
         return totalAmount - releasedAmount;
@@ -49,7 +153,16 @@ public class FamilyVault {
         WithdrawalRequest request = new WithdrawalRequest(
             vaultId, requesterAddress, amount, purpose, proofDescription
         );
-        requests.add(request);
+        synchronized (this) {
+            requests.add(request);
+            requestIndex.put(request.getRequestId(), request);
+            pendingRequests.add(request);
+            if (registry != null) {
+                registry.onRequestFiled();
+            }
+            request.attachTo(this); // before scheduling, so the wheel thread sees the vault
+            request.setExpiry(Expiry.WHEEL.schedule(request, Expiry.TTL_MILLIS));
+        }
         notifyGuardians(request);
     }
     
@@ -58,34 +171,89 @@ public class FamilyVault {
         System.out.println("New withdrawal request in vault: " + vaultName);
         System.out.println("Amount: $" + request.getAmount());
         System.out.println("Purpose: " + request.getPurpose());
-        for (Guardian guardian : guardians) {
+        for (Guardian guardian : getGuardians()) {
+            System.out.println("📧 Notified: " + guardian.getName());
+        }
+    }
+
+    // Called on the expiry wheel's thread when the request's TTL has passed
+    void expireRequest(WithdrawalRequest request) {
+        synchronized (this) {
+            if (request.getStatus() != WithdrawalRequest.RequestStatus.PENDING) {
+                return; // decided in the meantime
+            }
+            close(request, WithdrawalRequest.RequestStatus.EXPIRED);
+        }
+        Expiry.NOTIFIER.execute(() -> notifyExpired(request));
+    }
+
+    private void notifyExpired(WithdrawalRequest request) {
+        System.out.println("\n🔔 NOTIFICATION TO ALL GUARDIANS:");
+        System.out.println("⌛ Withdrawal request " + request.getRequestId() + " in vault " + vaultName
+            + " expired without a majority ($" + request.getAmount() + " for " + request.getPurpose() + ")");
+        for (Guardian guardian : getGuardians()) {
             System.out.println("📧 Notified: " + guardian.getName());
         }
     }
+
+    // Caller holds the monitor
+    private void close(WithdrawalRequest request, WithdrawalRequest.RequestStatus status) {
+        request.setStatus(status);
+        if (pendingRequests.remove(request) && registry != null) {
+            registry.onRequestClosed();
+        }
+        request.cancelExpiry();
+    }
     
     public boolean processApproval(String requestId, String guardianAddress, boolean approve) {
+        VaultApprovalEvent event = new VaultApprovalEvent();
+        event.begin();
+        boolean released;
+        synchronized (this) {
+            released = applyApproval(requestId, guardianAddress, approve);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.vaultId = vaultId;
+            event.requestId = requestId;
+            event.guardian = guardianAddress;
+            event.approve = approve;
+            event.released = released;
+            event.commit();
+        }
+        return released;
+    }
+    
+    private boolean applyApproval(String requestId, String guardianAddress, boolean approve) {
         WithdrawalRequest request = findRequest(requestId);
         if (request == null) return false;
+        // A decided request takes no more votes (late approvals used to release it again)
+        if (request.getStatus() != WithdrawalRequest.RequestStatus.PENDING) return false;
         
-        Guardian guardian = findGuardian(guardianAddress);
-        if (guardian == null) return false;
+        Address address = Address.parse(guardianAddress);
+        int index = findGuardian(address);
+        if (index < 0) return false;
+        Guardian guardian = guardians.get(index);
+        if (!guardian.isActive()) return false;
+        int voter = voterIndex.get(address);
         
         if (approve) {
-            request.addApproval(guardianAddress);
+            request.addApproval(voter);
             System.out.println("✅ " + guardian.getName() + " APPROVED request " + requestId);
         } else {
-            request.addRejection(guardianAddress);
+            request.addRejection(voter);
             System.out.println("❌ " + guardian.getName() + " REJECTED request " + requestId);
         }
         
-        // Check if enough approvals
-        int requiredApprovals = (guardians.size() + 1) / 2; // Majority
+        // Majority of distinct active voters (not of list entries, which include
+        // deactivated guardians and repeated addresses)
+        int requiredApprovals = (guardianIndex.size() + 1) / 2;
         
         if (request.getApprovalCount() >= requiredApprovals) {
             processRelease(request);
             return true;
         } else if (request.getRejectionCount() >= requiredApprovals) {
-            request.setStatus(WithdrawalRequest.RequestStatus.REJECTED);
+            close(request, WithdrawalRequest.RequestStatus.REJECTED);
             System.out.println("❌ Request REJECTED by majority");
             return false;
         }
@@ -96,7 +264,10 @@ public class FamilyVault {
     private void processRelease(WithdrawalRequest request) {
         if (getRemainingBalance() >= request.getAmount()) {
             releasedAmount += request.getAmount();
-            request.setStatus(WithdrawalRequest.RequestStatus.APPROVED);
+            if (registry != null) {
+                registry.onFundsReleased(request.getAmount());
+            }
+            close(request, WithdrawalRequest.RequestStatus.APPROVED);
             System.out.println("\n💰 FUNDS RELEASED!");
             System.out.println("Amount: $" + request.getAmount());
             System.out.println("Purpose: " + request.getPurpose());
@@ -107,21 +278,13 @@ public class FamilyVault {
     }
     
     private WithdrawalRequest findRequest(String requestId) {
-        for (WithdrawalRequest req : requests) {
-            if (req.getRequestId().equals(requestId)) {
-                return req;
-            }
-        }
-        return null;
+        return requestIndex.get(requestId);
     }
     
-    private Guardian findGuardian(String address) {
-        for (Guardian g : guardians) {
-            if (g.getWalletAddress().equals(address)) {
-                return g;
-            }
-        }
-        return null;
+    // Dense index of the guardian voting as address, -1 if none
+    private int findGuardian(Address address) {
+        Integer index = guardianIndex.get(address);
+        return (index != null) ? index : -1;
     }
     
     // Getters
@@ -130,29 +293,69 @@ public class FamilyVault {
     public String getPurpose() { return purpose; }
     public double getTotalAmount() { return totalAmount; }
     public double getReleasedAmount() { return releasedAmount; }
-    public String getCreatorAddress() { return creatorAddress; }
-    public ArrayList<Guardian> getGuardians() { return guardians; }
-    public ArrayList<WithdrawalRequest> getRequests() { return requests; }
+    public String getCreatorAddress() { return creatorAddress.toString(); }
+    public Address getCreator() { return creatorAddress; }
+    public synchronized ArrayList<Guardian> getGuardians() { return new ArrayList<>(guardians); }
+    public synchronized ArrayList<WithdrawalRequest> getRequests() { return new ArrayList<>(requests); }
     public VaultStatus getStatus() { return status; }
     public String getCreatedDate() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         return createdDate.format(formatter);
     }
     
-    public ArrayList<WithdrawalRequest> getPendingRequests() {
-        ArrayList<WithdrawalRequest> pending = new ArrayList<>();
+    public synchronized ArrayList<WithdrawalRequest> getPendingRequests() {
+        return new ArrayList<>(pendingRequests);
+    }
+
+    public synchronized int getPendingCount() {
+        return pendingRequests.size();
+    }
+    
+    // Stream this vault (with guardians and requests) as a JSON object
+    public void writeJson(JsonWriter json) throws IOException {
+        ArrayList<Guardian> guardians = getGuardians(); // copies: no lock held while writing
+        ArrayList<WithdrawalRequest> requests = getRequests();
+        json.beginObject()
+            .field("id", vaultId)
+            .field("name", vaultName)
+            .field("purpose", purpose)
+            .field("totalAmount", totalAmount)
+            .field("releasedAmount", releasedAmount)
+            .field("remainingBalance", getRemainingBalance())
+            .field("creator", creatorAddress.toString())
+            .field("status", status.name())
+            .field("createdDate", getCreatedDate());
+        json.name("guardians").beginArray();
+        for (Guardian g : guardians) {
+            json.beginObject()
+                .field("name", g.getName())
+                .field("walletAddress", g.getWalletAddress())
+                .field("role", g.getRole())
+                .field("active", g.isActive())
+                .endObject();
+        }
+        json.endArray();
+        json.name("requests").beginArray();
         for (WithdrawalRequest req : requests) {
-            if (req.getStatus() == WithdrawalRequest.RequestStatus.PENDING) {
-                pending.add(req);
-            }
+            json.beginObject()
+                .field("id", req.getRequestId())
+                .field("requester", req.getRequesterAddress())
+                .field("amount", req.getAmount())
+                .field("purpose", req.getPurpose())
+                .field("approvals", req.getApprovalCount())
+                .field("rejections", req.getRejectionCount())
+                .field("status", req.getStatus().name())
+                .field("requestDate", req.getRequestDate())
+                .endObject();
         }
-        return pending;
+        json.endArray();
+        json.endObject();
     }
     
     @Override
     public String toString() {
         return String.format("🏦 %s | Purpose: %s | Balance: $%.2f / $%.2f (%.1f%%) | Guardians: %d | Status: %s",
             vaultName, purpose, getRemainingBalance(), totalAmount, getProgressPercentage(), 
-            guardians.size(), status);
+            getGuardians().size(), status);
     }
 }
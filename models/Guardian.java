@@ -1,22 +1,34 @@
 public class Guardian {
     private String name;
-    private String walletAddress;
+    private Address walletAddress;
     private String role;
-    private boolean isActive;
+    private volatile boolean isActive;
+    private volatile FamilyVault vault; // the vault this guardian was added to
     
     public Guardian(String name, String walletAddress, String role) {
         this.name = name;
-        this.walletAddress = walletAddress;
+        this.walletAddress = Address.of(walletAddress);
         this.role = role;
         this.isActive = true;
     }
     
     public String getName() { return name; }
-    public String getWalletAddress() { return walletAddress; }
+    public String getWalletAddress() { return walletAddress.toString(); }
+    public Address getAddress() { return walletAddress; }
     public String getRole() { return role; }
     public boolean isActive() { return isActive; }
     
-    public void deactivate() { this.isActive = false; }
+    void joinedVault(FamilyVault vault) { this.vault = vault; }
+
+    public void deactivate() {
+        if (!isActive) {
+            return;
+        }
+        this.isActive = false;
+        if (vault != null) {
+            vault.guardianDeactivated(this);
+        }
+    }
     
     @Override
     public String toString() {
@@ -1,3 +1,5 @@
+import java.io.IOException;
+
 // SavingsPlan class - Represents different savings plan options for users
 public class SavingsPlan {
     private String planName;
@@ -76,6 +78,20 @@ public class SavingsPlan {
         return currentAmount;
     }
     
+    // Stream this plan as a JSON object
+    public void writeJson(JsonWriter json) throws IOException {
+        json.beginObject()
+            .field("name", planName)
+            .field("description", description)
+            .field("interestRate", interestRate)
+            .field("minimumAmount", minimumAmount)
+            .field("lockingPeriod", lockingPeriod)
+            .field("lockingDays", lockingDays)
+            .field("currentAmount", currentAmount)
+            .field("expectedReturn", getTotalAmount())
+            .endObject();
+    }
+    
     @Override
     public String toString() {
         return "Plan: " + planName + 
@@ -1,19 +1,25 @@
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Transaction implements Comparable<Transaction> {
     private String transactionId;
-    private String senderAddress;
-    private String recipientAddress;
+    private Address senderAddress;
+    private Address recipientAddress;
     private double amount;
     private double fee;
     private LocalDateTime timestamp;
     private String status;
     
-    private static int transactionCounter = 1000;
+    private static final AtomicInteger transactionCounter = new AtomicInteger(1000);
     
     public Transaction(String senderAddress, String recipientAddress, double amount, double fee) {
-        this.transactionId = "TXN" + (++transactionCounter);
+        this(Address.of(senderAddress), Address.of(recipientAddress), amount, fee);
+    }
+    
+    public Transaction(Address senderAddress, Address recipientAddress, double amount, double fee) {
+        this.transactionId = "TXN" + transactionCounter.incrementAndGet();
         this.senderAddress = senderAddress;
         this.recipientAddress = recipientAddress;
         this.amount = amount;
@@ -36,13 +42,26 @@ public class Transaction implements Comparable<Transaction> {
     }
     
     public String getSenderAddress() {
-        return senderAddress;
+        return senderAddress.toString();
     }
     
     public String getRecipientAddress() {
+        return recipientAddress.toString();
+    }
+    
+    public Address getSender() {
+        return senderAddress;
+    }
+    
+    public Address getRecipient() {
         return recipientAddress;
     }
     
+    // True if the wallet sent or received this transaction
+    public boolean involves(Address wallet) {
+        return senderAddress.equals(wallet) || recipientAddress.equals(wallet);
+    }
+    
     public double getAmount() {
         return amount;
     }
@@ -64,6 +83,19 @@ public class Transaction implements Comparable<Transaction> {
         return timestamp.format(formatter);
     }
     
+    // Stream this transaction as a JSON object
+    public void writeJson(JsonWriter json) throws IOException {
+        json.beginObject()
+            .field("id", transactionId)
+            .field("sender", senderAddress.toString())
+            .field("recipient", recipientAddress.toString())
+            .field("amount", amount)
+            .field("fee", fee)
+            .field("status", status)
+            .field("timestamp", getFormattedTimestamp())
+            .endObject();
+    }
+    
     // Generate HTML receipt
     public String generateHTMLReceipt(String senderName, String recipientName) {
         double totalAmount = amount + fee;
@@ -182,8 +214,13 @@ public class Transaction implements Comparable<Transaction> {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
         return String.format("[%s] %s | From: %s | To: %s | Amount: %.2f USDT | Fee: %.2f | Status: %s",
             transactionId, timestamp.format(formatter), 
-            senderAddress.substring(0, 10) + "...", 
-            recipientAddress.substring(0, 10) + "...", 
+            shortForm(senderAddress), 
+            shortForm(recipientAddress), 
             amount, fee, status);
     }
+    
+    private static String shortForm(Address address) {
+        String text = address.toString();
+        return (text.length() <= 10 ? text : text.substring(0, 10)) + "...";
+    }
 }
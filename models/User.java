@@ -3,32 +3,102 @@ import java.util.ArrayList;
 // Abstract class demonstrating INHERITANCE & POLYMORPHISM
 public abstract class User {
     protected String name;
-    protected String walletAddress;
+    protected Address walletAddress; // canonical pooled address
     protected String encryptedPrivateKey;
-    protected double balance; // in USDT
+    protected volatile double balance; // in USDT (volatile: read by concurrent request threads)
     protected ArrayList<SavingsPlan> savingsPlan; // Multiple savings plans
     
+    // Once registered, the balance lives in the BlockchainService account table
+    // and this object is just a view over its slot
+    private volatile AccountTable accounts;
+    private int slot = -1;
+    private int tier = -1; // fee tier chosen with setTier before registration, -1 = class default
+    private boolean dirty;  // changed since its PagedAccountStore record was written (store lock)
+    
+    // Default tier codes (the built-in 'basic' and 'premium' tiers)
+    public static final int TIER_BASIC = 0;
+    public static final int TIER_PREMIUM = 1;
+    
     // Constructor
     public User(String name, String walletAddress, String encryptedPrivateKey) {
         this.name = name;
-        this.walletAddress = walletAddress;
+        this.walletAddress = Address.of(walletAddress);
         this.encryptedPrivateKey = encryptedPrivateKey;
         this.balance = 0.0;
         this.savingsPlan = new ArrayList<>();
     }
     
-    // Abstract method - must be implemented by subclasses
-    public abstract double getTransactionLimit();
+    // Limits and fees come from the tier's rules in the FeeSchedule
+    public double getTransactionLimit() {
+        return FeeSchedule.getInstance().getLimit(getTierCode());
+    }
+    
+    public double calculateTransactionFee(double amount) {
+        return calculateTransactionFee(amount, null);
+    }
     
-    // Abstract method for transaction fees
-    public abstract double calculateTransactionFee(double amount);
+    // Fee for a transfer paid out in currency (its corridor's rules; null = '*')
+    public double calculateTransactionFee(double amount, String currency) {
+        return FeeSchedule.getInstance().calculateFee(getTierCode(), currency, amount);
+    }
     
     // Abstract method - each user type has different savings plans
     public abstract ArrayList<SavingsPlan> getUserSavingsPlans();
     
+    // Abstract method - tier this user type starts in (TIER_BASIC, TIER_PREMIUM)
+    protected abstract int getDefaultTierCode();
+    
+    // Fee tier: the account table's once registered, so setTier applies everywhere at once
+    public int getTierCode() {
+        AccountTable table = accounts;
+        if (table != null) {
+            return table.getTier(slot);
+        }
+        return (tier >= 0) ? tier : getDefaultTierCode();
+    }
+    
+    // Move the account to any tier defined in the FeeSchedule config, by name
+    public void setTier(String tierName) {
+        int code = FeeSchedule.getInstance().tierCode(tierName);
+        this.tier = code;
+        AccountTable table = accounts;
+        if (table != null) {
+            table.setTier(slot, code);
+        }
+    }
+    
+    // Bind this user to an account table slot (called on registration)
+    void bindAccount(AccountTable table, int slot) {
+        this.slot = slot;
+        this.accounts = table;
+    }
+    
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    AccountTable getAccountTable() {
+        return accounts;
+    }
+    
+    int getAccountSlot() {
+        return slot;
+    }
+    
     // Concrete methods
     public void updateBalance(double amount) {
-        this.balance += amount;
+        AccountTable table = accounts;
+        if (table != null) {
+            table.addBalance(slot, amount);
+            return;
+        }
+        synchronized (this) {
+            this.balance += amount;
+        }
     }
     
     public String getName() {
@@ -36,11 +106,16 @@ public abstract class User {
     }
     
     public String getWalletAddress() {
+        return walletAddress.toString();
+    }
+    
+    public Address getAddress() {
         return walletAddress;
     }
     
     public double getBalance() {
-        return balance;
+        AccountTable table = accounts;
+        return (table != null) ? table.getBalance(slot) : balance;
     }
     
     public String getEncryptedPrivateKey() {
@@ -48,7 +123,14 @@ public abstract class User {
     }
     
     public void setBalance(double balance) {
-        this.balance = balance;
+        AccountTable table = accounts;
+        if (table != null) {
+            table.setBalance(slot, balance);
+            return;
+        }
+        synchronized (this) {
+            this.balance = balance;
+        }
     }
     
     // Savings plan methods
@@ -78,6 +160,6 @@ public abstract class User {
 
     @Override
     public String toString() {
-        return "User: " + name + " | Wallet: " + walletAddress + " | Balance: " + balance + " USDT";
+        return "User: " + name + " | Wallet: " + walletAddress + " | Balance: " + getBalance() + " USDT";
     }
 }
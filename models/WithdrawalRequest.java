@@ -1,19 +1,26 @@
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class WithdrawalRequest {
     private String requestId;
     private String vaultId;
-    private String requesterAddress;
+    private Address requesterAddress;
     private double amount;
     private String purpose;
     private String proofDescription;
-    private ArrayList<String> approvals;
-    private ArrayList<String> rejections;
-    private RequestStatus status;
+    // Votes as bitsets over the vault's voter numbers, allocated on the first
+    // vote and grown with the guardian list; counts are kept alongside
+    private long[] approvals;
+    private long[] rejections;
+    private int approvalCount;
+    private int rejectionCount;
+    private volatile RequestStatus status; // changed under the vault's monitor
     private LocalDateTime requestDate;
-    private static int requestCounter = 5000;
+    private FamilyVault vault;
+    private TimingWheel.Timeout<WithdrawalRequest> expiry;
+    private static final AtomicInteger requestCounter = new AtomicInteger(5000);
     
     public enum RequestStatus {
         PENDING, APPROVED, REJECTED, EXPIRED
@@ -21,37 +28,80 @@ public class WithdrawalRequest {
     
     public WithdrawalRequest(String vaultId, String requesterAddress, double amount, 
                             String purpose, String proofDescription) {
-        this.requestId = "REQ" + (++requestCounter);
+        this.requestId = "REQ" + requestCounter.incrementAndGet();
         this.vaultId = vaultId;
-        this.requesterAddress = requesterAddress;
+        this.requesterAddress = Address.of(requesterAddress);
         this.amount = amount;
         this.purpose = purpose;
         this.proofDescription = proofDescription;
-        this.approvals = new ArrayList<>();
-        this.rejections = new ArrayList<>();
         this.status = RequestStatus.PENDING;
         this.requestDate = LocalDateTime.now();
     }
     
-    public void addApproval(String guardianAddress) {
-        if (!approvals.contains(guardianAddress)) {
-            approvals.add(guardianAddress);
+    // Record an approval by the vault's voter number (one per guardian address);
+    // false if that guardian had already approved. Called under the vault's monitor.
+    public boolean addApproval(int voter) {
+        approvals = grow(approvals, voter);
+        if (!setBit(approvals, voter)) {
+            return false;
         }
+        approvalCount++;
+        return true;
     }
     
-    public void addRejection(String guardianAddress) {
-        if (!rejections.contains(guardianAddress)) {
-            rejections.add(guardianAddress);
+    public boolean addRejection(int voter) {
+        rejections = grow(rejections, voter);
+        if (!setBit(rejections, voter)) {
+            return false;
         }
+        rejectionCount++;
+        return true;
     }
+
+    public boolean hasApproved(int voter) { return testBit(approvals, voter); }
+    public boolean hasRejected(int voter) { return testBit(rejections, voter); }
     
-    public int getApprovalCount() { return approvals.size(); }
-    public int getRejectionCount() { return rejections.size(); }
+    // Set by the owning vault under its monitor
+    void attachTo(FamilyVault vault) { this.vault = vault; }
+    void setExpiry(TimingWheel.Timeout<WithdrawalRequest> expiry) { this.expiry = expiry; }
+
+    void cancelExpiry() {
+        if (expiry != null) {
+            expiry.cancel();
+        }
+    }
+
+    FamilyVault getVault() { return vault; }
+
+    // When it expires if still undecided (0 if it was never filed with a vault)
+    public long getExpiresAtMillis() { return (expiry != null) ? expiry.getDeadlineMillis() : 0; }
+
+    public int getApprovalCount() { return approvalCount; }
+    public int getRejectionCount() { return rejectionCount; }
+
+    private static long[] grow(long[] bits, int index) {
+        int words = (index >>> 6) + 1;
+        if (bits == null) {
+            return new long[words];
+        }
+        return (bits.length >= words) ? bits : Arrays.copyOf(bits, words);
+    }
+
+    private static boolean setBit(long[] bits, int index) {
+        long mask = 1L << index; // shifts use the low six bits
+        long word = bits[index >>> 6];
+        bits[index >>> 6] = word | mask;
+        return (word & mask) == 0;
+    }
+
+    private static boolean testBit(long[] bits, int index) {
+        return bits != null && (index >>> 6) < bits.length && (bits[index >>> 6] & (1L << index)) != 0;
+    }
     
     // Getters
     public String getRequestId() { return requestId; }
     public String getVaultId() { return vaultId; }
-    public String getRequesterAddress() { return requesterAddress; }
+    public String getRequesterAddress() { return requesterAddress.toString(); }
     public double getAmount() { return amount; }
     public String getPurpose() { return purpose; }
     public String getProofDescription() { return proofDescription; }
@@ -66,6 +116,6 @@ public class WithdrawalRequest {
     @Override
     public String toString() {
         return String.format("[%s] $%.2f for '%s' | Approvals: %d | Rejections: %d | Status: %s | Date: %s",
-            requestId, amount, purpose, approvals.size(), rejections.size(), status, getRequestDate());
+            requestId, amount, purpose, approvalCount, rejectionCount, status, getRequestDate());
     }
 }
@@ -0,0 +1,195 @@
+import java.math.RoundingMode;
+
+// BulkConversion - array kernels behind ExchangeRateService.convertAll
+//
+// Each kernel is a plain counted loop over primitive arrays with the rounding
+// mode switched on once outside it, so the loop body is straight-line
+// multiply/round/divide that HotSpot's C2 unrolls and auto-vectorizes
+// (Math.rint/floor/ceil are intrinsics with vector forms on x86 and AArch64).
+// Nothing is allocated per element. The per-element currency variant gathers
+// rates by code, which vectorizes less well but is still branch-free.
+final class BulkConversion {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private BulkConversion() {
+    }
+
+    static double scale(int decimals) {
+        if (decimals < 0 || decimals >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Decimals must be between 0 and " + (POWERS_OF_TEN.length - 1)
+                + ": " + decimals);
+        }
+        return POWERS_OF_TEN[decimals];
+    }
+
+    static void checkLengths(int in, int out) {
+        if (out < in) {
+            throw new IllegalArgumentException("Output array too short: " + out + " < " + in);
+        }
+    }
+
+    // out[i] = round(amounts[i] * rate, decimals); mode null or UNNECESSARY = no rounding
+    static void convert(double[] amounts, double rate, double[] out, int decimals, RoundingMode mode) {
+        int n = amounts.length;
+        if (mode == null || mode == RoundingMode.UNNECESSARY) {
+            for (int i = 0; i < n; i++) {
+                out[i] = amounts[i] * rate;
+            }
+            return;
+        }
+        double scale = scale(decimals);
+        double k = rate * scale;
+        switch (mode) {
+            case HALF_EVEN:
+                for (int i = 0; i < n; i++) {
+                    out[i] = Math.rint(amounts[i] * k) / scale;
+                }
+                break;
+            case HALF_UP:
+                for (int i = 0; i < n; i++) {
+                    double x = amounts[i] * k;
+                    out[i] = Math.copySign(Math.floor(Math.abs(x) + 0.5), x) / scale;
+                }
+                break;
+            case HALF_DOWN:
+                for (int i = 0; i < n; i++) {
+                    double x = amounts[i] * k;
+                    out[i] = Math.copySign(Math.ceil(Math.abs(x) - 0.5), x) / scale;
+                }
+                break;
+            case FLOOR:
+                for (int i = 0; i < n; i++) {
+                    out[i] = Math.floor(amounts[i] * k) / scale;
+                }
+                break;
+            case CEILING:
+                for (int i = 0; i < n; i++) {
+                    out[i] = Math.ceil(amounts[i] * k) / scale;
+                }
+                break;
+            case DOWN:
+                for (int i = 0; i < n; i++) {
+                    double x = amounts[i] * k;
+                    out[i] = Math.copySign(Math.floor(Math.abs(x)), x) / scale;
+                }
+                break;
+            case UP:
+                for (int i = 0; i < n; i++) {
+                    double x = amounts[i] * k;
+                    out[i] = Math.copySign(Math.ceil(Math.abs(x)), x) / scale;
+                }
+                break;
+        }
+    }
+
+    // Minor units in, minor units out: out[i] = round(amounts[i] * factor), where
+    // factor = rate * 10^(outDecimals - inDecimals); UNNECESSARY rounds half-even
+    static void convert(long[] amounts, double factor, long[] out, RoundingMode mode) {
+        int n = amounts.length;
+        switch (mode) {
+            case HALF_EVEN:
+            case UNNECESSARY:
+                for (int i = 0; i < n; i++) {
+                    out[i] = (long) Math.rint(amounts[i] * factor);
+                }
+                break;
+            case HALF_UP:
+                for (int i = 0; i < n; i++) {
+                    double x = amounts[i] * factor;
+                    out[i] = (long) Math.copySign(Math.floor(Math.abs(x) + 0.5), x);
+                }
+                break;
+            case HALF_DOWN:
+                for (int i = 0; i < n; i++) {
+                    double x = amounts[i] * factor;
+                    out[i] = (long) Math.copySign(Math.ceil(Math.abs(x) - 0.5), x);
+                }
+                break;
+            case FLOOR:
+                for (int i = 0; i < n; i++) {
+                    out[i] = (long) Math.floor(amounts[i] * factor);
+                }
+                break;
+            case CEILING:
+                for (int i = 0; i < n; i++) {
+                    out[i] = (long) Math.ceil(amounts[i] * factor);
+                }
+                break;
+            case DOWN:
+                for (int i = 0; i < n; i++) {
+                    out[i] = (long) (amounts[i] * factor); // the cast truncates toward zero
+                }
+                break;
+            case UP:
+                for (int i = 0; i < n; i++) {
+                    double x = amounts[i] * factor;
+                    out[i] = (long) Math.copySign(Math.ceil(Math.abs(x)), x);
+                }
+                break;
+        }
+    }
+
+    // Per-element target currency: rates is indexed by CurrencyRegistry code
+    static void convert(double[] amounts, int[] codes, double[] rates, double[] out, int decimals,
+                        RoundingMode mode) {
+        int n = amounts.length;
+        if (mode == null || mode == RoundingMode.UNNECESSARY) {
+            for (int i = 0; i < n; i++) {
+                out[i] = amounts[i] * rates[codes[i]];
+            }
+            return;
+        }
+        double scale = scale(decimals);
+        for (int i = 0; i < n; i++) {
+            out[i] = amounts[i] * rates[codes[i]] * scale;
+        }
+        round(out, n, mode);
+        for (int i = 0; i < n; i++) {
+            out[i] /= scale;
+        }
+    }
+
+    // In-place rounding to integers (second pass of the gather kernel)
+    private static void round(double[] values, int n, RoundingMode mode) {
+        switch (mode) {
+            case HALF_EVEN:
+                for (int i = 0; i < n; i++) {
+                    values[i] = Math.rint(values[i]);
+                }
+                break;
+            case HALF_UP:
+                for (int i = 0; i < n; i++) {
+                    values[i] = Math.copySign(Math.floor(Math.abs(values[i]) + 0.5), values[i]);
+                }
+                break;
+            case HALF_DOWN:
+                for (int i = 0; i < n; i++) {
+                    values[i] = Math.copySign(Math.ceil(Math.abs(values[i]) - 0.5), values[i]);
+                }
+                break;
+            case FLOOR:
+                for (int i = 0; i < n; i++) {
+                    values[i] = Math.floor(values[i]);
+                }
+                break;
+            case CEILING:
+                for (int i = 0; i < n; i++) {
+                    values[i] = Math.ceil(values[i]);
+                }
+                break;
+            case DOWN:
+                for (int i = 0; i < n; i++) {
+                    values[i] = Math.copySign(Math.floor(Math.abs(values[i])), values[i]);
+                }
+                break;
+            case UP:
+                for (int i = 0; i < n; i++) {
+                    values[i] = Math.copySign(Math.ceil(Math.abs(values[i])), values[i]);
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+// Candles - OHLC candles copied out of a RateTickStore for one query
+// Parallel primitive arrays, oldest first; index i is one period.
+public class Candles {
+    private final long[] startNanos;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] ticks;
+
+    Candles(int size) {
+        startNanos = new long[size];
+        open = new double[size];
+        high = new double[size];
+        low = new double[size];
+        close = new double[size];
+        ticks = new long[size];
+    }
+
+    void set(int i, long start, double o, double h, double l, double c, long n) {
+        startNanos[i] = start;
+        open[i] = o;
+        high[i] = h;
+        low[i] = l;
+        close[i] = c;
+        ticks[i] = n;
+    }
+
+    public int size() {
+        return startNanos.length;
+    }
+
+    public long getStartNanos(int i) {
+        return startNanos[i];
+    }
+
+    public double getOpen(int i) {
+        return open[i];
+    }
+
+    public double getHigh(int i) {
+        return high[i];
+    }
+
+    public double getLow(int i) {
+        return low[i];
+    }
+
+    public double getClose(int i) {
+        return close[i];
+    }
+
+    public long getTickCount(int i) {
+        return ticks[i];
+    }
+
+    // Lowest low and highest high, for chart scaling ({NaN, NaN} when empty)
+    public double[] getRange() {
+        double min = Double.NaN;
+        double max = Double.NaN;
+        for (int i = 0; i < size(); i++) {
+            min = (i == 0) ? low[i] : Math.min(min, low[i]);
+            max = (i == 0) ? high[i] : Math.max(max, high[i]);
+        }
+        return new double[] {min, max};
+    }
+}
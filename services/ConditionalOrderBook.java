@@ -0,0 +1,299 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// ConditionalOrderBook - transfers that fire when a rate condition is met
+//
+// Resting orders are indexed per currency: orders waiting for the rate to rise
+// to a threshold sit in a TreeSet sorted by that threshold, orders waiting for
+// it to fall in another, and "when EXCELLENT" orders in an insertion-ordered
+// set. When a snapshot brings a fresh rate for a currency, the triggered
+// orders are exactly a prefix of the first set (thresholds <= rate) and a
+// suffix of the second (thresholds >= rate), so they are unlinked by walking
+// in from the end: O(log n + k) for k triggered orders, however many millions
+// are resting. The EXCELLENT set fires as a whole.
+//
+// Triggered orders are executed through BlockchainService.trySendMoney on
+// virtual threads, so the refresher thread that publishes rates only does the
+// index walk. An order fires at most once; one with several conditions is
+// removed from its other indexes when the first one fires.
+public class ConditionalOrderBook implements RateObserver {
+
+    // Singleton pattern (holder idiom: lazy, and safe without locking)
+    private static class Holder {
+        static final ConditionalOrderBook INSTANCE = create();
+
+        private static ConditionalOrderBook create() {
+            ConditionalOrderBook book = new ConditionalOrderBook(BlockchainService.getInstance(),
+                Executors.newVirtualThreadPerTaskExecutor());
+            ExchangeRateService.getInstance().addObserver(book);
+            return book;
+        }
+    }
+
+    private static final Comparator<ConditionalOrder> BY_RATE_AT_LEAST = (a, b) -> {
+        int c = Double.compare(a.getRateAtLeast(), b.getRateAtLeast());
+        return (c != 0) ? c : Long.compare(a.getOrderId(), b.getOrderId());
+    };
+    private static final Comparator<ConditionalOrder> BY_RATE_AT_MOST = (a, b) -> {
+        int c = Double.compare(a.getRateAtMost(), b.getRateAtMost());
+        return (c != 0) ? c : Long.compare(a.getOrderId(), b.getOrderId());
+    };
+
+    private final BlockchainService blockchain;
+    private final Executor executor;
+    private final ConcurrentHashMap<Long, ConditionalOrder> resting = new ConcurrentHashMap<>(); // by order id
+    private volatile Book[] books = new Book[0]; // by CurrencyRegistry code
+
+    private final LongAdder placed = new LongAdder();
+    private final LongAdder triggered = new LongAdder();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    ConditionalOrderBook(BlockchainService blockchain, Executor executor) {
+        this.blockchain = blockchain;
+        this.executor = executor;
+    }
+
+    public static ConditionalOrderBook getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    // ---------- Placing and cancelling ----------
+
+    // Rest an order until 1 USDT buys at least rateAtLeast / at most rateAtMost
+    // of currency (NaN = no such condition), or the recommendation is EXCELLENT
+    public ConditionalOrder place(User sender, Address recipient, double amountUSDT, String currency,
+                                  double rateAtLeast, double rateAtMost, boolean onExcellent) {
+        if (sender == null || recipient == null) {
+            throw new IllegalArgumentException("Order needs a sender and a recipient");
+        }
+        if (!(amountUSDT > 0) || Double.isInfinite(amountUSDT)) {
+            throw new IllegalArgumentException("Invalid order amount: " + amountUSDT);
+        }
+        int code = CurrencyRegistry.code(currency);
+        if (code == CurrencyRegistry.UNKNOWN) {
+            throw new IllegalArgumentException("Unknown currency: " + currency);
+        }
+        if (rateAtLeast <= 0 || rateAtMost <= 0 || Double.isInfinite(rateAtLeast) || Double.isInfinite(rateAtMost)) {
+            throw new IllegalArgumentException("Rate thresholds must be positive");
+        }
+        if (Double.isNaN(rateAtLeast) && Double.isNaN(rateAtMost) && !onExcellent) {
+            throw new IllegalArgumentException("Order needs at least one trigger condition");
+        }
+        ConditionalOrder order = new ConditionalOrder(sender, recipient, amountUSDT, currency, rateAtLeast,
+            rateAtMost, onExcellent);
+        Book book = bookFor(code);
+        synchronized (book) {
+            // Under the book lock, so fire() (which removes it) cannot run before the put
+            resting.put(order.getOrderId(), order);
+            if (order.hasRateAtLeast()) {
+                book.atLeast.add(order);
+            }
+            if (order.hasRateAtMost()) {
+                book.atMost.add(order);
+            }
+            if (onExcellent) {
+                book.onExcellent.add(order);
+            }
+            book.pending++;
+        }
+        placed.increment();
+        return order;
+    }
+
+    // Cancel a resting order; false if it is unknown or has already fired
+    public boolean cancel(long orderId) {
+        ConditionalOrder order = resting.get(orderId);
+        if (order == null) {
+            return false;
+        }
+        Book book = existing(CurrencyRegistry.code(order.getCurrency()));
+        synchronized (book) {
+            if (order.getStatus() != ConditionalOrder.Status.PENDING) {
+                return false;
+            }
+            unlink(book, order);
+            book.pending--;
+            order.setStatus(ConditionalOrder.Status.CANCELLED);
+        }
+        resting.remove(orderId);
+        return true;
+    }
+
+    // A resting order; null once it has fired or been cancelled (keep the placed
+    // ConditionalOrder to follow it after that)
+    public ConditionalOrder getOrder(long orderId) {
+        return resting.get(orderId);
+    }
+
+    // ---------- Triggering ----------
+
+    @Override
+    public void onSnapshotPublished(RateSnapshot snapshot) {
+        Book[] current = books;
+        List<ConditionalOrder> fired = new ArrayList<>();
+        for (int code = 0; code < current.length && code < snapshot.size(); code++) {
+            // Only rates fetched in this cycle: a carried-over rate was already evaluated
+            if (current[code] == null || !snapshot.hasRate(code)
+                    || snapshot.getQuotedAt(code) != snapshot.getTimestampMillis()) {
+                continue;
+            }
+            collectTriggered(code, snapshot.getRate(code), snapshot.getAverage(code), snapshot.getVersion(), fired);
+        }
+        for (ConditionalOrder order : fired) {
+            executor.execute(() -> execute(order));
+        }
+    }
+
+    // Unlink every order of currency code that rate (against its rolling average)
+    // triggers and append it to out; returns how many were triggered
+    int collectTriggered(int code, double rate, double average, long version, List<ConditionalOrder> out) {
+        Book book = existing(code);
+        if (book == null) {
+            return 0;
+        }
+        int before = out.size();
+        synchronized (book) {
+            // Waiting for the rate to rise: thresholds <= rate, smallest first
+            Iterator<ConditionalOrder> rising = book.atLeast.iterator();
+            while (rising.hasNext()) {
+                ConditionalOrder order = rising.next();
+                if (order.getRateAtLeast() > rate) {
+                    break;
+                }
+                rising.remove();
+                fire(book, order, rate, version, out);
+            }
+            // Waiting for the rate to fall: thresholds >= rate, largest first
+            Iterator<ConditionalOrder> falling = book.atMost.descendingIterator();
+            while (falling.hasNext()) {
+                ConditionalOrder order = falling.next();
+                if (order.getRateAtMost() < rate) {
+                    break;
+                }
+                falling.remove();
+                fire(book, order, rate, version, out);
+            }
+            if (!book.onExcellent.isEmpty() && !Double.isNaN(average)
+                    && ExchangeRateService.recommend(rate, average).equals("EXCELLENT")) {
+                ConditionalOrder[] all = book.onExcellent.toArray(new ConditionalOrder[0]);
+                book.onExcellent.clear();
+                for (ConditionalOrder order : all) {
+                    fire(book, order, rate, version, out);
+                }
+            }
+        }
+        int count = out.size() - before;
+        triggered.add(count);
+        return count;
+    }
+
+    // Caller holds the book lock and has already removed order from the index it fired from
+    private void fire(Book book, ConditionalOrder order, double rate, long version, List<ConditionalOrder> out) {
+        unlink(book, order); // its other conditions, if any
+        book.pending--;
+        resting.remove(order.getOrderId());
+        order.triggered(rate, version);
+        out.add(order);
+    }
+
+    private static void unlink(Book book, ConditionalOrder order) {
+        if (order.hasRateAtLeast()) {
+            book.atLeast.remove(order);
+        }
+        if (order.hasRateAtMost()) {
+            book.atMost.remove(order);
+        }
+        if (order.isOnExcellent()) {
+            book.onExcellent.remove(order);
+        }
+    }
+
+    private void execute(ConditionalOrder order) {
+        TransferCheck check = new TransferCheck();
+        TransferCheck.Reason reason = blockchain.trySendMoney(order.getSender(), order.getRecipient(),
+            order.getAmountUSDT(), order.getCurrency(), check);
+        if (reason == TransferCheck.Reason.OK) {
+            order.setStatus(ConditionalOrder.Status.EXECUTED);
+            executed.increment();
+            System.out.println("🎯 Conditional order ORD" + order.getOrderId() + " executed at "
+                + order.getTriggerRate() + " " + order.getCurrency());
+        } else {
+            order.setFailureReason(check.getMessage(order.getRecipient()));
+            order.setStatus(ConditionalOrder.Status.FAILED);
+            failed.increment();
+            System.out.println("❌ Conditional order ORD" + order.getOrderId() + " failed: "
+                + order.getFailureReason());
+        }
+    }
+
+    // ---------- Stats ----------
+
+    // Orders still waiting for currency
+    public int getPendingCount(String currency) {
+        Book book = existing(CurrencyRegistry.code(currency));
+        if (book == null) {
+            return 0;
+        }
+        synchronized (book) {
+            return book.pending;
+        }
+    }
+
+    public long getPlacedCount() {
+        return placed.sum();
+    }
+
+    public long getTriggeredCount() {
+        return triggered.sum();
+    }
+
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    // ---------- Internals ----------
+
+    private Book existing(int code) {
+        Book[] current = books;
+        return (code >= 0 && code < current.length) ? current[code] : null;
+    }
+
+    private Book bookFor(int code) {
+        Book book = existing(code);
+        if (book != null) {
+            return book;
+        }
+        synchronized (this) {
+            Book[] current = books;
+            if (code < current.length && current[code] != null) {
+                return current[code];
+            }
+            Book[] next = Arrays.copyOf(current, Math.max(current.length, code + 1));
+            next[code] = new Book();
+            books = next; // copy-on-write: readers never see a half-built array
+            return next[code];
+        }
+    }
+
+    // Resting orders of one currency
+    private static final class Book {
+        final TreeSet<ConditionalOrder> atLeast = new TreeSet<>(BY_RATE_AT_LEAST);
+        final TreeSet<ConditionalOrder> atMost = new TreeSet<>(BY_RATE_AT_MOST);
+        final LinkedHashSet<ConditionalOrder> onExcellent = new LinkedHashSet<>();
+        int pending; // orders with several conditions sit in several indexes but count once
+    }
+}
@@ -0,0 +1,67 @@
+// Conversion - result of ExchangeRateService.convert, tagged with the rate
+// snapshot it used. A reusable holder like TransferCheck: callers on hot paths
+// keep one and pass it in, so converting allocates nothing. Cross conversions
+// (ExchangeRateService.convert(amount, from, to, result)) start from another
+// currency; the amount is then in that currency rather than USDT.
+public class Conversion {
+
+    private String fromCurrency = "USDT";
+    private String currency;
+    private double amountUSDT;
+    private double rate;
+    private double converted;
+    private long snapshotVersion;
+    private boolean stale;
+
+    void set(String currency, double amountUSDT, double rate, long snapshotVersion, boolean stale) {
+        set("USDT", currency, amountUSDT, rate, snapshotVersion, stale);
+    }
+
+    void set(String fromCurrency, String currency, double amountUSDT, double rate, long snapshotVersion,
+             boolean stale) {
+        this.fromCurrency = fromCurrency;
+        this.currency = currency;
+        this.amountUSDT = amountUSDT;
+        this.rate = rate;
+        this.converted = amountUSDT * rate;
+        this.snapshotVersion = snapshotVersion;
+        this.stale = stale;
+    }
+
+    // "USDT" unless this was a cross conversion
+    public String getFromCurrency() {
+        return fromCurrency;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public double getAmountUSDT() {
+        return amountUSDT;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public double getConverted() {
+        return converted;
+    }
+
+    // RateSnapshot.getVersion() of the rates used
+    public long getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+    // The rate was older than ExchangeRateService's staleness threshold
+    public boolean isStale() {
+        return stale;
+    }
+
+    @Override
+    public String toString() {
+        return "Conversion[" + amountUSDT + " " + fromCurrency + " -> " + converted + " " + currency
+            + " @ " + rate + ", v" + snapshotVersion + (stale ? ", STALE" : "") + "]";
+    }
+}
@@ -0,0 +1,177 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+// CorridorSpreads - where we have liquidity, and what it costs, for cross-currency conversion
+//
+// Loaded from -Drates.corridors (default config/corridors.conf, falling back to
+// the built-in rules below). Immutable; CrossRateMatrix resolves it to
+// CurrencyRegistry codes on every rebuild, so currencies registered later pick
+// up their rules automatically.
+//
+// Config format (one rule per line, # comments; spreads in basis points):
+//   spread <currency|*> <bps|none>     the USDT <-> currency leg, both directions
+//                                      ('none' = no direct USDT liquidity)
+//   direct <from> <to> <bps>           direct liquidity for one direction
+// Every leg is priced off the mid rate implied by the USDT quotes, less its
+// spread. Pairs without a direct rule are routed through the cheapest chain
+// of legs (through USDT or another currency).
+public final class CorridorSpreads {
+
+    static final String BUILT_IN_RULES = String.join("\n",
+        "spread * 25",
+        "spread PHP 40",
+        "spread PKR 60",
+        "direct AED INR 15",
+        "direct AED PKR 20",
+        "direct SAR INR 20",
+        "direct EUR AED 10");
+
+    private final String source;
+    private final double defaultBps;
+    private final HashMap<String, Double> legBps;   // NaN = no liquidity
+    private final String[] directFrom;
+    private final String[] directTo;
+    private final double[] directBps;
+
+    private CorridorSpreads(String source, double defaultBps, HashMap<String, Double> legBps,
+                            List<String[]> directs, List<Double> directSpreads) {
+        this.source = source;
+        this.defaultBps = defaultBps;
+        this.legBps = legBps;
+        this.directFrom = new String[directs.size()];
+        this.directTo = new String[directs.size()];
+        this.directBps = new double[directs.size()];
+        for (int i = 0; i < directs.size(); i++) {
+            directFrom[i] = directs.get(i)[0];
+            directTo[i] = directs.get(i)[1];
+            directBps[i] = directSpreads.get(i);
+        }
+    }
+
+    // The configured corridors; a missing or broken file falls back to the built-in rules
+    public static CorridorSpreads load() {
+        Path path = Path.of(System.getProperty("rates.corridors", "config/corridors.conf"));
+        if (Files.exists(path)) {
+            try {
+                return parse(Files.readString(path), path.toString());
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("❌ Corridor config " + path + " rejected, using built-in rules: " + e.getMessage());
+            }
+        }
+        return parse(BUILT_IN_RULES, "built-in");
+    }
+
+    public static CorridorSpreads parse(String text, String source) {
+        double defaultBps = 0;
+        HashMap<String, Double> legBps = new HashMap<>();
+        List<String[]> directs = new ArrayList<>();
+        List<Double> directSpreads = new ArrayList<>();
+        String[] lines = text.split("\n");
+        for (int n = 0; n < lines.length; n++) {
+            String line = lines[n];
+            int hash = line.indexOf('#');
+            if (hash >= 0) {
+                line = line.substring(0, hash);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] f = line.split("\\s+");
+            String where = source + ":" + (n + 1);
+            try {
+                switch (f[0]) {
+                    case "spread":
+                        expect(f, 3, where);
+                        double bps = f[2].equals("none") ? Double.NaN : parseBps(f[2], where);
+                        if (f[1].equals("*")) {
+                            if (Double.isNaN(bps)) {
+                                throw new IllegalArgumentException(where + ": the default spread cannot be 'none'");
+                            }
+                            defaultBps = bps;
+                        } else {
+                            legBps.put(f[1].toUpperCase(), bps);
+                        }
+                        break;
+                    case "direct":
+                        expect(f, 4, where);
+                        String from = f[1].toUpperCase();
+                        String to = f[2].toUpperCase();
+                        if (from.equals(to)) {
+                            throw new IllegalArgumentException(where + ": corridor from " + from + " to itself");
+                        }
+                        directs.add(new String[] {from, to});
+                        directSpreads.add(parseBps(f[3], where));
+                        break;
+                    default:
+                        throw new IllegalArgumentException(where + ": unknown directive '" + f[0] + "'");
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(where + ": bad number (" + e.getMessage() + ")");
+            }
+        }
+        return new CorridorSpreads(source, defaultBps, legBps, directs, directSpreads);
+    }
+
+    private static double parseBps(String text, String where) {
+        double bps = Double.parseDouble(text);
+        // A negative spread would pay out more than the mid and make routing cycles profitable
+        if (!(bps >= 0 && bps < 10_000)) {
+            throw new IllegalArgumentException(where + ": spread must be in [0, 10000) bps: " + text);
+        }
+        return bps;
+    }
+
+    private static void expect(String[] fields, int count, String where) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException(where + ": expected " + count + " fields");
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    // Spread of the USDT <-> currency leg in bps, NaN if there is no USDT liquidity
+    public double getLegBps(String currency) {
+        Double bps = legBps.get(currency);
+        return (bps == null) ? defaultBps : bps;
+    }
+
+    // ---------- Resolution to CurrencyRegistry codes (CrossRateMatrix.build) ----------
+
+    // Leg spreads for codes [0, size)
+    double[] resolveLegBps(int size) {
+        double[] bps = new double[size];
+        for (int code = 0; code < size; code++) {
+            bps[code] = getLegBps(CurrencyRegistry.name(code));
+        }
+        return bps;
+    }
+
+    public int getDirectCount() {
+        return directFrom.length;
+    }
+
+    // Fills pairs with (from, to) codes and bps with the spread of each direct
+    // corridor (arrays sized for getDirectCount()); rules naming unregistered
+    // currencies are skipped. Returns the number of corridors filled in.
+    int resolveDirects(int[] pairs, double[] bps) {
+        int count = 0;
+        for (int i = 0; i < directFrom.length; i++) {
+            int from = CurrencyRegistry.code(directFrom[i]);
+            int to = CurrencyRegistry.code(directTo[i]);
+            if (from != CurrencyRegistry.UNKNOWN && to != CurrencyRegistry.UNKNOWN) {
+                pairs[2 * count] = from;
+                pairs[2 * count + 1] = to;
+                bps[count] = directBps[i];
+                count++;
+            }
+        }
+        return count;
+    }
+}
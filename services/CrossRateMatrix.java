@@ -0,0 +1,216 @@
+import java.util.Arrays;
+
+// CrossRateMatrix - any-to-any conversion rates, precomputed once per rate snapshot
+//
+// Nodes are USDT (index 0) plus every CurrencyRegistry code (index code + 1).
+// rates[from * n + to] is the best rate a customer gets converting one unit of
+// "from" into "to", after spreads, and next[from * n + to] is the first hop of
+// the route achieving it, so a conversion is one array read and a route is a
+// short walk. Both are flat primitive arrays built off the hot path and never
+// mutated after construction; ExchangeRateService swaps in a new matrix with
+// each snapshot.
+//
+// Legs come from CorridorSpreads: USDT <-> currency legs and direct
+// currency -> currency corridors, each priced at the mid rate implied by the
+// USDT quotes less the leg's spread. Pairs without a direct leg (or with an
+// expensive one) take the best multi-hop route: Floyd-Warshall over the
+// max-product semiring, O(n^3) with a branch-light inner loop over contiguous
+// rows - about 3.5 ms for 150 currencies and 30 ms for 300, against a 5 s
+// refresh interval.
+// Spreads are never negative, so no cycle can be profitable and routes are
+// simple paths.
+public final class CrossRateMatrix {
+
+    public static final int USDT = 0;
+    public static final int NONE = -1;
+
+    // An improvement must beat rounding noise, or zero-spread cycles would flap routes
+    private static final double MIN_GAIN = 1 + 1e-12;
+
+    private final long version;
+    private final int n;
+    private final double[] mids;  // USDT -> node mid rate, NaN if unquoted
+    private final double[] rates;
+    private final int[] next;
+    private final long buildNanos;
+
+    private CrossRateMatrix(long version, double[] mids, double[] rates, int[] next, long buildNanos) {
+        this.version = version;
+        this.n = mids.length;
+        this.mids = mids;
+        this.rates = rates;
+        this.next = next;
+        this.buildNanos = buildNanos;
+    }
+
+    // Matrix for a snapshot's rates under the given corridors
+    public static CrossRateMatrix build(RateSnapshot snapshot, CorridorSpreads corridors) {
+        int size = snapshot.size();
+        double[] usdtRates = new double[size];
+        for (int code = 0; code < size; code++) {
+            usdtRates[code] = snapshot.hasRate(code) ? snapshot.getRate(code) : Double.NaN;
+        }
+        int[] pairs = new int[2 * corridors.getDirectCount()];
+        double[] directBps = new double[corridors.getDirectCount()];
+        int directs = corridors.resolveDirects(pairs, directBps);
+        return build(snapshot.getVersion(), usdtRates, corridors.resolveLegBps(size), pairs, directBps, directs);
+    }
+
+    // usdtRates and legBps by CurrencyRegistry code (NaN = unquoted / no USDT leg);
+    // directPairs holds (from, to) codes of directCount direct corridors
+    static CrossRateMatrix build(long version, double[] usdtRates, double[] legBps,
+                                 int[] directPairs, double[] directBps, int directCount) {
+        long start = System.nanoTime();
+        int n = usdtRates.length + 1;
+        double[] mids = new double[n];
+        mids[USDT] = 1.0;
+        for (int code = 0; code < usdtRates.length; code++) {
+            double rate = usdtRates[code];
+            mids[code + 1] = (rate > 0 && !Double.isInfinite(rate)) ? rate : Double.NaN;
+        }
+
+        double[] w = new double[n * n];   // 0 = no route
+        int[] next = new int[n * n];
+        Arrays.fill(next, NONE);
+        for (int i = 0; i < n; i++) {
+            if (!Double.isNaN(mids[i])) {
+                w[i * n + i] = 1.0;
+                next[i * n + i] = i;
+            }
+        }
+        for (int i = 1; i < n; i++) {
+            double bps = (i - 1 < legBps.length) ? legBps[i - 1] : Double.NaN;
+            if (!Double.isNaN(mids[i]) && !Double.isNaN(bps)) {
+                double keep = 1 - bps / 10_000;
+                link(w, next, n, USDT, i, mids[i] * keep);
+                link(w, next, n, i, USDT, keep / mids[i]);
+            }
+        }
+        for (int d = 0; d < directCount; d++) {
+            int from = directPairs[2 * d] + 1;
+            int to = directPairs[2 * d + 1] + 1;
+            if (from < n && to < n && !Double.isNaN(mids[from]) && !Double.isNaN(mids[to])) {
+                link(w, next, n, from, to, mids[to] / mids[from] * (1 - directBps[d] / 10_000));
+            }
+        }
+
+        // Floyd-Warshall, maximizing the product of leg rates
+        for (int k = 0; k < n; k++) {
+            int rowK = k * n;
+            if (w[rowK + k] == 0) {
+                continue; // unquoted: nothing routes through it
+            }
+            for (int i = 0; i < n; i++) {
+                int rowI = i * n;
+                double viaK = w[rowI + k];
+                if (viaK == 0 || i == k) {
+                    continue;
+                }
+                int firstHop = next[rowI + k];
+                for (int j = 0; j < n; j++) {
+                    double candidate = viaK * w[rowK + j];
+                    if (candidate > w[rowI + j] * MIN_GAIN) {
+                        w[rowI + j] = candidate;
+                        next[rowI + j] = firstHop;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < w.length; i++) {
+            if (next[i] == NONE) {
+                w[i] = Double.NaN;
+            }
+        }
+        return new CrossRateMatrix(version, mids, w, next, System.nanoTime() - start);
+    }
+
+    private static void link(double[] w, int[] next, int n, int from, int to, double rate) {
+        if (rate > w[from * n + to]) {
+            w[from * n + to] = rate;
+            next[from * n + to] = to;
+        }
+    }
+
+    // ---------- Lookups ----------
+
+    // Matrix index of a currency (USDT or a registered code), NONE if not in this matrix
+    public int index(String currency) {
+        if (currency.equals("USDT")) {
+            return USDT;
+        }
+        int code = CurrencyRegistry.code(currency);
+        return (code == CurrencyRegistry.UNKNOWN || code + 1 >= n) ? NONE : code + 1;
+    }
+
+    public static String name(int index) {
+        return (index == USDT) ? "USDT" : CurrencyRegistry.name(index - 1);
+    }
+
+    // Units of "to" per unit of "from" along the best route, after spreads; NaN if unreachable
+    public double getRate(int from, int to) {
+        return rates[from * n + to];
+    }
+
+    public double getRate(String from, String to) {
+        int i = index(from);
+        int j = index(to);
+        return (i == NONE || j == NONE) ? Double.NaN : rates[i * n + j];
+    }
+
+    // Rate implied by the USDT quotes, before any spread; NaN if either side is unquoted
+    public double getMidRate(int from, int to) {
+        return mids[to] / mids[from];
+    }
+
+    // Total cost of the best route relative to the mid rate, in basis points
+    public double getSpreadBps(int from, int to) {
+        return (1 - getRate(from, to) / getMidRate(from, to)) * 10_000;
+    }
+
+    public boolean hasRoute(int from, int to) {
+        return next[from * n + to] != NONE;
+    }
+
+    // Legs on the best route (0 for from == to, -1 if unreachable)
+    public int getHops(int from, int to) {
+        if (next[from * n + to] == NONE) {
+            return -1;
+        }
+        int hops = 0;
+        for (int at = from; at != to; at = next[at * n + to]) {
+            hops++;
+        }
+        return hops;
+    }
+
+    // Currencies along the best route, from first to last; empty if unreachable
+    public String[] getRoute(int from, int to) {
+        int hops = getHops(from, to);
+        if (hops < 0) {
+            return new String[0];
+        }
+        String[] route = new String[hops + 1];
+        int at = from;
+        for (int h = 0; h <= hops; h++) {
+            route[h] = name(at);
+            at = next[at * n + to];
+        }
+        return route;
+    }
+
+    // ---------- Metadata ----------
+
+    // Nodes: USDT plus one per currency code
+    public int size() {
+        return n;
+    }
+
+    // RateSnapshot.getVersion() of the rates this matrix was built from
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+// CurrencyRegistry - small dense integer codes for currency names
+// Rate snapshots store one double per currency, indexed by these codes, so hot
+// paths resolve a name once and then index arrays. Codes are never reused or
+// removed; a snapshot built before a currency was registered simply has no slot
+// for it (RateSnapshot.getRate returns the default 1.0).
+public final class CurrencyRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    // Copy-on-write: registration is rare, lookups are on every conversion
+    private static volatile HashMap<String, Integer> codes = new HashMap<>();
+    private static volatile String[] names = new String[0];
+
+    static {
+        // Corridors supported out of the box (rates quoted as 1 USDT -> currency)
+        for (String currency : new String[] {"AED", "SAR", "INR", "PHP", "PKR", "EUR"}) {
+            register(currency);
+        }
+    }
+
+    private CurrencyRegistry() {
+    }
+
+    // Code for currency, registering it if new
+    public static int register(String currency) {
+        Integer code = codes.get(currency);
+        if (code != null) {
+            return code;
+        }
+        synchronized (CurrencyRegistry.class) {
+            code = codes.get(currency);
+            if (code == null) {
+                code = names.length;
+                String[] nextNames = Arrays.copyOf(names, code + 1);
+                nextNames[code] = currency;
+                HashMap<String, Integer> nextCodes = new HashMap<>(codes);
+                nextCodes.put(currency, code);
+                names = nextNames; // publish the name before the code becomes visible
+                codes = nextCodes;
+            }
+            return code;
+        }
+    }
+
+    // Code for currency, or UNKNOWN
+    public static int code(String currency) {
+        Integer code = codes.get(currency);
+        return (code == null) ? UNKNOWN : code;
+    }
+
+    public static String name(int code) {
+        return names[code];
+    }
+
+    public static int size() {
+        return names.length;
+    }
+}
@@ -1,64 +1,411 @@
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
+// ExchangeRateService - USDT exchange rates, published as immutable snapshots
+// Each refresh builds a new RateSnapshot (rates in a double[] indexed by
+// CurrencyRegistry code) and swaps it in with one volatile write. Readers do a
+// single volatile read and an array index: no locks, no boxing, and never a
+// half-updated table. Conversions report the snapshot version they used.
+// Every published rate is also recorded as a tick in RateStatistics; the
+// rolling mean over its longest window (7 days by default) is baked into each
+// snapshot and drives the recommendations. A CrossRateMatrix (any-to-any
+// rates after corridor spreads, with multi-hop routes) is rebuilt after
+// every snapshot, so cross conversions are O(1) too.
+//
+// Only the merge and the snapshot swap run under publishLock. The cross-rate
+// rebuild and the observer callbacks run after it is released: rebuilds are
+// ordered by crossLock and always build from the newest snapshot, and each
+// publish queues its notice under publishLock, so whichever publisher takes
+// notifyLock delivers every queued notice in version order.
 public class ExchangeRateService {
     
-    // Singleton pattern
-    private static ExchangeRateService instance = null;
+    // Singleton pattern (holder idiom: lazy, and safe without locking)
+    private static class Holder {
+        static final ExchangeRateService INSTANCE = new ExchangeRateService();
+    }
+    
+    private volatile RateSnapshot snapshot =
+        new RateSnapshot(0, System.currentTimeMillis(), new double[0], new double[0], new long[0]);
+    private final Object publishLock = new Object(); // orders writers, so versions only increase
+    private final Object crossLock = new Object();   // orders cross-rate rebuilds
+    private final Object notifyLock = new Object();  // one publisher delivers notices at a time
+    private final ConcurrentLinkedQueue<Published> unnotified = new ConcurrentLinkedQueue<>(); // in version order
+    private final RateStatistics statistics = new RateStatistics();
+    private final RateRefresher refresher;
+    private final List<RateObserver> observers = new CopyOnWriteArrayList<>();
+    private volatile RateTickStore tickStore;
+    private volatile CorridorSpreads corridors = CorridorSpreads.load();
+    private volatile CrossRateMatrix crossRates = CrossRateMatrix.build(snapshot, corridors);
+    private CorridorSpreads crossRatesCorridors = corridors; // what crossRates was built with (crossLock)
     
-    private HashMap<String, Double> exchangeRates;
-    private HashMap<String, Double> last7DayAverage;
-    private LocalDateTime lastUpdate;
+    // Rates older than this are stale: conversions are flagged, or rejected with
+    // StaleRateException when -Drates.rejectStale=true. Staleness is evaluated
+    // off the hot path (after each publish and every -Drates.staleCheckMs by the
+    // refresher), so convert() reads a flag instead of the clock.
+    private volatile long staleAfterMillis = Long.getLong("rates.staleMs", 60_000L);
+    private volatile boolean rejectStale = Boolean.getBoolean("rates.rejectStale");
+    private volatile boolean[] staleFlags = new boolean[0]; // by code; replaced, never mutated
+    
+    // Usage counters (exported over JMX by ExchangeRateServiceStats)
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder conversionCount = new LongAdder();
+    private final LongAdder staleConversionCount = new LongAdder();
     
     private ExchangeRateService() {
-        exchangeRates = new HashMap<>();
-        last7DayAverage = new HashMap<>();
-        updateRates();
-        System.out.println("✅ ExchangeRateService initialized");
+        String tickDir = System.getProperty("rates.tickStore");
+        if (tickDir != null) {
+            try {
+                enableTickStore(Path.of(tickDir));
+            } catch (IOException e) {
+                System.out.println("❌ Could not open rate tick store " + tickDir + ": " + e.getMessage());
+            }
+        }
+        refresher = new RateRefresher(this, RateRefresher.configuredFeed());
+        refresher.refreshNow();
+        refresher.start(Long.getLong("rates.refreshMs", 5000L));
+        System.out.println("✅ ExchangeRateService initialized (feed: " + refresher.getFeed().getName() + ")");
     }
     
     public static ExchangeRateService getInstance() {
-        if (instance == null) {
-            instance = new ExchangeRateService();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
     
-    // Simulate fetching live rates (in real app, call API)
+    // Fetch rates from the feed now (normally the RateRefresher does this on a schedule)
     public void updateRates() {
-        // Current rates (USDT to other currencies)
-        exchangeRates.put("AED", 3.67 + (Math.random() * 0.1 - 0.05)); // UAE Dirham
-        exchangeRates.put("SAR", 3.75 + (Math.random() * 0.1 - 0.05)); // Saudi Riyal
-        exchangeRates.put("INR", 83.12 + (Math.random() * 0.5 - 0.25)); // Indian Rupee
-        exchangeRates.put("PHP", 56.45 + (Math.random() * 0.5 - 0.25)); // Philippine Peso
-        exchangeRates.put("PKR", 278.50 + (Math.random() * 1.0 - 0.5)); // Pakistani Rupee
-        exchangeRates.put("EUR", 0.92 + (Math.random() * 0.02 - 0.01)); // Euro
-        
-        // Simulate 7-day averages (slightly different)
-        last7DayAverage.put("AED", 3.68);
-        last7DayAverage.put("SAR", 3.76);
-        last7DayAverage.put("INR", 83.50);
-        last7DayAverage.put("PHP", 56.80);
-        last7DayAverage.put("PKR", 279.00);
-        last7DayAverage.put("EUR", 0.93);
-        
-        lastUpdate = LocalDateTime.now();
+        refresher.refreshNow();
+    }
+    
+    public RateRefresher getRefresher() {
+        return refresher;
+    }
+    
+    public void addObserver(RateObserver observer) {
+        observers.add(observer);
+    }
+    
+    public void removeObserver(RateObserver observer) {
+        observers.remove(observer);
+    }
+    
+    // Record every published rate to a RateTickStore in dir (no-op if already enabled)
+    public synchronized RateTickStore enableTickStore(Path dir) throws IOException {
+        if (tickStore == null) {
+            RateTickStore store = new RateTickStore(dir);
+            store.startCompaction(Long.getLong("rates.compactMs", 10_000L));
+            addObserver(store);
+            tickStore = store;
+        }
+        return tickStore;
+    }
+    
+    // null unless enableTickStore was called (or -Drates.tickStore set)
+    public RateTickStore getTickStore() {
+        return tickStore;
+    }
+    
+    // Merge one fetch cycle (NaN = not fetched) into the current rates, record
+    // the fresh ones as ticks and atomically replace the snapshot; then rebuild
+    // the cross rates and notify observers outside the publish lock. fetched is
+    // kept until the observers have seen it, so the caller must not reuse it.
+    RateSnapshot publishFetched(double[] fetched, long timestampMillis) {
+        RateSnapshot next;
+        synchronized (publishLock) {
+            RateSnapshot previous = snapshot;
+            int size = Math.max(fetched.length, previous.size());
+            double[] rates = previous.copyRates(size);
+            long[] quotedAt = previous.copyQuotedAt(size);
+            int window = statistics.getLongestWindow();
+            double[] averages = new double[size];
+            for (int code = 0; code < size; code++) {
+                if (code < fetched.length && !Double.isNaN(fetched[code])) {
+                    rates[code] = fetched[code];
+                    quotedAt[code] = timestampMillis;
+                    statistics.record(code, fetched[code], timestampMillis);
+                }
+                averages[code] = statistics.getMean(code, window);
+            }
+            next = new RateSnapshot(previous.getVersion() + 1, timestampMillis, rates, averages, quotedAt);
+            snapshot = next;
+            refreshCount.increment();
+            refreshStaleFlags();
+            unnotified.add(new Published(next, fetched));
+        }
+        rebuildCrossRates();
+        notifyObservers();
+        return next;
+    }
+
+    // Build the cross rates for the newest snapshot and corridors, unless that
+    // is what they already are. Runs after the snapshot swap, so a rebuild that
+    // loses the race to crossLock still ends up covering its own snapshot.
+    private void rebuildCrossRates() {
+        synchronized (crossLock) {
+            RateSnapshot current = snapshot;
+            CorridorSpreads rules = corridors;
+            if (crossRates.getVersion() == current.getVersion() && crossRatesCorridors == rules) {
+                return;
+            }
+            crossRates = CrossRateMatrix.build(current, rules);
+            crossRatesCorridors = rules;
+        }
+    }
+
+    private void notifyObservers() {
+        synchronized (notifyLock) {
+            Published notice;
+            while ((notice = unnotified.poll()) != null) {
+                long timestampMillis = notice.snapshot.getTimestampMillis();
+                for (int code = 0; code < notice.fetched.length; code++) {
+                    if (!Double.isNaN(notice.fetched[code])) {
+                        for (RateObserver observer : observers) {
+                            observer.onRateTick(code, notice.fetched[code], timestampMillis);
+                        }
+                    }
+                }
+                for (RateObserver observer : observers) {
+                    observer.onSnapshotPublished(notice.snapshot);
+                }
+            }
+        }
+    }
+
+    // A published snapshot whose observers have not been told yet
+    private static final class Published {
+        final RateSnapshot snapshot;
+        final double[] fetched;
+
+        Published(RateSnapshot snapshot, double[] fetched) {
+            this.snapshot = snapshot;
+            this.fetched = fetched;
+        }
+    }
+    
+    // Re-evaluate which rates are stale and publish the flags if they changed
+    void refreshStaleFlags() {
+        synchronized (publishLock) {
+            RateSnapshot current = snapshot;
+            long now = System.currentTimeMillis();
+            boolean[] flags = new boolean[current.size()];
+            for (int code = 0; code < flags.length; code++) {
+                flags[code] = current.isStale(code, now, staleAfterMillis);
+            }
+            if (!Arrays.equals(flags, staleFlags)) {
+                staleFlags = flags;
+            }
+        }
+    }
+    
+    // Rolling mean/EWMA/min/max/volatility per currency (by CurrencyRegistry code)
+    public RateStatistics getStatistics() {
+        return statistics;
+    }
+    
+    // The current rates; hold on to it to make several reads consistent
+    public RateSnapshot getSnapshot() {
+        return snapshot;
     }
     
     public double getRate(String currency) {
-        return exchangeRates.getOrDefault(currency, 1.0);
+        return snapshot.getRate(CurrencyRegistry.code(currency));
     }
     
+    // Throws StaleRateException for a stale rate when rejectStale is set
     public double convert(double amountUSDT, String toCurrency) {
-        double rate = getRate(toCurrency);
-        return amountUSDT * rate;
+        conversionCount.increment();
+        RateSnapshot current = snapshot;
+        int code = CurrencyRegistry.code(toCurrency);
+        checkFreshness(current, code, toCurrency);
+        return amountUSDT * current.getRate(code);
+    }
+    
+    // Convert and record the rate, snapshot version and staleness used into result.
+    // Throws StaleRateException for a stale rate when rejectStale is set.
+    public Conversion convert(double amountUSDT, String toCurrency, Conversion result) {
+        conversionCount.increment();
+        RateSnapshot current = snapshot;
+        int code = CurrencyRegistry.code(toCurrency);
+        boolean stale = checkFreshness(current, code, toCurrency);
+        result.set(toCurrency, amountUSDT, current.getRate(code), current.getVersion(), stale);
+        return result;
+    }
+    
+    // ---------- Cross-currency conversion ----------
+    
+    // Any-to-any rates for the current snapshot; hold on to it to make several reads consistent
+    public CrossRateMatrix getCrossRates() {
+        return crossRates;
+    }
+    
+    public CorridorSpreads getCorridors() {
+        return corridors;
+    }
+    
+    // Switch corridor rules and rebuild the cross rates for the current snapshot
+    public void setCorridors(CorridorSpreads corridors) {
+        this.corridors = corridors;
+        rebuildCrossRates();
+    }
+    
+    // Convert between any two currencies (or USDT) along the best route, after spreads.
+    // Throws IllegalArgumentException if there is no route, and StaleRateException
+    // for a stale rate on either side when rejectStale is set.
+    public double convert(double amount, String fromCurrency, String toCurrency) {
+        return convert(amount, fromCurrency, toCurrency, new Conversion()).getConverted();
+    }
+    
+    public Conversion convert(double amount, String fromCurrency, String toCurrency, Conversion result) {
+        conversionCount.increment();
+        CrossRateMatrix matrix = crossRates;
+        int from = matrix.index(fromCurrency);
+        int to = matrix.index(toCurrency);
+        if (from == CrossRateMatrix.NONE || to == CrossRateMatrix.NONE || !matrix.hasRoute(from, to)) {
+            throw new IllegalArgumentException("No conversion route from " + fromCurrency + " to " + toCurrency);
+        }
+        RateSnapshot current = snapshot;
+        boolean stale = checkFreshness(current, from - 1, fromCurrency);
+        stale |= checkFreshness(current, to - 1, toCurrency);
+        result.set(fromCurrency, toCurrency, amount, matrix.getRate(from, to), matrix.getVersion(), stale);
+        return result;
+    }
+    
+    // ---------- Bulk conversion ----------
+    // Payout files: convert whole arrays against one snapshot (one volatile read,
+    // one currency lookup, one staleness check) and return that snapshot's
+    // version. rounding null = unrounded; out may be the amounts array itself.
+    // Stale rates are rejected (StaleRateException, nothing converted) or counted,
+    // as for convert(); check isStale(currency) to flag a stale batch.
+    
+    public long convertAll(double[] amounts, String toCurrency, double[] out) {
+        return convertAll(amounts, toCurrency, out, 0, null);
+    }
+    
+    public long convertAll(double[] amounts, String toCurrency, double[] out, int decimals, RoundingMode rounding) {
+        BulkConversion.checkLengths(amounts.length, out.length);
+        RateSnapshot current = snapshot;
+        int code = CurrencyRegistry.code(toCurrency);
+        checkFreshness(current, code, toCurrency, amounts.length);
+        BulkConversion.convert(amounts, current.getRate(code), out, decimals, rounding);
+        conversionCount.add(amounts.length);
+        return current.getVersion();
+    }
+    
+    // Integer minor units (e.g. micro-USDT in, fils/paisa out)
+    public long convertAll(long[] amounts, int amountDecimals, String toCurrency, long[] out, int outDecimals,
+                           RoundingMode rounding) {
+        BulkConversion.checkLengths(amounts.length, out.length);
+        double factor = BulkConversion.scale(outDecimals) / BulkConversion.scale(amountDecimals);
+        RateSnapshot current = snapshot;
+        int code = CurrencyRegistry.code(toCurrency);
+        checkFreshness(current, code, toCurrency, amounts.length);
+        BulkConversion.convert(amounts, current.getRate(code) * factor, out,
+            (rounding == null) ? RoundingMode.HALF_EVEN : rounding);
+        conversionCount.add(amounts.length);
+        return current.getVersion();
+    }
+    
+    // One target currency per amount, by CurrencyRegistry code
+    public long convertAll(double[] amounts, int[] currencyCodes, double[] out, int decimals, RoundingMode rounding) {
+        BulkConversion.checkLengths(amounts.length, out.length);
+        BulkConversion.checkLengths(amounts.length, currencyCodes.length);
+        RateSnapshot current = snapshot;
+        int min = 0;
+        int max = -1;
+        for (int i = 0; i < amounts.length; i++) {
+            min = Math.min(min, currencyCodes[i]);
+            max = Math.max(max, currencyCodes[i]);
+        }
+        if (min < 0 || max >= CurrencyRegistry.size()) {
+            throw new IllegalArgumentException("Unknown currency code in batch: " + (min < 0 ? min : max));
+        }
+        double[] rates = new double[max + 1];
+        for (int code = 0; code <= max; code++) {
+            rates[code] = current.getRate(code);
+        }
+        boolean[] flags = staleFlags;
+        for (int code = 0; code < Math.min(flags.length, max + 1); code++) {
+            if (flags[code]) {
+                // Rare: find whether the batch actually uses a stale rate
+                for (int i = 0; i < amounts.length; i++) {
+                    if (currencyCodes[i] == code) {
+                        checkFreshness(current, code, CurrencyRegistry.name(code), amounts.length);
+                        break;
+                    }
+                }
+            }
+        }
+        BulkConversion.convert(amounts, currencyCodes, rates, out, decimals, rounding);
+        conversionCount.add(amounts.length);
+        return current.getVersion();
+    }
+    
+    // True if the rate is stale (counted); throws instead when rejecting stale rates
+    private boolean checkFreshness(RateSnapshot current, int code, String currency) {
+        return checkFreshness(current, code, currency, 1);
+    }
+    
+    private boolean checkFreshness(RateSnapshot current, int code, String currency, int conversions) {
+        boolean[] flags = staleFlags;
+        if (code < 0 || code >= flags.length || !flags[code]) {
+            return false;
+        }
+        staleConversionCount.add(conversions);
+        if (rejectStale) {
+            throw new StaleRateException("Rate for " + currency + " is stale (last quoted "
+                + (System.currentTimeMillis() - current.getQuotedAt(code)) + " ms ago, limit "
+                + staleAfterMillis + " ms)");
+        }
+        return true;
+    }
+    
+    public boolean isStale(String currency) {
+        int code = CurrencyRegistry.code(currency);
+        boolean[] flags = staleFlags;
+        return code >= 0 && code < flags.length && flags[code];
+    }
+    
+    public int getStaleCurrencyCount() {
+        int stale = 0;
+        for (boolean flag : staleFlags) {
+            if (flag) {
+                stale++;
+            }
+        }
+        return stale;
+    }
+    
+    public void setStaleAfterMillis(long staleAfterMillis) {
+        this.staleAfterMillis = staleAfterMillis;
+        refreshStaleFlags();
+    }
+    
+    public long getStaleAfterMillis() {
+        return staleAfterMillis;
+    }
+    
+    public void setRejectStale(boolean rejectStale) {
+        this.rejectStale = rejectStale;
+    }
+    
+    public boolean isRejectStale() {
+        return rejectStale;
     }
     
     // AI recommendation logic
     public String getRateRecommendation(String currency) {
-        double currentRate = getRate(currency);
-        double avgRate = last7DayAverage.getOrDefault(currency, currentRate);
-        
+        RateSnapshot current = snapshot;
+        int code = CurrencyRegistry.code(currency);
+        return recommend(current.getRate(code), current.getAverage(code));
+    }
+    
+    // Recommendation for a rate against its rolling average (also used by ConditionalOrderBook)
+    static String recommend(double currentRate, double avgRate) {
         double percentDiff = ((currentRate - avgRate) / avgRate) * 100;
         
         if (percentDiff >= 2.0) {
@@ -73,20 +420,51 @@ public class ExchangeRateService {
     }
     
     public double getPotentialSavings(String currency, double amount) {
-        double currentRate = getRate(currency);
-        double avgRate = last7DayAverage.getOrDefault(currency, currentRate);
-        
-        double currentAmount = amount * currentRate;
-        double avgAmount = amount * avgRate;
+        RateSnapshot current = snapshot;
+        int code = CurrencyRegistry.code(currency);
+        double currentAmount = amount * current.getRate(code);
+        double avgAmount = amount * current.getAverage(code);
         
         return currentAmount - avgAmount; // Positive = you get more, Negative = you get less
     }
     
     public String getLastUpdateTime() {
-        return lastUpdate.toString();
+        return snapshot.getTimestamp().toString();
+    }
+    
+    public long getSnapshotVersion() {
+        return snapshot.getVersion();
+    }
+    
+    // Milliseconds since the rate table was last refreshed
+    public long getRateAgeMillis() {
+        return System.currentTimeMillis() - snapshot.getTimestampMillis();
+    }
+    
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+    
+    public long getConversionCount() {
+        return conversionCount.sum();
+    }
+    
+    public long getStaleConversionCount() {
+        return staleConversionCount.sum();
+    }
+    
+    public int getCurrencyCount() {
+        return snapshot.getQuotedCount();
     }
     
     public HashMap<String, Double> getAllRates() {
-        return new HashMap<>(exchangeRates);
+        RateSnapshot current = snapshot;
+        HashMap<String, Double> all = new HashMap<>();
+        for (int code = 0; code < current.size(); code++) {
+            if (current.hasRate(code)) {
+                all.put(CurrencyRegistry.name(code), current.getRate(code));
+            }
+        }
+        return all;
     }
 }
@@ -0,0 +1,98 @@
+// Exposes ExchangeRateService freshness and usage over JMX
+public class ExchangeRateServiceStats implements ExchangeRateServiceStatsMBean {
+    private final ExchangeRateService rates;
+
+    public ExchangeRateServiceStats(ExchangeRateService rates) {
+        this.rates = rates;
+    }
+
+    @Override
+    public int getCurrencyCount() {
+        return rates.getCurrencyCount();
+    }
+
+    @Override
+    public double getRateSnapshotAgeSeconds() {
+        return rates.getRateAgeMillis() / 1000.0;
+    }
+
+    @Override
+    public long getRateSnapshotVersion() {
+        return rates.getSnapshotVersion();
+    }
+
+    @Override
+    public long getRefreshCount() {
+        return rates.getRefreshCount();
+    }
+
+    @Override
+    public long getConversionCount() {
+        return rates.getConversionCount();
+    }
+
+    @Override
+    public int getStaleCurrencyCount() {
+        return rates.getStaleCurrencyCount();
+    }
+
+    @Override
+    public long getStaleConversionCount() {
+        return rates.getStaleConversionCount();
+    }
+
+    @Override
+    public long getFeedFailures() {
+        return rates.getRefresher().getFetchFailures();
+    }
+
+    @Override
+    public long getFeedTimeouts() {
+        return rates.getRefresher().getFetchTimeouts();
+    }
+
+    @Override
+    public String getFeedName() {
+        return rates.getRefresher().getFeed().getName();
+    }
+
+    @Override
+    public double getCrossRateBuildMillis() {
+        return rates.getCrossRates().getBuildNanos() / 1e6;
+    }
+
+    @Override
+    public String getCorridorSource() {
+        return rates.getCorridors().getSource();
+    }
+
+    @Override
+    public long getQuotesIssued() {
+        return QuoteService.getInstance().getIssuedCount();
+    }
+
+    @Override
+    public long getQuotesRedeemed() {
+        return QuoteService.getInstance().getRedeemedCount();
+    }
+
+    @Override
+    public long getQuotesExpired() {
+        return QuoteService.getInstance().getExpiredCount();
+    }
+
+    @Override
+    public long getQuotesRejected() {
+        return QuoteService.getInstance().getRejectedCount();
+    }
+
+    @Override
+    public long getQuotesEvicted() {
+        return QuoteService.getInstance().getEvictedCount();
+    }
+
+    @Override
+    public void refreshRates() {
+        rates.updateRates();
+    }
+}
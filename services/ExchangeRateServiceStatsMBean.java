@@ -0,0 +1,22 @@
+// JMX view of the exchange rates (ObjectName oopsmini:type=ExchangeRateService)
+public interface ExchangeRateServiceStatsMBean {
+    int getCurrencyCount();
+    double getRateSnapshotAgeSeconds();
+    long getRateSnapshotVersion();
+    long getRefreshCount();
+    long getConversionCount();
+    int getStaleCurrencyCount();
+    long getStaleConversionCount();
+    long getFeedFailures();
+    long getFeedTimeouts();
+    String getFeedName();
+    double getCrossRateBuildMillis();
+    String getCorridorSource();
+    long getQuotesIssued();
+    long getQuotesRedeemed();
+    long getQuotesExpired();
+    long getQuotesRejected();
+    long getQuotesEvicted();
+
+    void refreshRates();
+}
@@ -0,0 +1,483 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// FeeSchedule - data-driven transfer fees and limits
+//
+// Rules are loaded from a config file (-Dfees.config, default config/fees.conf,
+// falling back to the built-in rules below) and compiled into flat tables:
+//   rate[(tier * corridors + corridor) * bands + band]
+// so a fee is one band count over a handful of edges plus two array reads.
+// The compiled schedule is immutable and published through a volatile field;
+// reload() swaps in a new one without pausing transfers, and a background
+// poller reloads automatically when the file changes (-Dfees.reloadMs, 0 = off).
+// A new schedule must keep every tier code of the current one (accounts hold codes).
+//
+// Config format (one rule per line, # comments):
+//   tier    <name> <code>                                   any account can be moved to a tier (User.setTier)
+//   limit   <tier> <max amount per transfer>
+//   fee     <tier> <corridor|*> <from> <to|max> <percent> [flat]
+//   velocity <tier> <24h amount> <24h count> <30d amount> <30d count>   ('max' = unlimited)
+// A fee rule applies to amounts in [from, to). Corridor-specific rules beat '*'
+// rules; among equally specific rules the later line wins.
+public class FeeSchedule {
+
+    public static final int DEFAULT_CORRIDOR = 0; // the '*' corridor
+
+    // Rolling velocity limit kinds (see VelocityLimiter)
+    public static final int DAILY_AMOUNT = 0;
+    public static final int DAILY_COUNT = 1;
+    public static final int MONTHLY_AMOUNT = 2;
+    public static final int MONTHLY_COUNT = 3;
+
+    static final String BUILT_IN_RULES = String.join("\n",
+        "tier basic 0",
+        "tier premium 1",
+        "limit basic 500",
+        "limit premium 10000",
+        "fee basic * 0 max 1.0",
+        "fee premium * 0 max 0.5",
+        "velocity basic 2000 20 10000 200",
+        "velocity premium 50000 100 300000 1000");
+
+    private static final FeeSchedule INSTANCE = new FeeSchedule();
+
+    private final Path configPath;
+    private volatile Compiled compiled;
+    private volatile FileTime loadedModified;
+
+    private FeeSchedule() {
+        configPath = Path.of(System.getProperty("fees.config", "config/fees.conf"));
+        if (Files.exists(configPath)) {
+            try {
+                reload();
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("❌ Fee schedule " + configPath + " rejected, using built-in rules: " + e.getMessage());
+                compiled = compile(parse(BUILT_IN_RULES, "built-in"));
+            }
+        } else {
+            compiled = compile(parse(BUILT_IN_RULES, "built-in"));
+        }
+        long reloadMillis = Long.getLong("fees.reloadMs", 2000L);
+        if (reloadMillis > 0) {
+            startWatching(reloadMillis);
+        }
+    }
+
+    public static FeeSchedule getInstance() {
+        return INSTANCE;
+    }
+
+    // ---------- Hot path ----------
+
+    public double calculateFee(int tier, double amount) {
+        return calculateFee(tier, DEFAULT_CORRIDOR, amount);
+    }
+
+    public double calculateFee(int tier, int corridor, double amount) {
+        Compiled c = compiled; // one volatile read: a reload mid-call cannot mix schedules
+        return c.fee(c.checkTier(tier), c.checkCorridor(corridor), amount);
+    }
+
+    // Fee for a transfer paid out in currency: its corridor's rules when it has
+    // any, else '*'. The code is resolved against the same schedule the fee comes
+    // from, so a reload cannot pair a stale corridor code with new tables.
+    public double calculateFee(int tier, String currency, double amount) {
+        Compiled c = compiled;
+        return c.fee(c.checkTier(tier), c.corridor(currency), amount);
+    }
+
+    // Limit, fee and rolling caps for one transfer, all from the same schedule,
+    // so a reload between two lookups cannot pair an old limit with a new fee.
+    // Returns false when the tier is not in the schedule; allocation-free.
+    public boolean terms(int tier, String currency, double amount, Terms out) {
+        Compiled c = compiled;
+        if (!c.hasTier(tier)) {
+            return false;
+        }
+        out.limit = c.limits[tier];
+        // Amounts above the limit are rejected before the fee is used, and their bands may be unpriced
+        out.fee = (amount <= out.limit) ? c.fee(tier, c.corridor(currency), amount) : Double.NaN;
+        System.arraycopy(c.velocity, tier * 4, out.velocity, 0, 4);
+        return true;
+    }
+
+    public double getLimit(int tier) {
+        Compiled c = compiled;
+        return c.limits[c.checkTier(tier)];
+    }
+
+    // Rolling limit for a tier (kind = DAILY_AMOUNT ... MONTHLY_COUNT); infinite when not configured
+    public double getVelocityLimit(int tier, int kind) {
+        Compiled c = compiled;
+        return c.velocity[c.checkTier(tier) * 4 + kind];
+    }
+
+    // Reusable holder filled by terms()
+    public static final class Terms {
+        private double limit;
+        private double fee;
+        private final double[] velocity = new double[4];
+
+        public double getLimit() {
+            return limit;
+        }
+
+        // NaN when the amount is above the limit
+        public double getFee() {
+            return fee;
+        }
+
+        public double getVelocityLimit(int kind) {
+            return velocity[kind];
+        }
+    }
+
+    // ---------- Lookups ----------
+
+    public int tierCode(String tierName) {
+        Integer code = compiled.tierCodes.get(tierName.toLowerCase());
+        if (code == null) {
+            throw new IllegalArgumentException("Unknown tier: " + tierName);
+        }
+        return code;
+    }
+
+    public String getSource() {
+        return compiled.source;
+    }
+
+    public int getRuleCount() {
+        return compiled.ruleCount;
+    }
+
+    // ---------- Loading ----------
+
+    // Re-read the config file and swap in the new schedule; the old one stays
+    // in force if the file is invalid
+    public synchronized void reload() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(configPath);
+        String text = Files.readString(configPath);
+        install(compile(parse(text, configPath.toString())));
+        loadedModified = modified;
+        System.out.println("✅ Fee schedule loaded: " + configPath + " (" + compiled.ruleCount + " rules)");
+    }
+
+    // Compile and install rules from text (for tools and tests that do not use a file)
+    public synchronized void load(String rules, String source) {
+        install(compile(parse(rules, source)));
+    }
+
+    // Accounts keep their tier code across reloads, so a schedule that drops a
+    // tier would leave them with no limit or fee; it is rejected instead
+    private void install(Compiled next) {
+        Compiled current = compiled;
+        if (current != null) {
+            for (String tier : current.tierCodes.keySet()) {
+                int code = current.tierCodes.get(tier);
+                if (!next.hasTier(code)) {
+                    throw new IllegalArgumentException(next.source + ": drops tier " + tier + " (code " + code
+                        + ") that accounts may still use");
+                }
+            }
+        }
+        compiled = next;
+    }
+
+    private void startWatching(long intervalMillis) {
+        ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fee-schedule-reload");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                if (!Files.exists(configPath)) {
+                    return;
+                }
+                FileTime modified = Files.getLastModifiedTime(configPath);
+                if (!modified.equals(loadedModified)) {
+                    loadedModified = modified; // a bad file is not retried until it changes again
+                    reload();
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("❌ Fee schedule reload failed, keeping previous rules: " + e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // ---------- Parsing and compilation ----------
+
+    private static class Rule {
+        String tier;
+        String corridor; // "*" for all
+        double from;
+        double to;
+        double rate;     // fraction, not percent
+        double flat;
+        int line;
+    }
+
+    private static class Parsed {
+        final String source;
+        final HashMap<String, Integer> tiers = new HashMap<>();
+        final HashMap<String, Double> limits = new HashMap<>();
+        final HashMap<String, double[]> velocity = new HashMap<>();
+        final List<Rule> fees = new ArrayList<>();
+
+        Parsed(String source) {
+            this.source = source;
+        }
+    }
+
+    private static Parsed parse(String text, String source) {
+        Parsed parsed = new Parsed(source);
+        String[] lines = text.split("\n");
+        for (int n = 0; n < lines.length; n++) {
+            String line = lines[n];
+            int hash = line.indexOf('#');
+            if (hash >= 0) {
+                line = line.substring(0, hash);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] f = line.split("\\s+");
+            String where = source + ":" + (n + 1);
+            try {
+                switch (f[0]) {
+                    case "tier":
+                        expect(f, 3, where);
+                        parsed.tiers.put(f[1].toLowerCase(), Integer.parseInt(f[2]));
+                        break;
+                    case "limit":
+                        expect(f, 3, where);
+                        double limit = Double.parseDouble(f[2]);
+                        if (!(limit >= 0) || Double.isInfinite(limit)) {
+                            throw new IllegalArgumentException(where + ": invalid limit");
+                        }
+                        parsed.limits.put(f[1].toLowerCase(), limit);
+                        break;
+                    case "velocity":
+                        expect(f, 6, where);
+                        double[] v = new double[4];
+                        for (int i = 0; i < 4; i++) {
+                            v[i] = f[i + 2].equals("max") ? Double.POSITIVE_INFINITY : Double.parseDouble(f[i + 2]);
+                            if (v[i] < 0) {
+                                throw new IllegalArgumentException(where + ": negative velocity limit");
+                            }
+                        }
+                        parsed.velocity.put(f[1].toLowerCase(), v);
+                        break;
+                    case "fee":
+                        if (f.length != 6 && f.length != 7) {
+                            throw new IllegalArgumentException(where + ": expected 'fee <tier> <corridor|*> <from> <to|max> <percent> [flat]'");
+                        }
+                        Rule rule = new Rule();
+                        rule.tier = f[1].toLowerCase();
+                        rule.corridor = f[2].toUpperCase();
+                        rule.from = Double.parseDouble(f[3]);
+                        rule.to = f[4].equals("max") ? Double.POSITIVE_INFINITY : Double.parseDouble(f[4]);
+                        rule.rate = Double.parseDouble(f[5]) / 100.0;
+                        rule.flat = (f.length == 7) ? Double.parseDouble(f[6]) : 0.0;
+                        rule.line = n + 1;
+                        // !(x >= 0) also catches NaN, which every comparison lets through
+                        if (!(rule.from >= 0) || !(rule.to > rule.from) || !(rule.rate >= 0) || !(rule.flat >= 0)
+                                || Double.isInfinite(rule.rate) || Double.isInfinite(rule.flat)) {
+                            throw new IllegalArgumentException(where + ": invalid band or fee");
+                        }
+                        parsed.fees.add(rule);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(where + ": unknown directive '" + f[0] + "'");
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(where + ": bad number (" + e.getMessage() + ")");
+            }
+        }
+        return parsed;
+    }
+
+    private static void expect(String[] fields, int count, String where) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException(where + ": expected " + count + " fields");
+        }
+    }
+
+    private static Compiled compile(Parsed parsed) {
+        if (parsed.tiers.isEmpty()) {
+            throw new IllegalArgumentException(parsed.source + ": no tiers defined");
+        }
+        int tierCount = 0;
+        for (int code : parsed.tiers.values()) {
+            if (code < 0 || code > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException(parsed.source + ": tier code out of range: " + code);
+            }
+            tierCount = Math.max(tierCount, code + 1);
+        }
+
+        // Corridors: '*' plus every currency that has its own rules
+        HashMap<String, Integer> corridorCodes = new HashMap<>();
+        corridorCodes.put("*", DEFAULT_CORRIDOR);
+        TreeSet<Double> edgeSet = new TreeSet<>();
+        for (Rule rule : parsed.fees) {
+            if (!parsed.tiers.containsKey(rule.tier)) {
+                throw new IllegalArgumentException(parsed.source + ":" + rule.line + ": unknown tier " + rule.tier);
+            }
+            corridorCodes.putIfAbsent(rule.corridor, corridorCodes.size());
+            edgeSet.add(rule.from);
+            if (rule.to != Double.POSITIVE_INFINITY) {
+                edgeSet.add(rule.to);
+            }
+        }
+        edgeSet.add(0.0);
+        // Band b covers [edges[b], edges[b + 1]); band lookup counts interior edges <= amount
+        double[] lower = new double[edgeSet.size()];
+        int k = 0;
+        for (double e : edgeSet) {
+            lower[k++] = e;
+        }
+        int corridors = corridorCodes.size();
+        int bands = lower.length;
+
+        Compiled c = new Compiled();
+        c.source = parsed.source;
+        c.ruleCount = parsed.fees.size() + parsed.limits.size() + parsed.velocity.size();
+        c.tiers = tierCount;
+        c.corridors = corridors;
+        c.bands = bands;
+        c.edges = Arrays.copyOfRange(lower, 1, lower.length);
+        c.rates = new double[tierCount * corridors * bands];
+        c.flats = new double[c.rates.length];
+        c.limits = new double[tierCount];
+        c.velocity = new double[tierCount * 4];
+        Arrays.fill(c.velocity, Double.POSITIVE_INFINITY);
+        c.tierCodes = new HashMap<>(parsed.tiers);
+        c.defined = new boolean[tierCount];
+        for (int code : parsed.tiers.values()) {
+            c.defined[code] = true;
+        }
+        c.corridorCodes = new HashMap<>(corridorCodes);
+        c.corridorCodes.remove("*");
+        Arrays.fill(c.rates, Double.NaN);
+
+        for (String tier : parsed.velocity.keySet()) {
+            if (!parsed.tiers.containsKey(tier)) {
+                throw new IllegalArgumentException(parsed.source + ": velocity limit for unknown tier " + tier);
+            }
+        }
+        for (String tier : parsed.tiers.keySet()) {
+            int t = parsed.tiers.get(tier);
+            Double limit = parsed.limits.get(tier);
+            if (limit == null) {
+                throw new IllegalArgumentException(parsed.source + ": no limit for tier " + tier);
+            }
+            c.limits[t] = limit;
+            double[] v = parsed.velocity.get(tier);
+            if (v != null) {
+                System.arraycopy(v, 0, c.velocity, t * 4, 4);
+            }
+            for (String corridor : corridorCodes.keySet()) {
+                int cor = corridorCodes.get(corridor);
+                for (int b = 0; b < bands; b++) {
+                    Rule best = null;
+                    for (Rule rule : parsed.fees) {
+                        if (!rule.tier.equals(tier) || lower[b] < rule.from || lower[b] >= rule.to) {
+                            continue;
+                        }
+                        boolean exact = rule.corridor.equals(corridor);
+                        if (!exact && !rule.corridor.equals("*")) {
+                            continue;
+                        }
+                        // Exact corridor beats '*'; otherwise the later rule wins
+                        if (best == null || exact || !best.corridor.equals(corridor)) {
+                            best = rule;
+                        }
+                    }
+                    if (best == null) {
+                        // Bands wholly above the tier's limit are never charged (left NaN);
+                        // an amount equal to the limit is allowed, so its band needs a rule
+                        if (lower[b] <= limit) {
+                            throw new IllegalArgumentException(parsed.source + ": no fee rule for tier " + tier
+                                + " at amount " + lower[b]);
+                        }
+                        continue;
+                    }
+                    int i = (t * corridors + cor) * bands + b;
+                    c.rates[i] = best.rate;
+                    c.flats[i] = best.flat;
+                }
+            }
+        }
+        return c;
+    }
+
+    // Immutable compiled schedule
+    private static class Compiled {
+        String source;
+        int ruleCount;
+        int tiers;
+        int corridors;
+        int bands;
+        double[] edges;   // interior band edges, ascending
+        double[] rates;
+        double[] flats;
+        double[] limits;
+        double[] velocity; // [tier * 4 + kind]
+        boolean[] defined; // tier codes may have gaps
+        HashMap<String, Integer> tierCodes;
+        HashMap<String, Integer> corridorCodes;
+
+        int band(double amount) {
+            int b = 0;
+            for (double edge : edges) {
+                b += (amount >= edge) ? 1 : 0;
+            }
+            return b;
+        }
+
+        double fee(int tier, int corridor, double amount) {
+            int i = (tier * corridors + corridor) * bands + band(amount);
+            double fee = amount * rates[i] + flats[i];
+            if (!Double.isFinite(fee)) {
+                // Only bands above the limit are unpriced; a NaN fee would pass every balance check
+                throw new IllegalArgumentException("No fee for amount " + amount + " in tier " + tier
+                    + " (above its limit)");
+            }
+            return fee;
+        }
+
+        int corridor(String currency) {
+            Integer code = (currency == null) ? null : corridorCodes.get(currency.toUpperCase());
+            return (code == null) ? DEFAULT_CORRIDOR : code;
+        }
+
+        int checkCorridor(int corridor) {
+            if (corridor < 0 || corridor >= corridors) {
+                throw new IllegalArgumentException("Unknown corridor code: " + corridor);
+            }
+            return corridor;
+        }
+
+        boolean hasTier(int tier) {
+            return tier >= 0 && tier < tiers && defined[tier];
+        }
+
+        int checkTier(int tier) {
+            if (!hasTier(tier)) {
+                throw new IllegalArgumentException("Unknown tier code: " + tier);
+            }
+            return tier;
+        }
+    }
+}
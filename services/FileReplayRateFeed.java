@@ -0,0 +1,62 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// FileReplayRateFeed - replays recorded rates from a local file
+// One "<currency> <rate>" (or "<currency>,<rate>") per line, '#' for comments.
+// Each fetch returns the currency's next recorded rate and wraps around at the
+// end, so a short capture can drive a long test run deterministically.
+public class FileReplayRateFeed implements RateFeed {
+
+    private final Path path;
+    private final Map<String, double[]> series = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new HashMap<>();
+
+    public FileReplayRateFeed(Path path) throws IOException {
+        this.path = path;
+        Map<String, List<Double>> values = new HashMap<>();
+        int lineNo = 0;
+        for (String line : Files.readAllLines(path)) {
+            lineNo++;
+            String text = line.strip();
+            if (text.isEmpty() || text.startsWith("#")) {
+                continue;
+            }
+            String[] f = text.split("[\\s,]+");
+            if (f.length != 2) {
+                throw new IOException(path + ":" + lineNo + ": expected '<currency> <rate>'");
+            }
+            try {
+                String currency = f[0].toUpperCase();
+                values.computeIfAbsent(currency, c -> new ArrayList<>()).add(Double.parseDouble(f[1]));
+            } catch (NumberFormatException e) {
+                throw new IOException(path + ":" + lineNo + ": bad rate '" + f[1] + "'");
+            }
+        }
+        for (Map.Entry<String, List<Double>> e : values.entrySet()) {
+            series.put(e.getKey(), e.getValue().stream().mapToDouble(Double::doubleValue).toArray());
+            cursors.put(e.getKey(), new AtomicInteger());
+            CurrencyRegistry.register(e.getKey());
+        }
+    }
+
+    @Override
+    public double fetchRate(String currency) {
+        double[] rates = series.get(currency);
+        if (rates == null) {
+            return Double.NaN;
+        }
+        int next = cursors.get(currency).getAndIncrement();
+        return rates[Math.floorMod(next, rates.length)];
+    }
+
+    @Override
+    public String getName() {
+        return "replay:" + path;
+    }
+}
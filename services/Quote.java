@@ -0,0 +1,59 @@
+// Quote - a rate locked for one transfer, as issued or redeemed by QuoteService
+// A reusable holder like Conversion: QuoteService overwrites its fields, so
+// hot paths keep one instead of allocating per quote.
+public class Quote {
+
+    private long token;
+    private String currency;
+    private double amountUSDT;
+    private double rate;
+    private long snapshotVersion;
+    private long expiresAtMillis;
+
+    void set(long token, String currency, double amountUSDT, double rate, long snapshotVersion,
+             long expiresAtMillis) {
+        this.token = token;
+        this.currency = currency;
+        this.amountUSDT = amountUSDT;
+        this.rate = rate;
+        this.snapshotVersion = snapshotVersion;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    // Opaque handle the customer presents when sending
+    public long getToken() {
+        return token;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public double getAmountUSDT() {
+        return amountUSDT;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    // What the recipient gets at the locked rate
+    public double getConverted() {
+        return amountUSDT * rate;
+    }
+
+    // RateSnapshot.getVersion() the rate was taken from
+    public long getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Quote[" + Long.toHexString(token) + ": " + amountUSDT + " USDT -> " + getConverted() + " "
+            + currency + " @ " + rate + ", v" + snapshotVersion + "]";
+    }
+}
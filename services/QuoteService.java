@@ -0,0 +1,303 @@
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// QuoteService - short-lived, single-use rate quotes for transfers
+//
+// A quote locks the current rate for one sender, one USDT amount and one
+// payout currency until it expires (-Dquotes.ttlMs, default 30000). The sender
+// then transfers against the token (BlockchainService.sendMoneyAtQuote) and
+// gets the quoted rate even if the rates have been refreshed since.
+//
+// Quotes live in a ring of -Dquotes.capacity slots (default 65536, rounded to a
+// power of two) held in parallel primitive arrays. A token is the quote's
+// sequence number plus 16 random check bits, and quote n lives in slot
+// n % capacity, so lookup is one index and nothing is ever purged: a new quote
+// simply overwrites the oldest slot. Every quote has the same TTL, so the
+// oldest slot is normally long expired (evictions of live quotes are counted;
+// raise the capacity if they are not zero).
+//
+// Each slot has a stamp (sequence << 2 | state) in an AtomicLongArray used as a
+// seqlock: a writer marks the slot WRITING, fills the fields, then marks it
+// OPEN; readers copy the fields and re-check the stamp. Redemption is a CAS of
+// the stamp from OPEN to REDEEMED, so a quote can be spent exactly once, and
+// release() reopens it if the transfer it paid for was rejected.
+public class QuoteService {
+
+    public enum Status {
+        OK,
+        EXPIRED,           // past its TTL (or evicted by newer quotes)
+        ALREADY_REDEEMED,
+        INVALID            // unknown token, or issued to another sender
+    }
+
+    // Slot states (low two bits of the stamp; a never-used slot is all zero)
+    private static final int OPEN = 1;
+    private static final int REDEEMED = 2;
+    private static final int WRITING = 3;
+
+    // Fresh sequences tried when the ring laps an issue before it claims its slot
+    private static final int MAX_CLAIM_ATTEMPTS = 4;
+
+    // Singleton pattern (holder idiom: lazy, and safe without locking)
+    private static class Holder {
+        static final QuoteService INSTANCE = new QuoteService(
+            Integer.getInteger("quotes.capacity", 1 << 16), Long.getLong("quotes.ttlMs", 30_000L));
+    }
+
+    private final ExchangeRateService rates = ExchangeRateService.getInstance();
+    private final int mask;
+    private final AtomicLongArray stamps;
+    private final int[] checks;
+    private final Address[] senders;
+    private final int[] currencies;   // CurrencyRegistry codes
+    private final double[] amounts;
+    private final double[] quotedRates;
+    private final long[] versions;
+    private final long[] expiries;
+    private final AtomicLong nextSequence = new AtomicLong(1); // 0 would match never-used slots
+    private volatile long ttlMillis;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder redeemed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    QuoteService(int capacity, long ttlMillis) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Quote capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.stamps = new AtomicLongArray(size);
+        this.checks = new int[size];
+        this.senders = new Address[size];
+        this.currencies = new int[size];
+        this.amounts = new double[size];
+        this.quotedRates = new double[size];
+        this.versions = new long[size];
+        this.expiries = new long[size];
+        setTtlMillis(ttlMillis);
+    }
+
+    public static QuoteService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    // ---------- Issuing ----------
+
+    // Lock the current USDT -> currency rate for amountUSDT; fills result and returns the token.
+    // Stale rates are never quoted (StaleRateException), and neither is a quote the
+    // ring could not hold (QuoteCapacityException).
+    public long issue(Address sender, double amountUSDT, String currency, Quote result) {
+        if (sender == null) {
+            throw new IllegalArgumentException("Quote needs a sender");
+        }
+        if (!(amountUSDT > 0) || Double.isInfinite(amountUSDT)) {
+            throw new IllegalArgumentException("Invalid quote amount: " + amountUSDT);
+        }
+        int code = CurrencyRegistry.code(currency);
+        RateSnapshot snapshot = rates.getSnapshot();
+        if (!snapshot.hasRate(code)) {
+            throw new IllegalArgumentException("No rate to quote for " + currency);
+        }
+        if (rates.isStale(currency)) {
+            throw new StaleRateException("Rate for " + currency + " is stale; not quoting it");
+        }
+        double rate = snapshot.getRate(code);
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+
+        long sequence;
+        int slot;
+        int attempts = 0;
+        do {
+            if (++attempts > MAX_CLAIM_ATTEMPTS) {
+                throw new QuoteCapacityException("Quote capacity exhausted (" + (mask + 1)
+                    + " slots); try again shortly");
+            }
+            sequence = nextSequence.getAndIncrement();
+            slot = (int) (sequence & mask);
+        } while (!claim(slot, sequence, now)); // a lapped token would never redeem
+        int check = ThreadLocalRandom.current().nextInt() & 0xFFFF;
+        long token = sequence << 16 | check;
+        checks[slot] = check;
+        senders[slot] = sender;
+        currencies[slot] = code;
+        amounts[slot] = amountUSDT;
+        quotedRates[slot] = rate;
+        versions[slot] = snapshot.getVersion();
+        expiries[slot] = expiresAt;
+        stamps.set(slot, stamp(sequence, OPEN)); // volatile write publishes the fields
+        issued.increment();
+        result.set(token, currency, amountUSDT, rate, snapshot.getVersion(), expiresAt);
+        return token;
+    }
+
+    // Take a slot for sequence: wait out an older writer still filling it, and
+    // give up if a newer quote already owns it (the ring wrapped mid-issue)
+    private boolean claim(int slot, long sequence, long now) {
+        while (true) {
+            long previous = stamps.get(slot);
+            if (previous >>> 2 > sequence) {
+                evicted.increment();
+                return false;
+            }
+            if ((previous & 3) == WRITING) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (stamps.compareAndSet(slot, previous, stamp(sequence, WRITING))) {
+                if ((previous & 3) == OPEN && expiries[slot] > now) {
+                    evicted.increment(); // a live quote fell off the ring
+                }
+                VarHandle.storeStoreFence(); // the WRITING stamp is visible before any field changes
+                return true;
+            }
+        }
+    }
+
+    // ---------- Redeeming ----------
+
+    // Spend the quote for sender: on OK result holds the locked terms and the
+    // quote cannot be redeemed again (unless released)
+    public Status redeem(long token, Address sender, Quote result) {
+        long sequence = token >>> 16;
+        int slot = (int) (sequence & mask);
+        long stamp = stamps.get(slot);
+        Status status = check(token, stamp, slot, sender);
+        if (status != Status.OK) {
+            return count(status);
+        }
+        int code = currencies[slot];
+        double amount = amounts[slot];
+        double rate = quotedRates[slot];
+        long version = versions[slot];
+        long expiresAt = expiries[slot];
+        VarHandle.loadLoadFence(); // field reads complete before the stamp is re-checked
+        if (!stamps.compareAndSet(slot, stamp, stamp(sequence, REDEEMED))) {
+            // Lost a race: redeemed concurrently, or overwritten while we read
+            long current = stamps.get(slot);
+            return count((current >>> 2 == sequence) ? Status.ALREADY_REDEEMED : Status.EXPIRED);
+        }
+        redeemed.increment();
+        result.set(token, CurrencyRegistry.name(code), amount, rate, version, expiresAt);
+        return Status.OK;
+    }
+
+    // Reopen a redeemed quote whose transfer did not go through; false if it
+    // was not redeemed or has since been overwritten
+    boolean release(long token) {
+        long sequence = token >>> 16;
+        int slot = (int) (sequence & mask);
+        if (stamps.compareAndSet(slot, stamp(sequence, REDEEMED), stamp(sequence, OPEN))) {
+            redeemed.decrement();
+            return true;
+        }
+        return false;
+    }
+
+    // Current status of a quote for sender without spending it; fills result when OK
+    public Status peek(long token, Address sender, Quote result) {
+        long sequence = token >>> 16;
+        int slot = (int) (sequence & mask);
+        long stamp = stamps.get(slot);
+        Status status = check(token, stamp, slot, sender);
+        if (status != Status.OK) {
+            return status;
+        }
+        int code = currencies[slot];
+        double amount = amounts[slot];
+        double rate = quotedRates[slot];
+        long version = versions[slot];
+        long expiresAt = expiries[slot];
+        VarHandle.loadLoadFence();
+        if (stamps.get(slot) != stamp) {
+            return (stamps.get(slot) >>> 2 == sequence) ? Status.ALREADY_REDEEMED : Status.EXPIRED;
+        }
+        result.set(token, CurrencyRegistry.name(code), amount, rate, version, expiresAt);
+        return Status.OK;
+    }
+
+    // Validate a token against a stamp read from its slot (fields read racily;
+    // callers re-check the stamp before trusting them)
+    private Status check(long token, long stamp, int slot, Address sender) {
+        long sequence = token >>> 16;
+        long owner = stamp >>> 2;
+        if (owner != sequence || sequence == 0) {
+            // A newer quote took the slot: this one is older than the ring, so long gone
+            return (owner > sequence && sequence < nextSequence.get()) ? Status.EXPIRED : Status.INVALID;
+        }
+        int state = (int) (stamp & 3);
+        if (state == REDEEMED) {
+            return Status.ALREADY_REDEEMED;
+        }
+        if (state != OPEN || checks[slot] != (int) (token & 0xFFFF)
+                || sender == null || !sender.equals(senders[slot])) {
+            return Status.INVALID;
+        }
+        if (expiries[slot] <= System.currentTimeMillis()) {
+            return Status.EXPIRED;
+        }
+        return Status.OK;
+    }
+
+    private Status count(Status status) {
+        if (status == Status.EXPIRED) {
+            expired.increment();
+        } else {
+            rejected.increment();
+        }
+        return status;
+    }
+
+    private static long stamp(long sequence, int state) {
+        return sequence << 2 | state;
+    }
+
+    // ---------- Configuration and stats ----------
+
+    public void setTtlMillis(long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Quote TTL must be positive: " + ttlMillis);
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public long getIssuedCount() {
+        return issued.sum();
+    }
+
+    public long getRedeemedCount() {
+        return redeemed.sum();
+    }
+
+    // Redemption attempts on expired quotes
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    // Redemption attempts with unknown, foreign or already spent tokens
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    // Live quotes overwritten because the ring was full
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+}
@@ -0,0 +1,13 @@
+import java.io.IOException;
+
+// RateFeed - a source of live exchange rates for RateRefresher
+// Implementations may block (network, disk): the refresher calls fetchRate for
+// every currency in parallel and abandons calls that overrun its timeout, so a
+// slow or broken feed only makes the affected rates go stale.
+public interface RateFeed {
+
+    // Latest rate for 1 USDT -> currency, or NaN if the feed does not quote it
+    double fetchRate(String currency) throws IOException;
+
+    String getName();
+}
@@ -0,0 +1,15 @@
+// RateObserver - notified by ExchangeRateService as rates are published
+// Callbacks run on a publishing thread (normally the refresher) once the
+// snapshot is current, one publish at a time and in publish order. They must
+// be quick (hand heavy work to another thread): the next publish's callbacks
+// wait for them, though readers and the next snapshot swap do not.
+public interface RateObserver {
+
+    // A freshly fetched rate for a CurrencyRegistry code
+    default void onRateTick(int code, double rate, long timestampMillis) {
+    }
+
+    // A new snapshot is now current
+    default void onSnapshotPublished(RateSnapshot snapshot) {
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+// RateRefresher - pulls rates from a RateFeed on a schedule
+//
+// Each cycle fetches every registered currency in parallel (one virtual thread
+// per fetch) and waits at most the fetch timeout for the whole batch. Rates that
+// arrive in time are merged with the previous snapshot's rates and published
+// as one new snapshot; a currency whose fetch failed or timed out keeps its old
+// rate and quote time, so it ages towards the staleness threshold instead of
+// being silently refreshed. Publishing is a single volatile write, so refreshes
+// never block convert() readers.
+//
+// -Drates.feed=simulated (default) | replay:<file>
+// -Drates.refreshMs (default 5000, 0 = manual only), -Drates.fetchTimeoutMs (1000),
+// -Drates.staleCheckMs (100): how often rate staleness is re-evaluated
+public class RateRefresher {
+
+    private final ExchangeRateService target;
+    private final ExecutorService fetchers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rate-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile RateFeed feed;
+    private volatile long timeoutMillis = Long.getLong("rates.fetchTimeoutMs", 1000L);
+    private ScheduledFuture<?> schedule;
+
+    private final LongAdder cycles = new LongAdder();
+    private final LongAdder fetchFailures = new LongAdder();
+    private final LongAdder fetchTimeouts = new LongAdder();
+
+    RateRefresher(ExchangeRateService target, RateFeed feed) {
+        this.target = target;
+        this.feed = feed;
+        long staleCheckMillis = Long.getLong("rates.staleCheckMs", 100L);
+        scheduler.scheduleWithFixedDelay(target::refreshStaleFlags, staleCheckMillis, staleCheckMillis,
+            TimeUnit.MILLISECONDS);
+    }
+
+    // Feed named by -Drates.feed; falls back to the simulated feed if the replay file is unreadable
+    static RateFeed configuredFeed() {
+        String spec = System.getProperty("rates.feed", "simulated");
+        if (spec.startsWith("replay:")) {
+            String file = spec.substring("replay:".length());
+            try {
+                return new FileReplayRateFeed(Path.of(file));
+            } catch (IOException e) {
+                System.out.println("❌ Could not load rate replay file " + file + ": " + e.getMessage()
+                    + " (using simulated feed)");
+            }
+        } else if (!spec.equals("simulated")) {
+            System.out.println("❌ Unknown rate feed '" + spec + "' (using simulated feed)");
+        }
+        return SimulatedRateFeed.withDefaultQuotes();
+    }
+
+    public synchronized void start(long periodMillis) {
+        stop();
+        if (periodMillis > 0) {
+            schedule = scheduler.scheduleWithFixedDelay(this::refreshQuietly, periodMillis, periodMillis,
+                TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (schedule != null) {
+            schedule.cancel(false);
+            schedule = null;
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refreshNow();
+        } catch (RuntimeException e) {
+            System.out.println("❌ Rate refresh failed: " + e.getMessage());
+        }
+    }
+
+    // Run one fetch cycle now; returns the number of currencies refreshed
+    public synchronized int refreshNow() {
+        RateRefreshEvent event = new RateRefreshEvent();
+        event.begin();
+
+        RateFeed source = feed;
+        int size = CurrencyRegistry.size();
+        List<Future<Double>> pending = new ArrayList<>(size);
+        for (int code = 0; code < size; code++) {
+            String currency = CurrencyRegistry.name(code);
+            pending.add(fetchers.submit(() -> source.fetchRate(currency)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        double[] fetched = new double[size];
+        int refreshed = 0;
+        for (int code = 0; code < size; code++) {
+            fetched[code] = Double.NaN;
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                fetched[code] = pending.get(code).get(remaining, TimeUnit.NANOSECONDS);
+                if (!Double.isNaN(fetched[code])) {
+                    refreshed++;
+                }
+            } catch (TimeoutException e) {
+                pending.get(code).cancel(true);
+                fetchTimeouts.increment();
+            } catch (ExecutionException e) {
+                fetchFailures.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.get(code).cancel(true);
+            }
+        }
+
+        target.publishFetched(fetched, System.currentTimeMillis());
+        cycles.increment();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.currencies = refreshed;
+            event.commit();
+        }
+        return refreshed;
+    }
+
+    // ---------- Configuration ----------
+
+    public void setFeed(RateFeed feed) {
+        this.feed = feed;
+    }
+
+    public RateFeed getFeed() {
+        return feed;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeoutMillis);
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    // ---------- Stats ----------
+
+    public long getCycleCount() {
+        return cycles.sum();
+    }
+
+    public long getFetchFailures() {
+        return fetchFailures.sum();
+    }
+
+    public long getFetchTimeouts() {
+        return fetchTimeouts.sum();
+    }
+}
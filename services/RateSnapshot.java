@@ -0,0 +1,96 @@
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+// RateSnapshot - one immutable, versioned set of exchange rates
+// ExchangeRateService builds a new snapshot on every refresh and publishes it
+// with a single volatile write; readers take the reference once and index its
+// arrays by CurrencyRegistry code. Nothing here is ever mutated after
+// construction, so a reader always sees a complete, consistent table.
+public final class RateSnapshot {
+
+    public static final double DEFAULT_RATE = 1.0; // unknown currency: 1:1, as before
+
+    private final long version;
+    private final long timestampMillis;
+    private final double[] rates;     // 1 USDT -> currency, NaN if not quoted
+    private final double[] averages;  // rolling mean over RateStatistics' longest window, NaN if no ticks
+    private final long[] quotedAt;    // when each rate was last fetched (epoch millis), 0 if never
+
+    // The arrays are owned by the snapshot from here on; callers must not keep them
+    RateSnapshot(long version, long timestampMillis, double[] rates, double[] averages, long[] quotedAt) {
+        this.version = version;
+        this.timestampMillis = timestampMillis;
+        this.rates = rates;
+        this.averages = averages;
+        this.quotedAt = quotedAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault());
+    }
+
+    public boolean hasRate(int code) {
+        return code >= 0 && code < rates.length && !Double.isNaN(rates[code]);
+    }
+
+    public double getRate(int code) {
+        return hasRate(code) ? rates[code] : DEFAULT_RATE;
+    }
+
+    // Rolling average rate (7 days by default); falls back to the current rate when unknown
+    public double getAverage(int code) {
+        if (code >= 0 && code < averages.length && !Double.isNaN(averages[code])) {
+            return averages[code];
+        }
+        return getRate(code);
+    }
+
+    // When the currency's rate was last fetched from the feed (0 if never)
+    public long getQuotedAt(int code) {
+        return (code >= 0 && code < quotedAt.length) ? quotedAt[code] : 0;
+    }
+
+    // A quoted rate older than maxAgeMillis; unknown currencies are never stale
+    // (they convert at DEFAULT_RATE, as before)
+    public boolean isStale(int code, long nowMillis, long maxAgeMillis) {
+        return hasRate(code) && nowMillis - quotedAt[code] > maxAgeMillis;
+    }
+
+    // Copies sized for the current registry, for building the next snapshot
+    double[] copyRates(int size) {
+        double[] copy = Arrays.copyOf(rates, size);
+        if (size > rates.length) {
+            Arrays.fill(copy, rates.length, size, Double.NaN);
+        }
+        return copy;
+    }
+
+    long[] copyQuotedAt(int size) {
+        return Arrays.copyOf(quotedAt, size);
+    }
+
+    // Number of code slots (quoted or not)
+    public int size() {
+        return rates.length;
+    }
+
+    public int getQuotedCount() {
+        int count = 0;
+        for (double rate : rates) {
+            if (!Double.isNaN(rate)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,340 @@
+import java.util.Arrays;
+
+// RateStatistics - rolling statistics of the rate tick stream, per currency
+//
+// Every published rate is recorded as a tick. Each currency keeps, for every
+// configured window (default 1 h, 24 h, 7 d), a ring of time buckets holding
+// (sum, sum of squares, count, min, max) plus running totals, so a tick is
+// O(1) and memory per currency is fixed however fast ticks arrive. Expired
+// buckets are subtracted when the window moves forward, exactly like the
+// VelocityLimiter windows. Window min/max are rescanned (O(buckets)) only
+// after a bucket holding ticks expires, not per tick.
+//
+// Values are stored as deviations from the currency's first rate, which keeps
+// the sum-of-squares variance accurate for rates in the hundreds. Statistics
+// are "as of the latest tick" (windows move with tick time, not the wall
+// clock), so replayed historical feeds produce the same numbers as live ones.
+//
+// Windows: -Drates.windows=1h,24h,7d (units m/h/d), -Drates.windowBuckets=60.
+public class RateStatistics {
+
+    private final long[] windowMillis;
+    private final String[] windowLabels;
+    private final int buckets;
+    private volatile Series[] series = new Series[0];
+
+    public RateStatistics() {
+        this(System.getProperty("rates.windows", "1h,24h,7d"), Integer.getInteger("rates.windowBuckets", 60));
+    }
+
+    public RateStatistics(String windows, int buckets) {
+        if (buckets < 1) {
+            throw new IllegalArgumentException("Buckets per window must be positive: " + buckets);
+        }
+        String[] labels = windows.split(",");
+        this.windowMillis = new long[labels.length];
+        this.windowLabels = new String[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            windowLabels[i] = labels[i].trim();
+            windowMillis[i] = parseWindow(windowLabels[i]);
+            if (windowMillis[i] < buckets) {
+                throw new IllegalArgumentException("Window too short for " + buckets + " buckets: " + windowLabels[i]);
+            }
+        }
+        this.buckets = buckets;
+    }
+
+    private static long parseWindow(String text) {
+        if (text.length() < 2) {
+            throw new IllegalArgumentException("Bad window '" + text + "' (expected e.g. 30m, 1h, 7d)");
+        }
+        long unit;
+        switch (Character.toLowerCase(text.charAt(text.length() - 1))) {
+            case 'm': unit = 60_000L; break;
+            case 'h': unit = 3_600_000L; break;
+            case 'd': unit = 86_400_000L; break;
+            default: throw new IllegalArgumentException("Bad window '" + text + "' (expected e.g. 30m, 1h, 7d)");
+        }
+        try {
+            return Long.parseLong(text.substring(0, text.length() - 1)) * unit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad window '" + text + "' (expected e.g. 30m, 1h, 7d)");
+        }
+    }
+
+    // Record one tick for a currency code
+    public void record(int code, double rate, long timestampMillis) {
+        if (code < 0 || Double.isNaN(rate)) {
+            return;
+        }
+        Series s = seriesFor(code);
+        synchronized (s) {
+            s.record(rate, timestampMillis);
+        }
+    }
+
+    public void clear() {
+        synchronized (this) {
+            series = new Series[0];
+        }
+    }
+
+    // ---------- Queries (window = index into the configured windows) ----------
+
+    public int getWindowCount() {
+        return windowMillis.length;
+    }
+
+    public String getWindowLabel(int window) {
+        return windowLabels[window];
+    }
+
+    // The longest window; used for rate recommendations
+    public int getLongestWindow() {
+        int longest = 0;
+        for (int i = 1; i < windowMillis.length; i++) {
+            if (windowMillis[i] > windowMillis[longest]) {
+                longest = i;
+            }
+        }
+        return longest;
+    }
+
+    public long getCount(int code, int window) {
+        Series s = existing(code);
+        if (s == null) {
+            return 0;
+        }
+        synchronized (s) {
+            return s.windows[window].count;
+        }
+    }
+
+    // NaN when the window holds no ticks
+    public double getMean(int code, int window) {
+        Series s = existing(code);
+        if (s == null) {
+            return Double.NaN;
+        }
+        synchronized (s) {
+            Window w = s.windows[window];
+            return (w.count == 0) ? Double.NaN : s.reference + w.sum / w.count;
+        }
+    }
+
+    // Time-decayed moving average with a time constant of the window length
+    public double getEwma(int code, int window) {
+        Series s = existing(code);
+        if (s == null) {
+            return Double.NaN;
+        }
+        synchronized (s) {
+            return s.reference + s.windows[window].ewma;
+        }
+    }
+
+    public double getMin(int code, int window) {
+        Series s = existing(code);
+        if (s == null) {
+            return Double.NaN;
+        }
+        synchronized (s) {
+            Window w = s.windows[window];
+            return (w.count == 0) ? Double.NaN : s.reference + w.min();
+        }
+    }
+
+    public double getMax(int code, int window) {
+        Series s = existing(code);
+        if (s == null) {
+            return Double.NaN;
+        }
+        synchronized (s) {
+            Window w = s.windows[window];
+            return (w.count == 0) ? Double.NaN : s.reference + w.max();
+        }
+    }
+
+    // Standard deviation of the ticks in the window (0 with fewer than two)
+    public double getStdDev(int code, int window) {
+        Series s = existing(code);
+        if (s == null) {
+            return Double.NaN;
+        }
+        synchronized (s) {
+            Window w = s.windows[window];
+            if (w.count < 2) {
+                return (w.count == 0) ? Double.NaN : 0.0;
+            }
+            double mean = w.sum / w.count;
+            double variance = (w.sumSq - w.count * mean * mean) / (w.count - 1);
+            return Math.sqrt(Math.max(0, variance));
+        }
+    }
+
+    // Standard deviation relative to the mean, in percent
+    public double getVolatilityPercent(int code, int window) {
+        return getStdDev(code, window) / getMean(code, window) * 100;
+    }
+
+    // ---------- Internals ----------
+
+    private Series existing(int code) {
+        Series[] current = series;
+        return (code >= 0 && code < current.length) ? current[code] : null;
+    }
+
+    private Series seriesFor(int code) {
+        Series s = existing(code);
+        if (s != null) {
+            return s;
+        }
+        synchronized (this) {
+            Series[] current = series;
+            if (code < current.length && current[code] != null) {
+                return current[code];
+            }
+            Series[] next = Arrays.copyOf(current, Math.max(current.length, code + 1));
+            next[code] = new Series();
+            series = next; // copy-on-write: readers never see a half-built array
+            return next[code];
+        }
+    }
+
+    // All windows of one currency
+    private final class Series {
+        final Window[] windows = new Window[windowMillis.length];
+        double reference = Double.NaN;
+
+        Series() {
+            for (int i = 0; i < windows.length; i++) {
+                windows[i] = new Window(windowMillis[i], buckets);
+            }
+        }
+
+        void record(double rate, long timestampMillis) {
+            if (Double.isNaN(reference)) {
+                reference = rate;
+            }
+            double x = rate - reference;
+            for (Window w : windows) {
+                w.add(x, timestampMillis);
+            }
+        }
+    }
+
+    // One rolling window: a ring of time buckets plus running totals
+    private static final class Window {
+        final long bucketMillis;
+        final double tauMillis;
+        final double[] sums;
+        final double[] sumSqs;
+        final double[] mins;
+        final double[] maxs;
+        final int[] counts;
+        long bucket = Long.MIN_VALUE; // absolute number of the newest bucket
+        long lastTick;
+        double sum;
+        double sumSq;
+        long count;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        boolean extremaStale;
+        double ewma = Double.NaN;
+
+        Window(long windowMillis, int buckets) {
+            this.bucketMillis = windowMillis / buckets;
+            this.tauMillis = windowMillis;
+            this.sums = new double[buckets];
+            this.sumSqs = new double[buckets];
+            this.mins = new double[buckets];
+            this.maxs = new double[buckets];
+            this.counts = new int[buckets];
+        }
+
+        void add(double x, long timestampMillis) {
+            long t = Math.max(timestampMillis, lastTick); // late ticks count as "now"
+            advance(t / bucketMillis);
+            int i = (int) (bucket % counts.length);
+            if (counts[i] == 0) {
+                mins[i] = x;
+                maxs[i] = x;
+            } else {
+                mins[i] = Math.min(mins[i], x);
+                maxs[i] = Math.max(maxs[i], x);
+            }
+            sums[i] += x;
+            sumSqs[i] += x * x;
+            counts[i]++;
+            sum += x;
+            sumSq += x * x;
+            count++;
+            if (!extremaStale) {
+                min = Math.min(min, x);
+                max = Math.max(max, x);
+            }
+
+            if (Double.isNaN(ewma)) {
+                ewma = x;
+            } else {
+                double alpha = 1 - Math.exp(-(t - lastTick) / tauMillis);
+                ewma += alpha * (x - ewma);
+            }
+            lastTick = t;
+        }
+
+        // Expire buckets older than the window; at most one pass over the ring
+        void advance(long nowBucket) {
+            if (bucket == Long.MIN_VALUE) {
+                bucket = nowBucket;
+                return;
+            }
+            if (nowBucket <= bucket) {
+                return;
+            }
+            long steps = Math.min(nowBucket - bucket, counts.length);
+            for (long b = nowBucket - steps + 1; b <= nowBucket; b++) {
+                int i = (int) (b % counts.length);
+                if (counts[i] != 0) {
+                    sum -= sums[i];
+                    sumSq -= sumSqs[i];
+                    count -= counts[i];
+                    sums[i] = 0;
+                    sumSqs[i] = 0;
+                    counts[i] = 0;
+                    extremaStale = true;
+                }
+            }
+            if (count == 0) {
+                sum = 0; // floating-point residue
+                sumSq = 0;
+            }
+            bucket = nowBucket;
+        }
+
+        double min() {
+            refreshExtrema();
+            return min;
+        }
+
+        double max() {
+            refreshExtrema();
+            return max;
+        }
+
+        private void refreshExtrema() {
+            if (!extremaStale) {
+                return;
+            }
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    min = Math.min(min, mins[i]);
+                    max = Math.max(max, maxs[i]);
+                }
+            }
+            extremaStale = false;
+        }
+    }
+}
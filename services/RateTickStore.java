@@ -0,0 +1,299 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// RateTickStore - persistent rate history with OHLC candles, for charts and back-tests
+//
+// Every published rate is appended to <dir>/<CUR>.ticks as a 16-byte record
+// (epoch nanos, rate), memory-mapped through MappedRecordFile. Timestamps never
+// decrease, so a time range is two binary searches over the mapped file and
+// the ticks in between are read in place.
+//
+// A background compactor folds new ticks into 1-minute, 1-hour and 1-day
+// candles (<dir>/<CUR>.1m|1h|1d, 48-byte records: start, open, high, low,
+// close, tick count). Each candle file remembers in its header how many ticks
+// it has consumed, so compaction is incremental and survives restarts; the
+// newest candle is updated in place until its period ends. Charts read candles
+// and never touch the raw ticks.
+//
+// Enabled with -Drates.tickStore=<dir>; compaction every -Drates.compactMs (10000).
+public class RateTickStore implements RateObserver, Closeable {
+
+    public enum Resolution {
+        MINUTE("1m", 60_000_000_000L),
+        HOUR("1h", 3_600_000_000_000L),
+        DAY("1d", 86_400_000_000_000L);
+
+        final String suffix;
+        final long nanos;
+
+        Resolution(String suffix, long nanos) {
+            this.suffix = suffix;
+            this.nanos = nanos;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    private static final int TICK_MAGIC = 0x54494B31;   // "TIK1"
+    private static final int CANDLE_MAGIC = 0x4F484C31; // "OHL1"
+    private static final int TICK_SIZE = 16;
+    private static final int T_TIME = 0;
+    private static final int T_RATE = 8;
+    private static final int CANDLE_SIZE = 48;
+    private static final int C_START = 0;
+    private static final int C_OPEN = 8;
+    private static final int C_HIGH = 16;
+    private static final int C_LOW = 24;
+    private static final int C_CLOSE = 32;
+    private static final int C_TICKS = 40;
+    private static final int TICKS_PER_CHUNK = 1 << 20;  // 16 MB mappings
+    private static final int CANDLES_PER_CHUNK = 1 << 16; // 3 MB mappings
+
+    private final Path dir;
+    private volatile Series[] series = new Series[0]; // by CurrencyRegistry code
+    private ScheduledExecutorService compactor;
+
+    public RateTickStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        // Open existing history so queries work before the first new tick
+        for (int code = 0; code < CurrencyRegistry.size(); code++) {
+            if (Files.exists(tickFile(code))) {
+                seriesFor(code);
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    // ---------- Writing (single writer: the rate publisher) ----------
+
+    @Override
+    public void onRateTick(int code, double rate, long timestampMillis) {
+        try {
+            append(code, timestampMillis * 1_000_000L, rate);
+        } catch (UncheckedIOException e) {
+            // A full disk must not stop rate publishing; the history just has a gap
+            System.out.println("❌ Could not record " + CurrencyRegistry.name(code) + " tick: " + e.getMessage());
+        }
+    }
+
+    public void append(int code, long epochNanos, double rate) {
+        Series s = seriesFor(code);
+        MappedRecordFile ticks = s.ticks;
+        long n = ticks.size();
+        if (n > 0) {
+            epochNanos = Math.max(epochNanos, ticks.getLong(n - 1, T_TIME)); // keep the file sorted
+        }
+        try {
+            ticks.putLong(n, T_TIME, epochNanos);
+            ticks.putDouble(n, T_RATE, rate);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ticks.commit(n + 1);
+    }
+
+    // ---------- Tick queries ----------
+
+    public long getTickCount(int code) {
+        Series s = existing(code);
+        return (s == null) ? 0 : s.ticks.size();
+    }
+
+    // Ticks with fromNanos <= time < toNanos
+    public long countTicks(int code, long fromNanos, long toNanos) {
+        Series s = existing(code);
+        if (s == null) {
+            return 0;
+        }
+        long n = s.ticks.size();
+        return Math.max(0, s.ticks.lowerBound(T_TIME, toNanos, n) - s.ticks.lowerBound(T_TIME, fromNanos, n));
+    }
+
+    // Copies ticks with fromNanos <= time < toNanos (up to the arrays' length);
+    // returns the number copied
+    public int readTicks(int code, long fromNanos, long toNanos, long[] times, double[] rates) {
+        Series s = existing(code);
+        if (s == null) {
+            return 0;
+        }
+        MappedRecordFile ticks = s.ticks;
+        long n = ticks.size();
+        long from = ticks.lowerBound(T_TIME, fromNanos, n);
+        long to = ticks.lowerBound(T_TIME, toNanos, n);
+        int copied = (int) Math.min(Math.max(0, to - from), Math.min(times.length, rates.length));
+        for (int i = 0; i < copied; i++) {
+            times[i] = ticks.getLong(from + i, T_TIME);
+            rates[i] = ticks.getDouble(from + i, T_RATE);
+        }
+        return copied;
+    }
+
+    // ---------- Candles ----------
+
+    // Candles whose period starts in [fromNanos, toNanos), as of the last compaction
+    public Candles getCandles(int code, Resolution resolution, long fromNanos, long toNanos) {
+        Series s = existing(code);
+        if (s == null) {
+            return new Candles(0);
+        }
+        MappedRecordFile file = s.candles[resolution.ordinal()];
+        synchronized (file) {
+            long n = file.size();
+            long from = file.lowerBound(C_START, fromNanos - Math.floorMod(fromNanos, resolution.nanos), n);
+            long to = file.lowerBound(C_START, toNanos, n);
+            Candles result = new Candles((int) Math.max(0, to - from));
+            for (int i = 0; i < result.size(); i++) {
+                long r = from + i;
+                result.set(i, file.getLong(r, C_START), file.getDouble(r, C_OPEN), file.getDouble(r, C_HIGH),
+                    file.getDouble(r, C_LOW), file.getDouble(r, C_CLOSE), file.getLong(r, C_TICKS));
+            }
+            return result;
+        }
+    }
+
+    // Fold ticks appended since the last run into every resolution's candles
+    public void compact() {
+        Series[] current = series;
+        for (Series s : current) {
+            if (s == null) {
+                continue;
+            }
+            long tickCount = s.ticks.size();
+            for (Resolution resolution : Resolution.values()) {
+                MappedRecordFile file = s.candles[resolution.ordinal()];
+                try {
+                    compact(s.ticks, tickCount, file, resolution);
+                } catch (IOException e) {
+                    System.out.println("❌ Candle compaction failed for " + file.getFile() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void compact(MappedRecordFile ticks, long tickCount, MappedRecordFile file, Resolution resolution)
+            throws IOException {
+        synchronized (file) {
+            long cursor = file.getAux();
+            long n = file.size();
+            long lastStart = (n == 0) ? Long.MIN_VALUE : file.getLong(n - 1, C_START);
+            for (long t = cursor; t < tickCount; t++) {
+                long time = ticks.getLong(t, T_TIME);
+                double rate = ticks.getDouble(t, T_RATE);
+                long start = time - Math.floorMod(time, resolution.nanos);
+                if (start == lastStart) {
+                    long r = n - 1;
+                    file.putDouble(r, C_HIGH, Math.max(file.getDouble(r, C_HIGH), rate));
+                    file.putDouble(r, C_LOW, Math.min(file.getDouble(r, C_LOW), rate));
+                    file.putDouble(r, C_CLOSE, rate);
+                    file.putLong(r, C_TICKS, file.getLong(r, C_TICKS) + 1);
+                } else {
+                    file.putLong(n, C_START, start);
+                    file.putDouble(n, C_OPEN, rate);
+                    file.putDouble(n, C_HIGH, rate);
+                    file.putDouble(n, C_LOW, rate);
+                    file.putDouble(n, C_CLOSE, rate);
+                    file.putLong(n, C_TICKS, 1);
+                    n++;
+                    lastStart = start;
+                }
+            }
+            file.commit(n);
+            file.setAux(tickCount);
+        }
+    }
+
+    public synchronized void startCompaction(long periodMillis) {
+        if (compactor != null || periodMillis <= 0) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-compaction");
+            t.setDaemon(true);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(this::compact, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            compactor = null;
+        }
+        compact();
+        for (Series s : series) {
+            if (s != null) {
+                s.ticks.close();
+                for (MappedRecordFile file : s.candles) {
+                    file.close();
+                }
+            }
+        }
+        series = new Series[0];
+    }
+
+    // ---------- Files ----------
+
+    private Path tickFile(int code) {
+        return dir.resolve(CurrencyRegistry.name(code) + ".ticks");
+    }
+
+    private Series existing(int code) {
+        Series[] current = series;
+        return (code >= 0 && code < current.length) ? current[code] : null;
+    }
+
+    private Series seriesFor(int code) {
+        Series s = existing(code);
+        if (s != null) {
+            return s;
+        }
+        synchronized (this) {
+            Series[] current = series;
+            if (code < current.length && current[code] != null) {
+                return current[code];
+            }
+            try {
+                Series[] next = Arrays.copyOf(current, Math.max(current.length, code + 1));
+                next[code] = new Series(code);
+                series = next;
+                return next[code];
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Tick file and candle files of one currency
+    private final class Series {
+        final MappedRecordFile ticks;
+        final MappedRecordFile[] candles = new MappedRecordFile[Resolution.values().length];
+
+        Series(int code) throws IOException {
+            ticks = new MappedRecordFile(tickFile(code), TICK_MAGIC, TICK_SIZE, TICKS_PER_CHUNK);
+            for (Resolution resolution : Resolution.values()) {
+                candles[resolution.ordinal()] = new MappedRecordFile(
+                    dir.resolve(CurrencyRegistry.name(code) + "." + resolution.suffix),
+                    CANDLE_MAGIC, CANDLE_SIZE, CANDLES_PER_CHUNK);
+            }
+        }
+    }
+}
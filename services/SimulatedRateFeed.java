@@ -0,0 +1,70 @@
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// SimulatedRateFeed - random noise around fixed mid rates (the default feed)
+// For tests and demos it can also be made slow or unreliable: every fetch
+// sleeps latencyMillis and fails with probability failureRate.
+public class SimulatedRateFeed implements RateFeed {
+
+    // mid rate and +/- noise per currency (USDT to other currencies)
+    private final ConcurrentHashMap<String, double[]> quotes = new ConcurrentHashMap<>();
+    private volatile long latencyMillis = 0;
+    private volatile double failureRate = 0;
+
+    // A feed with no quotes (add them with setQuote)
+    public SimulatedRateFeed() {
+    }
+
+    // The default feed: the six supported currencies around their usual mid rates
+    // (a factory, so the constructor never calls the overridable setQuote)
+    public static SimulatedRateFeed withDefaultQuotes() {
+        SimulatedRateFeed feed = new SimulatedRateFeed();
+        feed.setQuote("AED", 3.67, 0.05);   // UAE Dirham
+        feed.setQuote("SAR", 3.75, 0.05);   // Saudi Riyal
+        feed.setQuote("INR", 83.12, 0.25);  // Indian Rupee
+        feed.setQuote("PHP", 56.45, 0.25);  // Philippine Peso
+        feed.setQuote("PKR", 278.50, 0.5);  // Pakistani Rupee
+        feed.setQuote("EUR", 0.92, 0.01);   // Euro
+        return feed;
+    }
+
+    public void setQuote(String currency, double mid, double noise) {
+        CurrencyRegistry.register(currency);
+        quotes.put(currency, new double[] {mid, noise});
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public double fetchRate(String currency) throws IOException {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted fetching " + currency);
+            }
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (failureRate > 0 && random.nextDouble() < failureRate) {
+            throw new IOException("Simulated feed failure for " + currency);
+        }
+        double[] quote = quotes.get(currency);
+        if (quote == null) {
+            return Double.NaN;
+        }
+        return quote[0] + (random.nextDouble() * 2 - 1) * quote[1];
+    }
+
+    @Override
+    public String getName() {
+        return "simulated";
+    }
+}
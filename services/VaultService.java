@@ -1,16 +1,63 @@
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 
+// VaultService - registry of family vaults
+//
+// Dashboard totals (secured and released amounts, vaults by status, pending
+// requests) are striped accumulators updated as vaults are created and their
+// requests filed, released, rejected or expired, so reading them is O(1)
+// however many vaults exist. A background verifier (-Dvaults.verifyMs,
+// default 60000, 0 = off) re-derives them with a full scan and reports drift
+// that persists across two checks (one-off differences are updates that
+// landed mid-scan).
 public class VaultService {
     private static VaultService instance = null;
-    private HashMap<String, FamilyVault> vaults;
+    private ConcurrentHashMap<String, FamilyVault> vaults;
+    // Participant (creator or active guardian) -> ids of their vaults. Each value
+    // is an immutable array replaced under the map's per-key lock, so lookups
+    // read it without locking and cost O(k) in the user's own vaults.
+    private final ConcurrentHashMap<Address, String[]> participants = new ConcurrentHashMap<>();
+    // Vaults in creation order, for paging without copying the map: an append-only
+    // array grown by doubling under the service monitor. Readers load the count
+    // first, then the array, which then holds at least that many vaults.
+    private volatile FamilyVault[] ordered = new FamilyVault[64];
+    private volatile int orderedCount;
+
+    // Running totals (see verifyTotals for the scan they must agree with)
+    private static final double AMOUNT_TOLERANCE = 1e-6; // DoubleAdder sums round differently from a scan
+    private final DoubleAdder securedAmount = new DoubleAdder();
+    private final DoubleAdder releasedAmount = new DoubleAdder();
+    private final LongAdder[] vaultsByStatus = new LongAdder[FamilyVault.VaultStatus.values().length];
+    private final LongAdder pendingRequests = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder drifts = new LongAdder();
+    private volatile String lastDrift;    // null while the totals agree with the scan
+    private String suspectedDrift;        // verifier thread only
+    private final ScheduledExecutorService verifier = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "vault-totals-verifier");
+        t.setDaemon(true);
+        return t;
+    });
     
     private VaultService() {
-        vaults = new HashMap<>();
+        vaults = new ConcurrentHashMap<>();
+        for (int i = 0; i < vaultsByStatus.length; i++) {
+            vaultsByStatus[i] = new LongAdder();
+        }
+        long verifyMillis = Long.getLong("vaults.verifyMs", 60_000L);
+        if (verifyMillis > 0) {
+            verifier.scheduleWithFixedDelay(this::verifyTotals, verifyMillis, verifyMillis, TimeUnit.MILLISECONDS);
+        }
         System.out.println("✅ VaultService initialized (Singleton)");
     }
     
-    public static VaultService getInstance() {
+    public static synchronized VaultService getInstance() {
         if (instance == null) {
             instance = new VaultService();
         }
@@ -19,7 +66,12 @@ public class VaultService {
     
     public FamilyVault createVault(String vaultName, String purpose, double totalAmount, String creatorAddress) {
         FamilyVault vault = new FamilyVault(vaultName, purpose, totalAmount, creatorAddress);
+        vault.attach(this); // before it is visible, so no guardian can be added unindexed
+        indexParticipant(vault.getCreator(), vault.getVaultId());
         vaults.put(vault.getVaultId(), vault);
+        append(vault);
+        securedAmount.add(vault.getRemainingBalance());
+        vaultsByStatus[vault.getStatus().ordinal()].increment();
         System.out.println("🏦 Vault created: " + vaultName);
         return vault;
     }
@@ -28,37 +80,206 @@ public class VaultService {
         return vaults.get(vaultId);
     }
     
+    // Vaults the user created or actively guards
     public ArrayList<FamilyVault> getUserVaults(String userAddress) {
-        ArrayList<FamilyVault> userVaults = new ArrayList<>();
-        for (FamilyVault vault : vaults.values()) {
-            if (vault.getCreatorAddress().equals(userAddress)) {
+        String[] ids = participants.get(Address.parse(userAddress));
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        ArrayList<FamilyVault> userVaults = new ArrayList<>(ids.length);
+        for (String id : ids) {
+            FamilyVault vault = vaults.get(id);
+            if (vault != null) {
                 userVaults.add(vault);
-            } else {
-                // Check if user is a guardian
-                for (Guardian g : vault.getGuardians()) {
-                    if (g.getWalletAddress().equals(userAddress)) {
-                        userVaults.add(vault);
-                        break;
-                    }
-                }
             }
         }
         return userVaults;
     }
+
+    // ---------- Totals (kept current by FamilyVault, under its monitor) ----------
+
+    void onRequestFiled() {
+        pendingRequests.increment();
+    }
+
+    // Released, rejected or expired
+    void onRequestClosed() {
+        pendingRequests.decrement();
+    }
+
+    void onFundsReleased(double amount) {
+        releasedAmount.add(amount);
+        securedAmount.add(-amount);
+    }
+
+    // ---------- Participant index (kept current by FamilyVault) ----------
+
+    void onGuardianAdded(FamilyVault vault, Guardian guardian) {
+        indexParticipant(guardian.getAddress(), vault.getVaultId());
+    }
+
+    // A guardian was deactivated: drop the vault from their index unless they
+    // still take part in it (as its creator or through another active guardian)
+    void onGuardianDeactivated(FamilyVault vault, Guardian guardian) {
+        String vaultId = vault.getVaultId();
+        participants.computeIfPresent(guardian.getAddress(), (address, ids) -> {
+            int at = Arrays.asList(ids).indexOf(vaultId);
+            if (at < 0 || vault.isParticipant(address)) {
+                return ids;
+            }
+            if (ids.length == 1) {
+                return null; // removes the key
+            }
+            String[] next = new String[ids.length - 1];
+            System.arraycopy(ids, 0, next, 0, at);
+            System.arraycopy(ids, at + 1, next, at, ids.length - at - 1);
+            return next;
+        });
+    }
+
+    private void indexParticipant(Address address, String vaultId) {
+        participants.compute(address, (key, ids) -> {
+            if (ids == null) {
+                return new String[] {vaultId};
+            }
+            for (String id : ids) {
+                if (id.equals(vaultId)) {
+                    return ids; // already there (creator who also guards, or a repeated guardian)
+                }
+            }
+            String[] next = Arrays.copyOf(ids, ids.length + 1);
+            next[ids.length] = vaultId;
+            return next;
+        });
+    }
     
     public ArrayList<FamilyVault> getAllVaults() {
         return new ArrayList<>(vaults.values());
     }
+
+    // One page of all vaults, oldest first; O(limit) however many vaults exist
+    public ArrayList<FamilyVault> getVaults(int offset, int limit) {
+        int count = orderedCount;
+        FamilyVault[] snapshot = ordered;
+        int from = Math.max(0, Math.min(offset, count));
+        int to = (int) Math.min(Math.min(count, snapshot.length), (long) from + Math.max(0, limit));
+        ArrayList<FamilyVault> page = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            if (snapshot[i] != null) { // null only if reset() ran between the two reads
+                page.add(snapshot[i]);
+            }
+        }
+        return page;
+    }
+
+    private synchronized void append(FamilyVault vault) {
+        FamilyVault[] array = ordered;
+        int count = orderedCount;
+        if (count == array.length) {
+            array = Arrays.copyOf(array, count * 2);
+            ordered = array;
+        }
+        array[count] = vault;
+        orderedCount = count + 1; // publishes the slot
+    }
+    
+    // Drop all vaults (used by benchmarks and load drivers between runs). They are
+    // detached first: requests on a dropped vault still expire or get decided
+    // later, and must not move this service's counters.
+    void reset() {
+        for (FamilyVault vault : vaults.values()) {
+            vault.attach(null);
+        }
+        vaults.clear();
+        synchronized (this) {
+            orderedCount = 0;
+            ordered = new FamilyVault[64];
+        }
+        participants.clear();
+        securedAmount.reset();
+        releasedAmount.reset();
+        for (LongAdder count : vaultsByStatus) {
+            count.reset();
+        }
+        pendingRequests.reset();
+        lastDrift = null;
+        suspectedDrift = null;
+    }
     
     public int getTotalVaults() {
         return vaults.size();
     }
+
+    public long getVaultCount(FamilyVault.VaultStatus status) {
+        return vaultsByStatus[status.ordinal()].sum();
+    }
+    
+    public int getPendingRequestCount() {
+        return (int) pendingRequests.sum();
+    }
+    
+    public double getTotalReleasedAmount() {
+        return releasedAmount.sum();
+    }
     
     public double getTotalSecuredAmount() {
-        double total = 0;
+        return securedAmount.sum();
+    }
+
+    // ---------- Drift verification ----------
+
+    // Re-derive every total with a full scan and compare; returns the
+    // differences found (null if none). Drift is reported once it is seen
+    // in two consecutive checks.
+    String verifyTotals() {
+        double secured = 0;
+        double released = 0;
+        long pending = 0;
+        long[] byStatus = new long[vaultsByStatus.length];
         for (FamilyVault vault : vaults.values()) {
-            total += vault.getRemainingBalance();
+            secured += vault.getRemainingBalance();
+            released += vault.getReleasedAmount();
+            pending += vault.getPendingCount();
+            byStatus[vault.getStatus().ordinal()]++;
+        }
+        StringBuilder drift = new StringBuilder();
+        compare(drift, "secured", securedAmount.sum(), secured);
+        compare(drift, "released", releasedAmount.sum(), released);
+        compare(drift, "pendingRequests", pendingRequests.sum(), pending);
+        for (FamilyVault.VaultStatus status : FamilyVault.VaultStatus.values()) {
+            compare(drift, status.name(), vaultsByStatus[status.ordinal()].sum(), byStatus[status.ordinal()]);
+        }
+        verifications.increment();
+
+        String found = (drift.length() > 0) ? drift.toString() : null;
+        if (found != null && suspectedDrift != null) {
+            drifts.increment();
+            System.err.println("⚠️  Vault totals drifted from a full scan: " + found);
+        }
+        lastDrift = (found != null && suspectedDrift != null) ? found : null;
+        suspectedDrift = found;
+        return found;
+    }
+
+    private static void compare(StringBuilder drift, String name, double counter, double scanned) {
+        if (Math.abs(counter - scanned) > AMOUNT_TOLERANCE * Math.max(1, Math.abs(scanned))) {
+            drift.append(drift.length() > 0 ? ", " : "").append(name).append(' ')
+                .append(counter).append(" vs scan ").append(scanned);
         }
-        return total;
+    }
+
+    // Checks run so far
+    public long getVerificationCount() {
+        return verifications.sum();
+    }
+
+    // Checks that confirmed drift
+    public long getDriftCount() {
+        return drifts.sum();
+    }
+
+    // Description of the drift confirmed by the latest check, null if the totals agree
+    public String getLastDrift() {
+        return lastDrift;
     }
 }
@@ -0,0 +1,63 @@
+// Exposes VaultService totals over JMX
+public class VaultServiceStats implements VaultServiceStatsMBean {
+    private final VaultService vaults;
+
+    public VaultServiceStats(VaultService vaults) {
+        this.vaults = vaults;
+    }
+
+    @Override
+    public int getTotalVaults() {
+        return vaults.getTotalVaults();
+    }
+
+    @Override
+    public int getPendingWithdrawalRequests() {
+        return vaults.getPendingRequestCount();
+    }
+
+    @Override
+    public double getTotalSecuredAmount() {
+        return vaults.getTotalSecuredAmount();
+    }
+
+    @Override
+    public double getTotalReleasedAmount() {
+        return vaults.getTotalReleasedAmount();
+    }
+
+    @Override
+    public long getActiveVaults() {
+        return vaults.getVaultCount(FamilyVault.VaultStatus.ACTIVE);
+    }
+
+    @Override
+    public long getLockedVaults() {
+        return vaults.getVaultCount(FamilyVault.VaultStatus.LOCKED);
+    }
+
+    @Override
+    public long getDisputedVaults() {
+        return vaults.getVaultCount(FamilyVault.VaultStatus.DISPUTED);
+    }
+
+    @Override
+    public long getCompletedVaults() {
+        return vaults.getVaultCount(FamilyVault.VaultStatus.COMPLETED);
+    }
+
+    @Override
+    public long getTotalsVerifications() {
+        return vaults.getVerificationCount();
+    }
+
+    @Override
+    public long getTotalsDrifts() {
+        return vaults.getDriftCount();
+    }
+
+    @Override
+    public String getLastTotalsDrift() {
+        return vaults.getLastDrift();
+    }
+}
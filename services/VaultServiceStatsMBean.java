@@ -0,0 +1,14 @@
+// JMX view of the family vaults (ObjectName oopsmini:type=VaultService)
+public interface VaultServiceStatsMBean {
+    int getTotalVaults();
+    int getPendingWithdrawalRequests();
+    double getTotalSecuredAmount();
+    double getTotalReleasedAmount();
+    long getActiveVaults();
+    long getLockedVaults();
+    long getDisputedVaults();
+    long getCompletedVaults();
+    long getTotalsVerifications();
+    long getTotalsDrifts();
+    String getLastTotalsDrift();
+}
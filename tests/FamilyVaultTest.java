@@ -0,0 +1,85 @@
+// FamilyVaultTest - regression checks for FamilyVault approval majorities
+// Plain main (no test framework): java -cp out FamilyVaultTest
+// Exits non-zero with an AssertionError on the first failure.
+public class FamilyVaultTest {
+
+    public static void main(String[] args) {
+        repeatedAddressesCountOnce();
+        deactivatedGuardiansLeaveTheMajority();
+        reactivatedAddressVotesAgain();
+        System.out.println("FamilyVaultTest: all checks passed");
+    }
+
+    // Five entries for three distinct addresses: two approvals are a majority
+    static void repeatedAddressesCountOnce() {
+        FamilyVault vault = vault();
+        vault.addGuardian(new Guardian("A", address(1), "Parent"));
+        vault.addGuardian(new Guardian("A again", address(1), "Parent"));
+        vault.addGuardian(new Guardian("A once more", address(1), "Parent"));
+        vault.addGuardian(new Guardian("B", address(2), "Sibling"));
+        vault.addGuardian(new Guardian("C", address(3), "Friend"));
+        String request = file(vault);
+
+        expect(!vault.processApproval(request, address(1), true), "one approval released the funds");
+        expect(!vault.processApproval(request, address(1), true), "a repeated address voted twice");
+        expect(vault.processApproval(request, address(2), true), "two of three distinct voters did not release");
+        check(vault.getReleasedAmount(), 100.0, "released amount");
+    }
+
+    // Five guardians, two deactivated: two approvals of the three active ones are a majority
+    static void deactivatedGuardiansLeaveTheMajority() {
+        FamilyVault vault = vault();
+        Guardian[] guardians = new Guardian[5];
+        for (int i = 0; i < guardians.length; i++) {
+            guardians[i] = new Guardian("G" + i, address(10 + i), "Family");
+            vault.addGuardian(guardians[i]);
+        }
+        guardians[3].deactivate();
+        guardians[4].deactivate();
+        String request = file(vault);
+
+        expect(!vault.processApproval(request, address(13), true), "a deactivated guardian voted");
+        expect(!vault.processApproval(request, address(10), true), "one approval released the funds");
+        expect(vault.processApproval(request, address(11), true), "two of three active voters did not release");
+    }
+
+    // A deactivated entry hands its address over to a later active entry for the same address
+    static void reactivatedAddressVotesAgain() {
+        FamilyVault vault = vault();
+        Guardian first = new Guardian("A", address(20), "Parent");
+        vault.addGuardian(first);
+        vault.addGuardian(new Guardian("B", address(21), "Parent"));
+        vault.addGuardian(new Guardian("C", address(22), "Parent"));
+        first.deactivate();
+        expect(!vault.isParticipant(Address.parse(address(20))), "deactivated address is still a participant");
+        vault.addGuardian(new Guardian("A returns", address(20), "Parent"));
+        expect(vault.isParticipant(Address.parse(address(20))), "re-added address is not a participant");
+        String request = file(vault);
+
+        expect(!vault.processApproval(request, address(20), true), "one approval released the funds");
+        expect(vault.processApproval(request, address(21), true), "two of three active voters did not release");
+    }
+
+    private static FamilyVault vault() {
+        return new FamilyVault("Test vault", "Tests", 1000.0, address(99));
+    }
+
+    private static String file(FamilyVault vault) {
+        vault.createWithdrawalRequest(address(99), 100.0, "Test", "none");
+        return vault.getPendingRequests().get(0).getRequestId();
+    }
+
+    private static String address(int n) {
+        return "0x" + String.format("%02x", n).repeat(20);
+    }
+
+    private static void check(double actual, double expected, String what) {
+        expect(Math.abs(actual - expected) < 1e-9, what + ": expected " + expected + " but was " + actual);
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+// FeeScheduleTest - regression checks for FeeSchedule compilation and pricing
+// Plain main (no test framework): java -cp out FeeScheduleTest
+// Exits non-zero with an AssertionError on the first failure.
+public class FeeScheduleTest {
+
+    private static final String TIERS = String.join("\n",
+        "tier basic 0",
+        "tier premium 1",
+        "limit premium 10000",
+        "fee premium * 0 max 0.5");
+
+    public static void main(String[] args) {
+        feeAtExactlyTheLimitIsPriced();
+        scheduleWithoutRuleAtTheLimitIsRejected();
+        nonFiniteRatesAreRejected();
+        amountAboveLimitHasNoFee();
+        termsComeFromOneSchedule();
+        transferFromUndefinedTierIsRefused();
+        reloadThatDropsATierIsRejected(); // last: gold stays in the schedule afterwards
+        System.out.println("FeeScheduleTest: all checks passed");
+    }
+
+    // A band edge at the limit used to leave the limit amount itself unpriced (NaN fee)
+    static void feeAtExactlyTheLimitIsPriced() {
+        FeeSchedule fees = FeeSchedule.getInstance();
+        fees.load(TIERS + "\nlimit basic 500\nfee basic * 0 500 1.0\nfee basic * 500 max 2.0", "test");
+        check(fees.calculateFee(User.TIER_BASIC, 500.0), 10.0, "fee at the limit");
+        check(fees.calculateFee(User.TIER_BASIC, 499.0), 4.99, "fee below the limit");
+
+        BlockchainService blockchain = BlockchainService.getInstance();
+        blockchain.setSimulatedDelayMillis(0);
+        blockchain.getVelocityLimiter().setEnabled(false);
+        User sender = new BasicUser("Limit", "0x" + "4c".repeat(20), "k");
+        sender.setBalance(1000);
+        blockchain.registerUser(sender);
+        TransferCheck result = new TransferCheck();
+        TransferCheck.Reason reason = blockchain.validateTransfer(sender, Address.parse("0x" + "4d".repeat(20)),
+            500.0, result);
+        expect(reason == TransferCheck.Reason.OK, "transfer of exactly the limit: " + reason);
+        check(result.getFee(), 10.0, "validated fee at the limit");
+        fees.load(FeeSchedule.BUILT_IN_RULES, "built-in");
+    }
+
+    static void scheduleWithoutRuleAtTheLimitIsRejected() {
+        expectRejected(TIERS + "\nlimit basic 500\nfee basic * 0 500 1.0", "no fee rule for tier basic at amount 500.0");
+    }
+
+    static void nonFiniteRatesAreRejected() {
+        expectRejected(TIERS + "\nlimit basic 500\nfee basic * 0 max NaN", "invalid band or fee");
+        expectRejected(TIERS + "\nlimit basic 500\nfee basic * 0 max 1.0 Infinity", "invalid band or fee");
+        expectRejected(TIERS + "\nlimit basic NaN\nfee basic * 0 max 1.0", "invalid limit");
+    }
+
+    static void amountAboveLimitHasNoFee() {
+        FeeSchedule fees = FeeSchedule.getInstance();
+        fees.load(TIERS + "\nlimit basic 500\nfee basic * 0 600 1.0", "test");
+        try {
+            double fee = fees.calculateFee(User.TIER_BASIC, 700.0);
+            throw new AssertionError("unpriced band returned a fee: " + fee);
+        } catch (IllegalArgumentException expected) {
+            // no rule above the limit: refused, never NaN
+        } finally {
+            fees.load(FeeSchedule.BUILT_IN_RULES, "built-in");
+        }
+    }
+
+    static void termsComeFromOneSchedule() {
+        FeeSchedule fees = FeeSchedule.getInstance();
+        fees.load(TIERS + "\nlimit basic 500\nfee basic * 0 max 1.0\nvelocity basic 2000 20 10000 max", "test");
+        FeeSchedule.Terms terms = new FeeSchedule.Terms();
+        expect(fees.terms(User.TIER_BASIC, null, 200.0, terms), "basic tier missing from terms");
+        check(terms.getLimit(), 500.0, "terms limit");
+        check(terms.getFee(), 2.0, "terms fee");
+        check(terms.getVelocityLimit(FeeSchedule.DAILY_COUNT), 20.0, "terms daily count");
+        expect(terms.getVelocityLimit(FeeSchedule.MONTHLY_COUNT) == Double.POSITIVE_INFINITY, "terms monthly count");
+        expect(fees.terms(User.TIER_BASIC, null, 900.0, terms) && Double.isNaN(terms.getFee()),
+            "above the limit the fee is not priced");
+        expect(!fees.terms(7, null, 10.0, terms), "undefined tier code produced terms");
+        fees.load(FeeSchedule.BUILT_IN_RULES, "built-in");
+    }
+
+    // Accounts keep their tier code, so a schedule without it must not be installed
+    static void reloadThatDropsATierIsRejected() {
+        FeeSchedule fees = FeeSchedule.getInstance();
+        fees.load(FeeSchedule.BUILT_IN_RULES + "\ntier gold 2\nlimit gold 50000\nfee gold * 0 max 0.25", "test");
+        expectRejected(FeeSchedule.BUILT_IN_RULES, "drops tier gold (code 2)");
+        check(fees.getLimit(2), 50000.0, "previous schedule still in force");
+    }
+
+    // An account whose tier code is not in the schedule is refused, not thrown at
+    static void transferFromUndefinedTierIsRefused() {
+        BlockchainService blockchain = BlockchainService.getInstance();
+        blockchain.setSimulatedDelayMillis(0);
+        blockchain.getVelocityLimiter().setEnabled(false);
+        User sender = new BasicUser("Gap", "0x" + "4e".repeat(20), "k") {
+            @Override
+            protected int getDefaultTierCode() {
+                return 5;
+            }
+        };
+        sender.setBalance(1000);
+        TransferCheck result = new TransferCheck();
+        TransferCheck.Reason reason = blockchain.validateTransfer(sender, Address.parse("0x" + "4f".repeat(20)),
+            10.0, result);
+        expect(reason == TransferCheck.Reason.LIMIT_EXCEEDED, "undefined tier: " + reason);
+        check(result.getLimit(), 0.0, "undefined tier limit");
+    }
+
+    private static void expectRejected(String rules, String message) {
+        try {
+            FeeSchedule.getInstance().load(rules, "test");
+            throw new AssertionError("schedule accepted: " + rules.replace('\n', ';'));
+        } catch (IllegalArgumentException e) {
+            expect(e.getMessage().contains(message), "unexpected rejection: " + e.getMessage());
+        }
+    }
+
+    private static void check(double actual, double expected, String what) {
+        expect(Math.abs(actual - expected) < 1e-9, what + ": expected " + expected + " but was " + actual);
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+// PagedAccountStoreTest - write-back and savings-plan persistence of PagedAccountStore
+// Plain main (no test framework): java -cp out PagedAccountStoreTest
+// Exits non-zero with an AssertionError on the first failure.
+public class PagedAccountStoreTest {
+
+    public static void main(String[] args) throws IOException {
+        cleanEvictionsAreNotWritten();
+        cataloguePlansRoundTripThroughTheRecord();
+        plansOutsideTheCatalogueAreNotPersisted();
+        System.out.println("PagedAccountStoreTest: all checks passed");
+    }
+
+    // Only users changed through update() are written back
+    static void cleanEvictionsAreNotWritten() throws IOException {
+        Path file = Files.createTempFile("paged-store-test", ".pages");
+        try (PagedAccountStore store = new PagedAccountStore(file, 2)) {
+            AccountTable table = new AccountTable();
+            int[] slots = register(store, table, 10);
+            expect(store.getRecordWrites() == 10, "registration writes: " + store.getRecordWrites());
+            for (int i = 0; i < 5; i++) {
+                store.get(table, slots[9]); // hot: holds the single main entry from here on
+            }
+
+            touchAll(store, table, slots);
+            expect(store.getMisses() > 0, "nothing was evicted");
+            expect(store.getRecordWrites() == 10, "clean evictions were written: " + store.getRecordWrites());
+
+            store.update(table, slots[0], user -> {
+                user.addSavingsPlan(user.getUserSavingsPlans().get(0));
+                return null;
+            });
+            store.get(table, slots[1]); // pushes slots[0] out of the window; it loses to the hot user
+            expect(store.getRecordWrites() == 11, "dirty eviction writes: " + store.getRecordWrites());
+
+            store.flush();
+            expect(store.getRecordWrites() == 11, "flush wrote clean users: " + store.getRecordWrites());
+            store.update(table, slots[9], user -> null);
+            store.flush();
+            expect(store.getRecordWrites() == 12, "flush skipped a dirty user: " + store.getRecordWrites());
+            store.flush();
+            expect(store.getRecordWrites() == 12, "flush rewrote a written user: " + store.getRecordWrites());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // A catalogue plan comes back with all of its terms and its deposited amount
+    static void cataloguePlansRoundTripThroughTheRecord() throws IOException {
+        Path file = Files.createTempFile("paged-store-test", ".pages");
+        AccountTable table = new AccountTable();
+        int[] slots;
+        try {
+            try (PagedAccountStore store = new PagedAccountStore(file, 2)) {
+                slots = register(store, table, 10);
+                store.update(table, slots[3], user -> {
+                    ArrayList<SavingsPlan> catalogue = user.getUserSavingsPlans();
+                    for (int i = catalogue.size() - 1; i >= 0; i--) {
+                        SavingsPlan plan = catalogue.get(i);
+                        plan.deposit(plan.getMinimumAmount() * (i + 2));
+                        user.addSavingsPlan(plan);
+                    }
+                    return null;
+                });
+            }
+            // A fresh store has nothing resident: the user is rebuilt from its record
+            try (PagedAccountStore store = new PagedAccountStore(file, 2)) {
+                User user = store.get(table, slots[3]);
+                ArrayList<SavingsPlan> catalogue = user.getUserSavingsPlans();
+                ArrayList<SavingsPlan> plans = user.getSavingsPlans();
+                expect(plans.size() == catalogue.size(), "plans restored: " + plans.size());
+                for (int i = 0; i < plans.size(); i++) {
+                    SavingsPlan expected = catalogue.get(catalogue.size() - 1 - i);
+                    SavingsPlan actual = plans.get(i);
+                    expect(actual.getPlanName().equals(expected.getPlanName()), "plan order: " + actual.getPlanName());
+                    expect(actual.getDescription().equals(expected.getDescription()), "description");
+                    expect(actual.getInterestRate() == expected.getInterestRate(), "interest rate");
+                    expect(actual.getMinimumAmount() == expected.getMinimumAmount(), "minimum amount");
+                    expect(actual.getLockingPeriod().equals(expected.getLockingPeriod()), "locking period");
+                    expect(actual.getLockingDays() == expected.getLockingDays(), "locking days");
+                    double deposited = expected.getMinimumAmount() * (catalogue.size() - 1 - i + 2);
+                    expect(actual.getCurrentAmount() == deposited, actual.getPlanName() + " amount: "
+                        + actual.getCurrentAmount());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Documented limit: the record holds catalogue indexes, so other plans are dropped on eviction
+    static void plansOutsideTheCatalogueAreNotPersisted() throws IOException {
+        Path file = Files.createTempFile("paged-store-test", ".pages");
+        AccountTable table = new AccountTable();
+        int[] slots;
+        try {
+            try (PagedAccountStore store = new PagedAccountStore(file, 2)) {
+                slots = register(store, table, 10);
+                store.update(table, slots[5], user -> {
+                    SavingsPlan listed = user.getUserSavingsPlans().get(0);
+                    user.addSavingsPlan(new SavingsPlan("Custom", "not in the catalogue", 9.0, 1.0, "1 month", 30));
+                    // Same name as a catalogue plan but different terms: not silently re-priced
+                    user.addSavingsPlan(new SavingsPlan(listed.getPlanName(), listed.getDescription(),
+                        listed.getInterestRate() * 2, listed.getMinimumAmount(), listed.getLockingPeriod(),
+                        listed.getLockingDays()));
+                    user.addSavingsPlan(listed);
+                    return null;
+                });
+            }
+            try (PagedAccountStore store = new PagedAccountStore(file, 2)) {
+                ArrayList<SavingsPlan> plans = store.get(table, slots[5]).getSavingsPlans();
+                expect(plans.size() == 1, "only the catalogue plan survives: " + plans.size());
+                expect(plans.get(0).getInterestRate() == store.get(table, slots[5]).getUserSavingsPlans().get(0)
+                    .getInterestRate(), "catalogue rate");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static int[] register(PagedAccountStore store, AccountTable table, int count) {
+        int[] slots = new int[count];
+        for (int i = 0; i < count; i++) {
+            User user = new BasicUser("Paged" + i, "0x" + String.format("%02x", 0x60 + i).repeat(20), "k");
+            slots[i] = table.put(user.getAddress(), null, 100.0, User.TIER_BASIC);
+            user.bindAccount(table, slots[i]);
+            store.put(user);
+        }
+        return slots;
+    }
+
+    // Fault every user in twice; with a cache of two most of them are evicted again
+    private static void touchAll(PagedAccountStore store, AccountTable table, int[] slots) {
+        for (int round = 0; round < 2; round++) {
+            for (int slot : slots) {
+                store.get(table, slot);
+            }
+        }
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 
 /**
@@ -261,7 +263,7 @@ public class BlockchainPaymentGUI extends JFrame {
                 boolean isPremium = typeCombo.getSelectedIndex() == 1;
                 double balance = Double.parseDouble(balanceField.getText());
                 
-                String walletAddress = "0x" + Integer.toHexString((int)(Math.random() * Integer.MAX_VALUE)).toUpperCase();
+                String walletAddress = blockchain.newWalletAddress();
                 
                 User newUser = isPremium ? 
                     new PremiumUser(name, walletAddress, "encryptedKey_" + name) :
@@ -385,9 +387,10 @@ public class BlockchainPaymentGUI extends JFrame {
                 
                 amountField.setText("");
                 
-            } catch (InsufficientBalanceException | InvalidAddressException | TransactionLimitExceededException ex) {
+            } catch (InsufficientBalanceException | InvalidAddressException | TransactionLimitExceededException
+                     | FraudSuspectedException ex) {
                 JOptionPane.showMessageDialog(panel, "❌ Error: " + ex.getMessage(), "Transaction Failed", JOptionPane.ERROR_MESSAGE);
-            } catch (NumberFormatException ex) {
+            } catch (IllegalArgumentException ex) { // unparsable, or rejected as not a positive amount
                 JOptionPane.showMessageDialog(panel, "Invalid amount", "Input Error", JOptionPane.ERROR_MESSAGE);
             }
         });
@@ -419,7 +422,18 @@ public class BlockchainPaymentGUI extends JFrame {
         
         ExchangeRateService rates = ExchangeRateService.getInstance();
         
+        // Charts are drawn from the tick store's 1-minute candles
+        RateTickStore tickStore = rates.getTickStore();
+        if (tickStore == null) {
+            try {
+                tickStore = rates.enableTickStore(Path.of(System.getProperty("rates.tickStore", "data/ticks")));
+            } catch (IOException e) {
+                System.out.println("❌ Rate history unavailable: " + e.getMessage());
+            }
+        }
+        
         String[] currencies = {"AED", "SAR", "INR", "PHP", "PKR", "EUR"};
+        ArrayList<JLabel> rateLabels = new ArrayList<>();
         
         for (String currency : currencies) {
             JPanel card = new JPanel();
@@ -438,13 +452,79 @@ public class BlockchainPaymentGUI extends JFrame {
             card.add(currencyLabel);
             card.add(Box.createVerticalStrut(10));
             card.add(rateLabel);
+            rateLabels.add(rateLabel);
+            
+            if (tickStore != null) {
+                card.add(Box.createVerticalStrut(10));
+                card.add(new CandleChart(tickStore, CurrencyRegistry.code(currency)));
+            }
             
             panel.add(card);
         }
         
+        // Follow the background refresher
+        new Timer(5000, e -> {
+            for (int i = 0; i < currencies.length; i++) {
+                rateLabels.get(i).setText(String.format("%.4f", rates.getRate(currencies[i])));
+            }
+            panel.repaint();
+        }).start();
+        
         return panel;
     }
     
+    // Last two hours of 1-minute OHLC candles for one currency (never serialized)
+    @SuppressWarnings("serial")
+    private static class CandleChart extends JComponent {
+        private static final long WINDOW_NANOS = 2 * 3_600_000_000_000L;
+        private final RateTickStore store;
+        private final int code;
+        
+        CandleChart(RateTickStore store, int code) {
+            this.store = store;
+            this.code = code;
+            setPreferredSize(new Dimension(300, 120));
+            setAlignmentX(LEFT_ALIGNMENT);
+        }
+        
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(new Color(255, 255, 255, 40));
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            
+            long now = System.currentTimeMillis() * 1_000_000L;
+            Candles candles = store.getCandles(code, RateTickStore.Resolution.MINUTE, now - WINDOW_NANOS, now + 1);
+            if (candles.size() == 0) {
+                g2.setColor(Color.WHITE);
+                g2.drawString("Collecting history…", 8, getHeight() / 2);
+                return;
+            }
+            double[] range = candles.getRange();
+            double span = Math.max(range[1] - range[0], 1e-9);
+            int slots = (int) (WINDOW_NANOS / RateTickStore.Resolution.MINUTE.getNanos());
+            double slotWidth = (double) getWidth() / slots;
+            int height = getHeight() - 4;
+            for (int i = 0; i < candles.size(); i++) {
+                int slot = (int) ((candles.getStartNanos(i) - (now - WINDOW_NANOS)) / RateTickStore.Resolution.MINUTE.getNanos());
+                int x = (int) (slot * slotWidth + slotWidth / 2);
+                int yHigh = 2 + (int) ((range[1] - candles.getHigh(i)) / span * height);
+                int yLow = 2 + (int) ((range[1] - candles.getLow(i)) / span * height);
+                int yOpen = 2 + (int) ((range[1] - candles.getOpen(i)) / span * height);
+                int yClose = 2 + (int) ((range[1] - candles.getClose(i)) / span * height);
+                boolean up = candles.getClose(i) >= candles.getOpen(i);
+                g2.setColor(up ? new Color(140, 230, 160) : new Color(255, 150, 150));
+                g2.drawLine(x, yHigh, x, yLow);
+                int bodyWidth = Math.max(1, (int) (slotWidth * 0.7));
+                g2.fillRect(x - bodyWidth / 2, Math.min(yOpen, yClose), bodyWidth, Math.max(1, Math.abs(yClose - yOpen)));
+            }
+            g2.setColor(Color.WHITE);
+            g2.drawString(String.format("%.4f", range[1]), 4, 12);
+            g2.drawString(String.format("%.4f", range[0]), 4, getHeight() - 4);
+        }
+    }
+    
     private JPanel createVaultPanel() {
         JPanel panel = new JPanel();
         panel.setLayout(new BorderLayout());
@@ -488,7 +568,7 @@ public class BlockchainPaymentGUI extends JFrame {
                 String purpose = purposeField.getText().trim();
                 double amount = Double.parseDouble(amountField.getText());
 
-                String creatorAddress = "0x" + Integer.toHexString((int)(Math.random() * Integer.MAX_VALUE)).toUpperCase();
+                String creatorAddress = blockchain.newWalletAddress();
 
                 // Persist vault through VaultService
                 VaultService vs = VaultService.getInstance();
@@ -783,6 +863,14 @@ public class BlockchainPaymentGUI extends JFrame {
         statsPanel.add(createStatCard("💸 Total Fees", "$" + String.format("%.2f", totalFees)));
         
         panel.add(statsPanel, BorderLayout.CENTER);
+        
+        // Per-stage sendMoney latency (from BlockchainService instrumentation)
+        JTextArea stageArea = new JTextArea("⏱️ Transfer Stage Latency\n" + blockchain.getTransferMetrics().report());
+        stageArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        stageArea.setEditable(false);
+        stageArea.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(stageArea, BorderLayout.SOUTH);
+        
         panel.revalidate();
         panel.repaint();
     }
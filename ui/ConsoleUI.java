@@ -159,7 +159,7 @@ public class ConsoleUI {
         scanner.nextLine();
         
         // Generate wallet address
-        String walletAddress = "0x" + Integer.toHexString((int)(Math.random() * Integer.MAX_VALUE)).toUpperCase();
+        String walletAddress = blockchain.newWalletAddress();
         
         User newUser;
         if (typeChoice == 1) {
@@ -274,7 +274,7 @@ public class ConsoleUI {
         scanner.nextLine();
         
         // Generate creator address
-        String creatorAddress = "0x" + Integer.toHexString((int)(Math.random() * Integer.MAX_VALUE)).toUpperCase();
+        String creatorAddress = blockchain.newWalletAddress();
         
         // Persist vault via VaultService so it is manageable from UI
         VaultService vs = VaultService.getInstance();
@@ -454,6 +454,9 @@ public class ConsoleUI {
         System.out.println("│ 📊 Avg Transaction: $" + String.format("%-27.2f", avgAmount) + "│");
         System.out.println("└─────────────────────────────────────────┘");
         
+        System.out.println("\n" + BOLD + "⏱️  Transfer Stage Latency" + RESET);
+        System.out.print(blockchain.getTransferMetrics().report());
+        
         pause();
     }
     
@@ -508,6 +511,7 @@ public class ConsoleUI {
     }
     
     public static void main(String[] args) {
+        JmxMetrics.registerAll();
         ConsoleUI ui = new ConsoleUI();
         ui.start();
     }
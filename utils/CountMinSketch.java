@@ -0,0 +1,88 @@
+import java.util.Arrays;
+
+// CountMinSketch - approximate frequency counts in fixed memory
+// depth rows of width counters; an item increments one counter per row and its
+// estimate is the row minimum, so estimates never undercount (except for racy
+// concurrent increments, which may be lost - fine for a popularity estimate).
+//
+// With a sample size set, every counter is halved after that many increments,
+// so old popularity decays and the sketch tracks recent frequency (TinyLFU aging).
+public class CountMinSketch {
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+        0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL
+    };
+
+    private final int[] counters;
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final long sampleSize;
+    private long additions = 0;
+
+    // width is rounded up to a power of two; sampleSize <= 0 disables aging
+    public CountMinSketch(int width, int depth, long sampleSize) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + SEEDS.length + ": " + depth);
+        }
+        int w = 16;
+        while (w < width && w < (1 << 30)) {
+            w <<= 1;
+        }
+        this.width = w;
+        this.depth = depth;
+        this.mask = w - 1;
+        this.sampleSize = sampleSize;
+        this.counters = new int[w * depth];
+    }
+
+    public void increment(long item) {
+        add(item, 1);
+    }
+
+    public void add(long item, int count) {
+        for (int row = 0; row < depth; row++) {
+            int i = row * width + index(item, row);
+            int next = counters[i] + count;
+            counters[i] = (next < 0) ? Integer.MAX_VALUE : next;
+        }
+        if (sampleSize > 0 && ++additions >= sampleSize) {
+            halve();
+        }
+    }
+
+    public int estimate(long item) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[row * width + index(item, row)]);
+        }
+        return min;
+    }
+
+    // Age all counts by half
+    public void halve() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>>= 1;
+        }
+        additions = 0;
+    }
+
+    public void reset() {
+        Arrays.fill(counters, 0);
+        additions = 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    private int index(long item, int row) {
+        long h = (item + SEEDS[row]) * SEEDS[(row + 1) % SEEDS.length];
+        h ^= h >>> 32;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,62 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+// Custom JDK Flight Recorder events for the payment hot paths.
+// Record with: java -XX:StartFlightRecording=filename=payments.jfr ...
+// Thresholds keep normal traffic out of the recording; override them in a .jfc file.
+
+// One money transfer (BlockchainService.sendMoney), with per-stage timings.
+// The simulated confirmation delay counts toward the threshold, so with the
+// default 1 s delay every transfer is recorded; use -Dblockchain.delayMs=0 to
+// capture only genuinely slow processing.
+@Name("oopsmini.Transfer")
+@Label("Transfer")
+@Category({"Blockchain Payment", "Transfers"})
+@Description("A sendMoney call, with time spent in each processing stage")
+@Threshold("20 ms")
+@StackTrace(false)
+class TransferEvent extends Event {
+    @Label("Sender") String sender;
+    @Label("Recipient") String recipient;
+    @Label("Amount (USDT)") double amount;
+    @Label("Fee (USDT)") double fee;
+    @Label("Status") String status;
+    @Label("Validation") @Timespan(Timespan.NANOSECONDS) long validationNanos; // includes fee calculation
+    @Label("Fraud Screening") @Timespan(Timespan.NANOSECONDS) long screeningNanos;
+    @Label("Confirmation Wait") @Timespan(Timespan.NANOSECONDS) long confirmationNanos;
+    @Label("Balance Update") @Timespan(Timespan.NANOSECONDS) long balanceUpdateNanos;
+    @Label("History Append") @Timespan(Timespan.NANOSECONDS) long historyAppendNanos;
+    @Label("Observer Fan-out") @Timespan(Timespan.NANOSECONDS) long observerNanos;
+}
+
+// One guardian vote (FamilyVault.processApproval)
+@Name("oopsmini.VaultApproval")
+@Label("Vault Approval")
+@Category({"Blockchain Payment", "Vaults"})
+@Description("A guardian approval or rejection of a withdrawal request")
+@Threshold("10 ms")
+@StackTrace(false)
+class VaultApprovalEvent extends Event {
+    @Label("Vault") String vaultId;
+    @Label("Request") String requestId;
+    @Label("Guardian") String guardian;
+    @Label("Approve") boolean approve;
+    @Label("Funds Released") boolean released;
+}
+
+// One exchange-rate refresh cycle (RateRefresher.refreshNow)
+@Name("oopsmini.RateRefresh")
+@Label("Rate Refresh")
+@Category({"Blockchain Payment", "Rates"})
+@Description("A refresh of the exchange-rate table")
+@Threshold("5 ms")
+@StackTrace(false)
+class RateRefreshEvent extends Event {
+    @Label("Currencies Refreshed") int currencies;
+}
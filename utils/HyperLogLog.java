@@ -0,0 +1,77 @@
+import java.util.Arrays;
+
+// HyperLogLog - approximate distinct count in a few dozen bytes
+// 2^precision one-byte registers each keep the longest run of leading zeros seen
+// in their share of the hashed items. With precision 6 (64 bytes) the typical
+// error is ~13%, plenty for "how many different recipients lately" features.
+// Small cardinalities use linear counting, which is exact-ish below ~50.
+public class HyperLogLog {
+    private final byte[] registers;
+    private final int precision;
+    private final double alphaMM;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        int m = 1 << precision;
+        this.registers = new byte[m];
+        double alpha = (m == 16) ? 0.673 : (m == 32) ? 0.697 : (m == 64) ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        this.alphaMM = alpha * m * m;
+    }
+
+    // item is any 64-bit key; it is re-mixed here, so plain hash codes are fine
+    public void add(long item) {
+        long h = mix(item);
+        int index = (int) (h >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((h << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public double estimate() {
+        return estimate(registers, null);
+    }
+
+    // Distinct count of the union of this and other (same precision), without allocating
+    public double estimateUnion(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Precision mismatch: " + precision + " vs " + other.precision);
+        }
+        return estimate(registers, other.registers);
+    }
+
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    public int sizeInBytes() {
+        return registers.length;
+    }
+
+    private double estimate(byte[] a, byte[] b) {
+        int m = a.length;
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < m; i++) {
+            int r = (b == null) ? a[i] : Math.max(a[i], b[i]);
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        double raw = alphaMM / sum;
+        if (raw <= 2.5 * m && zeros > 0) {
+            return m * Math.log((double) m / zeros); // linear counting
+        }
+        return raw;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,30 @@
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// JmxMetrics - registers the service MBeans with the platform MBean server
+// Local tools (jconsole, VisualVM) can attach to the running JVM and browse the
+// "oopsmini" domain without any extra JVM flags.
+public class JmxMetrics {
+    private static boolean registered = false;
+
+    public static synchronized void registerAll() {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new BlockchainServiceStats(BlockchainService.getInstance()),
+                new ObjectName("oopsmini:type=BlockchainService"));
+            server.registerMBean(new VaultServiceStats(VaultService.getInstance()),
+                new ObjectName("oopsmini:type=VaultService"));
+            server.registerMBean(new ExchangeRateServiceStats(ExchangeRateService.getInstance()),
+                new ObjectName("oopsmini:type=ExchangeRateService"));
+            registered = true;
+            System.out.println("📈 JMX metrics registered (domain: oopsmini)");
+        } catch (JMException e) {
+            System.err.println("⚠️  Could not register JMX metrics: " + e.getMessage());
+        }
+    }
+}
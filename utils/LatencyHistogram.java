@@ -0,0 +1,114 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// LatencyHistogram - fixed-memory, high-dynamic-range histogram of nanosecond latencies
+// Log-linear buckets (128 linear sub-buckets per power of two) keep relative error
+// under 1% from 1 ns up to ~1 hour. Recording is lock-free and allocation-free,
+// so it can sit on hot paths and be read concurrently.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_TRACKABLE = (1L << 42) - 1; // ~73 minutes in ns
+    private static final int BUCKETS = indexFor(MAX_TRACKABLE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_TRACKABLE);
+        counts.incrementAndGet(indexFor(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0.0 : (double) totalSum.get() / count;
+    }
+
+    // Value at the given percentile (0-100), reported as the bucket's highest equivalent value
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    // Adds all recorded values of another histogram into this one
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalSum.addAndGet(other.totalSum.get());
+        long otherMax = other.getMax();
+        long max = maxValue.get();
+        while (otherMax > max && !maxValue.compareAndSet(max, otherMax)) {
+            max = maxValue.get();
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+    }
+
+    // Compact one-line summary in microseconds
+    public String summary() {
+        return String.format("count=%d p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+            getCount(),
+            getValueAtPercentile(50.0) / 1000.0,
+            getValueAtPercentile(99.0) / 1000.0,
+            getValueAtPercentile(99.9) / 1000.0,
+            getMax() / 1000.0);
+    }
+
+    private static int indexFor(long value) {
+        int exponent = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        int sub = (int) (value >>> exponent);
+        return exponent * SUB_BUCKET_COUNT + sub;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        int exponent;
+        int sub;
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            exponent = 0;
+            sub = index;
+        } else {
+            exponent = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+            sub = index - exponent * SUB_BUCKET_COUNT;
+        }
+        return (((long) sub + 1) << exponent) - 1;
+    }
+}
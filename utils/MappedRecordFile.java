@@ -0,0 +1,163 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// MappedRecordFile - append-only file of fixed-size records, memory-mapped in chunks
+//
+// Layout: a 64-byte header (magic, record size, committed record count, one
+// caller-defined long) followed by the records. The file is mapped in
+// fixed-size chunks as it grows, so record i is read straight from the page
+// cache at a computed offset - no streams, no deserialization.
+//
+// One writer, many readers: the writer fills a record past the committed count
+// and then commit()s it, which stores the count in the header and in a volatile
+// field. Readers only look at records below the count they read, so they never
+// see a half-written record. Rewriting an already committed record in place
+// is allowed, but guarding readers against it is up to the caller.
+public class MappedRecordFile implements Closeable {
+    private static final int HEADER_SIZE = 64;
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_RECORD_SIZE = 4;
+    private static final int OFF_COUNT = 8;
+    private static final int OFF_AUX = 16;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final int recordSize;
+    private final int chunkShift;   // records per chunk = 1 << chunkShift
+    private final long chunkMask;
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    private volatile long count;
+
+    // recordsPerChunk is rounded up to a power of two
+    public MappedRecordFile(Path file, int magic, int recordSize, int recordsPerChunk) throws IOException {
+        int shift = 0;
+        while ((1 << shift) < recordsPerChunk && shift < 30) {
+            shift++;
+        }
+        if ((long) recordSize << shift > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Chunk too large: " + recordsPerChunk + " x " + recordSize);
+        }
+        this.file = file;
+        this.recordSize = recordSize;
+        this.chunkShift = shift;
+        this.chunkMask = (1L << shift) - 1;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        boolean fresh = channel.size() < HEADER_SIZE;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (fresh) {
+            header.putInt(OFF_MAGIC, magic);
+            header.putInt(OFF_RECORD_SIZE, recordSize);
+            header.putLong(OFF_COUNT, 0);
+            header.putLong(OFF_AUX, 0);
+        } else if (header.getInt(OFF_MAGIC) != magic || header.getInt(OFF_RECORD_SIZE) != recordSize) {
+            channel.close();
+            throw new IOException("Not a record file of this type: " + file);
+        }
+        long committed = header.getLong(OFF_COUNT);
+        if (committed > 0) {
+            ensureChunk(committed - 1);
+        }
+        this.count = committed;
+    }
+
+    // Committed records
+    public long size() {
+        return count;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // ---------- Reading (any thread, index < size()) ----------
+
+    public long getLong(long index, int fieldOffset) {
+        return chunks[(int) (index >>> chunkShift)].getLong(offset(index) + fieldOffset);
+    }
+
+    public double getDouble(long index, int fieldOffset) {
+        return chunks[(int) (index >>> chunkShift)].getDouble(offset(index) + fieldOffset);
+    }
+
+    // First index in [0, size) whose long at fieldOffset is >= key, assuming that
+    // field never decreases; size() if none. Reads the mapped data in place.
+    public long lowerBound(int fieldOffset, long key, long size) {
+        long lo = 0;
+        long hi = size;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (getLong(mid, fieldOffset) < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // ---------- Writing (single writer) ----------
+
+    public void putLong(long index, int fieldOffset, long value) throws IOException {
+        ensureChunk(index);
+        chunks[(int) (index >>> chunkShift)].putLong(offset(index) + fieldOffset, value);
+    }
+
+    public void putDouble(long index, int fieldOffset, double value) throws IOException {
+        ensureChunk(index);
+        chunks[(int) (index >>> chunkShift)].putDouble(offset(index) + fieldOffset, value);
+    }
+
+    // Make records below newCount visible to readers
+    public void commit(long newCount) {
+        header.putLong(OFF_COUNT, newCount);
+        count = newCount;
+    }
+
+    // Caller-defined persistent long (e.g. a compaction cursor)
+    public long getAux() {
+        return header.getLong(OFF_AUX);
+    }
+
+    public void setAux(long value) {
+        header.putLong(OFF_AUX, value);
+    }
+
+    // Flush dirty pages to disk (the OS does this eventually anyway)
+    public void force() {
+        header.force();
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int offset(long index) {
+        return (int) (index & chunkMask) * recordSize;
+    }
+
+    private void ensureChunk(long index) throws IOException {
+        int chunk = (int) (index >>> chunkShift);
+        MappedByteBuffer[] current = chunks;
+        if (chunk < current.length) {
+            return;
+        }
+        MappedByteBuffer[] next = Arrays.copyOf(current, chunk + 1);
+        long chunkBytes = (long) recordSize << chunkShift;
+        for (int c = current.length; c <= chunk; c++) {
+            next[c] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + c * chunkBytes, chunkBytes);
+        }
+        chunks = next;
+    }
+}
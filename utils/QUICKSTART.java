@@ -32,6 +32,22 @@
  *   → Basic text interface
  * 
  * 
+ * Option 4: Headless HTTP/JSON API (requires JDK 21)
+ * ────────────────────────────────────────────
+ *   java Start --server --port 8080
+ *   curl localhost:8080/api/rates
+ *   
+ *   → One virtual thread per request, paginated history endpoints
+ * 
+ * 
+ * Option 5: Microbenchmarks
+ * ────────────────────────────────────────────
+ *   javac -d out $(find . -name "*.java")
+ *   java -cp out CoreBenchmarks --sizes 1000,100000 --out bench-results.json
+ *   
+ *   → ns/op per hot path and data size, JSON results for comparisons
+ * 
+ * 
  * ============================================
  * GUI TABS (Desktop Application)
  * ============================================
@@ -0,0 +1,35 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// RateMeter - events-per-second over a short sliding window
+// One counter per wall-clock second in a small ring; a slot is lazily reset the
+// first time it is reused for a new second. mark() is lock-free and allocation-free.
+public class RateMeter {
+    private static final int SLOTS = 64; // must exceed the longest window queried
+
+    private final AtomicLongArray counts = new AtomicLongArray(SLOTS);
+    private final AtomicLongArray seconds = new AtomicLongArray(SLOTS);
+
+    public void mark() {
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % SLOTS);
+        long stamp = seconds.get(slot);
+        if (stamp != second && seconds.compareAndSet(slot, stamp, second)) {
+            counts.set(slot, 0);
+        }
+        counts.incrementAndGet(slot);
+    }
+
+    // Average rate over the last windowSeconds complete seconds
+    public double getRatePerSecond(int windowSeconds) {
+        int window = Math.max(1, Math.min(windowSeconds, SLOTS - 1));
+        long now = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (long s = now - window; s < now; s++) {
+            int slot = (int) (s % SLOTS);
+            if (seconds.get(slot) == s) {
+                total += counts.get(slot);
+            }
+        }
+        return (double) total / window;
+    }
+}
@@ -0,0 +1,336 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// TimingWheel - hierarchical timing wheel for millions of coarse timeouts
+//
+// Time advances in ticks of tickMillis. There are LEVELS wheels of 256 slots:
+// level 0 holds timeouts due within the current 256-tick round, level 1 those
+// due within the current 65536-tick round, and so on (4 levels of 1 s ticks
+// reach well past a century). A timeout sits in the lowest level whose round
+// it shares with the current tick, in the slot of its digit at that level;
+// when the clock reaches that slot's boundary the slot is cascaded, each entry
+// dropping to a lower level, so every timeout moves at most LEVELS - 1 times
+// before it fires. Slots are intrusive doubly linked lists, so placing,
+// moving and unlinking a timeout are O(1) and a tick touches only the
+// timeouts that are due or cascading.
+//
+// Only the wheel thread touches the slots. schedule() and cancel() are
+// lock-free from any thread: a new timeout is queued and placed on the next
+// tick (at most MAX_PLACED_PER_TICK per tick, so a burst of schedules cannot
+// stall expiry), and cancel() flips the timeout's state and queues it to be
+// unlinked. onExpiry runs on the wheel thread and must be quick; at most
+// MAX_EXPIRED_PER_TICK of them run per tick, and timeouts due beyond that are
+// carried over on an overdue list that the next ticks drain first, so a mass
+// expiry is spread out instead of stalling placement and cancellation.
+public class TimingWheel<T> {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_TICKS = (1L << (LEVELS * SLOT_BITS)) - 1;
+    private static final int MAX_PLACED_PER_TICK = 100_000;
+    private static final int MAX_EXPIRED_PER_TICK = 10_000;
+    private static final int OVERDUE = LEVELS * SLOTS; // bucket of timeouts due but not yet fired
+
+    // Timeout states
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final String name;
+    private final long tickMillis;
+    private final long startMillis;
+    private final Consumer<T> onExpiry;
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private final Timeout<T>[] heads = new Timeout[LEVELS * SLOTS + 1]; // by level * SLOTS + slot, then OVERDUE
+    private Timeout<T> overdueTail; // overdue fires oldest first (wheel thread only)
+    private int expiryBudget;       // expiries left in the current advance() (wheel thread only)
+    private final ConcurrentLinkedQueue<Timeout<T>> toPlace = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout<T>> toUnlink = new ConcurrentLinkedQueue<>();
+    private long currentTick; // last tick processed (wheel thread only)
+    private Thread thread;
+    private volatile boolean running;
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder carriedOver = new LongAdder();
+
+    // A wheel whose tick 0 is now; call start() to run it on its own thread
+    // (or drive it with advance())
+    public TimingWheel(String name, long tickMillis, Consumer<T> onExpiry) {
+        this(name, tickMillis, System.currentTimeMillis(), onExpiry);
+    }
+
+    TimingWheel(String name, long tickMillis, long startMillis, Consumer<T> onExpiry) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        this.name = name;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.onExpiry = onExpiry;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long now = System.currentTimeMillis();
+            advance(now);
+            long nextTickAt = startMillis + (currentTick + 1) * tickMillis;
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(1, nextTickAt - now)));
+        }
+    }
+
+    // ---------- Scheduling (any thread) ----------
+
+    public Timeout<T> schedule(T item, long delayMillis) {
+        return scheduleAt(item, System.currentTimeMillis() + Math.max(0, delayMillis));
+    }
+
+    public Timeout<T> scheduleAt(T item, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(this, item, deadlineMillis);
+        toPlace.add(timeout);
+        scheduled.increment();
+        return timeout;
+    }
+
+    // ---------- Ticking (wheel thread, or a single caller driving it) ----------
+
+    // Process every tick up to nowMillis: place queued timeouts, unlink
+    // cancelled ones, cascade, and fire whatever is due (overdue timeouts
+    // first), up to MAX_EXPIRED_PER_TICK
+    public void advance(long nowMillis) {
+        expiryBudget = MAX_EXPIRED_PER_TICK;
+        unlinkCancelled();
+        placeQueued();
+        drainOverdue();
+        long target = (nowMillis - startMillis) / tickMillis;
+        while (currentTick < target) {
+            long tick = ++currentTick;
+            // Higher levels first, so entries cascade all the way down in one tick
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((tick & ((1L << (level * SLOT_BITS)) - 1)) == 0) {
+                    cascade(level * SLOTS + (int) ((tick >>> (level * SLOT_BITS)) & SLOT_MASK));
+                }
+            }
+            expireSlot((int) (tick & SLOT_MASK));
+        }
+    }
+
+    private void placeQueued() {
+        for (int i = 0; i < MAX_PLACED_PER_TICK; i++) {
+            Timeout<T> timeout = toPlace.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state == PENDING) {
+                long ticks = Math.floorDiv(timeout.deadlineMillis - startMillis + tickMillis - 1, tickMillis);
+                timeout.deadlineTick = Math.min(Math.max(ticks, currentTick + 1), currentTick + MAX_TICKS);
+                place(timeout);
+            }
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout<T> timeout;
+        while ((timeout = toUnlink.poll()) != null) {
+            if (timeout.bucket >= 0) {
+                unlink(timeout);
+            }
+        }
+    }
+
+    // Lowest level whose round the deadline shares with the current tick
+    private void place(Timeout<T> timeout) {
+        long deadline = timeout.deadlineTick;
+        int level = 0;
+        while (level < LEVELS - 1 && (deadline >>> ((level + 1) * SLOT_BITS)) != (currentTick >>> ((level + 1) * SLOT_BITS))) {
+            level++;
+        }
+        int bucket = level * SLOTS + (int) ((deadline >>> (level * SLOT_BITS)) & SLOT_MASK);
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = heads[bucket];
+        if (heads[bucket] != null) {
+            heads[bucket].prev = timeout;
+        }
+        heads[bucket] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.bucket == OVERDUE && timeout.next == null) {
+            overdueTail = timeout.prev;
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            heads[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+
+    private void cascade(int bucket) {
+        Timeout<T> timeout = heads[bucket];
+        heads[bucket] = null;
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.state == PENDING) {
+                place(timeout);
+            } else {
+                timeout.bucket = -1;
+                timeout.prev = null;
+                timeout.next = null;
+            }
+            timeout = next;
+        }
+    }
+
+    private void expireSlot(int bucket) {
+        Timeout<T> timeout = heads[bucket];
+        heads[bucket] = null;
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.bucket = -1;
+            timeout.prev = null;
+            timeout.next = null;
+            if (expiryBudget > 0) {
+                fire(timeout);
+            } else if (timeout.state == PENDING) {
+                carriedOver.increment();
+                appendOverdue(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void drainOverdue() {
+        Timeout<T> timeout;
+        while (expiryBudget > 0 && (timeout = heads[OVERDUE]) != null) {
+            unlink(timeout);
+            fire(timeout);
+        }
+    }
+
+    private void appendOverdue(Timeout<T> timeout) {
+        timeout.bucket = OVERDUE;
+        timeout.prev = overdueTail;
+        if (overdueTail != null) {
+            overdueTail.next = timeout;
+        } else {
+            heads[OVERDUE] = timeout;
+        }
+        overdueTail = timeout;
+    }
+
+    private void fire(Timeout<T> timeout) {
+        if (STATE.compareAndSet(timeout, PENDING, EXPIRED)) {
+            expired.increment();
+            expiryBudget--;
+            try {
+                onExpiry.accept(timeout.item);
+            } catch (RuntimeException e) {
+                failures.increment(); // one bad handler must not stop the wheel
+            }
+        }
+    }
+
+    // ---------- Stats ----------
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    // Scheduled timeouts that have neither fired nor been cancelled
+    public long getPendingCount() {
+        return scheduled.sum() - cancelled.sum() - expired.sum();
+    }
+
+    public long getScheduledCount() {
+        return scheduled.sum();
+    }
+
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    // Timeouts that were due on a tick already at MAX_EXPIRED_PER_TICK and fired later
+    public long getCarriedOverCount() {
+        return carriedOver.sum();
+    }
+
+    // Expiry handlers that threw
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    // A scheduled item; cancel() is O(1) and safe from any thread
+    public static final class Timeout<T> {
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final long deadlineMillis;
+        private volatile int state = PENDING;
+        // Wheel thread only
+        private long deadlineTick;
+        private int bucket = -1;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(TimingWheel<T> wheel, T item, long deadlineMillis) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        // False if it has already fired or been cancelled
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.cancelled.increment();
+            wheel.toUnlink.add(this);
+            return true;
+        }
+
+        public T getItem() { return item; }
+        public long getDeadlineMillis() { return deadlineMillis; }
+        public boolean isExpired() { return state == EXPIRED; }
+        public boolean isCancelled() { return state == CANCELLED; }
+    }
+}